@@ -20,31 +20,36 @@ CREATE TABLE client_detail(
 	name character varying(256) NOT NULL,
 	rp_id character varying(50) NOT NULL,
 	logo_uri character varying(1024) NOT NULL,
-	redirect_uris character varying NOT NULL,
-	claims character varying NOT NULL,
-	acr_values character varying NOT NULL,
+	redirect_uris jsonb NOT NULL,
+	claims jsonb NOT NULL,
+	acr_values jsonb NOT NULL,
 	public_key character varying NOT NULL,
-	grant_types character varying NOT NULL,
-	auth_methods character varying NOT NULL,
+	grant_types jsonb NOT NULL,
+	auth_methods jsonb NOT NULL,
 	status character varying(20) NOT NULL,
 	cr_dtimes timestamp NOT NULL,
 	upd_dtimes timestamp,
 	CONSTRAINT pk_client_detail PRIMARY KEY (id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_client_detail_status ON client_detail USING btree (status);
+CREATE INDEX IF NOT EXISTS idx_client_detail_rp_id ON client_detail USING btree (rp_id);
+CREATE INDEX IF NOT EXISTS idx_client_detail_claims ON client_detail USING gin (claims jsonb_path_ops);
+CREATE INDEX IF NOT EXISTS idx_client_detail_modified ON client_detail USING btree ((coalesce(upd_dtimes, cr_dtimes)));
+
 COMMENT ON TABLE key_alias IS 'Contains key alias and  metadata of all the keys used in MOSIP system.';
 
 COMMENT ON COLUMN client_detail.id IS 'Client ID: Unique id assigned to registered OIDC client.';
 COMMENT ON COLUMN client_detail.name IS 'Client Name: Registered name of OIDC client.';
 COMMENT ON COLUMN client_detail.logo_uri IS 'Client Logo URL: Client logo to be displayed on IDP UI.';
-COMMENT ON COLUMN client_detail.redirect_uris IS 'Recirect URLS: Comma separated client redirect URLs.';
+COMMENT ON COLUMN client_detail.redirect_uris IS 'Recirect URLS: JSON array of client redirect URLs.';
 COMMENT ON COLUMN client_detail.rp_id IS 'relying Party Id: Id of the relying Party who has created this OIDC client.';
 COMMENT ON COLUMN client_detail.status IS 'Client status: Allowed values - ACTIVE / INACTIVE.';
 COMMENT ON COLUMN client_detail.public_key IS 'Public key: JWK format.';
-COMMENT ON COLUMN client_detail.grant_types IS 'Grant Types: Allowed grant types for the client, comma separated string.';
-COMMENT ON COLUMN client_detail.auth_methods IS 'Client Auth methods: Allowed token endpoint authentication methods, comma separated string.';
-COMMENT ON COLUMN client_detail.claims IS 'Requested Claims: claims json as per policy defined for relying party, comma separated string.';
-COMMENT ON COLUMN client_detail.acr_values IS 'Allowed Authentication context References(acr), comma separated string.';
+COMMENT ON COLUMN client_detail.grant_types IS 'Grant Types: Allowed grant types for the client, JSON array.';
+COMMENT ON COLUMN client_detail.auth_methods IS 'Client Auth methods: Allowed token endpoint authentication methods, JSON array.';
+COMMENT ON COLUMN client_detail.claims IS 'Requested Claims: claims json as per policy defined for relying party, JSON array.';
+COMMENT ON COLUMN client_detail.acr_values IS 'Allowed Authentication context References(acr), JSON array.';
 COMMENT ON COLUMN key_policy_def.cr_dtimes IS 'Created DateTimestamp : Date and Timestamp when the record is created/inserted';
 COMMENT ON COLUMN key_policy_def.upd_dtimes IS 'Updated DateTimestamp : Date and Timestamp when any of the fields in the record is updated with new values.';
 -- ddl-end --
@@ -0,0 +1,30 @@
+-- This Source Code Form is subject to the terms of the Mozilla Public
+-- License, v. 2.0. If a copy of the MPL was not distributed with this
+-- file, You can obtain one at https://mozilla.org/MPL/2.0/.
+-- -------------------------------------------------------------------------------------------------
+-- Database Name: mosip_idp
+-- Table Name : client_detail
+-- Purpose    : Upgrades the list columns of an existing client_detail table from JSON text to jsonb and
+--              creates the indexes on status, rp_id, claims and the modified time.
+-- ------------------------------------------------------------------------------------------
+
+\c mosip_idp
+
+ALTER TABLE client_detail
+	ALTER COLUMN redirect_uris TYPE jsonb USING redirect_uris::jsonb,
+	ALTER COLUMN claims TYPE jsonb USING claims::jsonb,
+	ALTER COLUMN acr_values TYPE jsonb USING acr_values::jsonb,
+	ALTER COLUMN grant_types TYPE jsonb USING grant_types::jsonb,
+	ALTER COLUMN auth_methods TYPE jsonb USING auth_methods::jsonb;
+
+CREATE INDEX IF NOT EXISTS idx_client_detail_status ON client_detail USING btree (status);
+CREATE INDEX IF NOT EXISTS idx_client_detail_rp_id ON client_detail USING btree (rp_id);
+CREATE INDEX IF NOT EXISTS idx_client_detail_claims ON client_detail USING gin (claims jsonb_path_ops);
+CREATE INDEX IF NOT EXISTS idx_client_detail_modified ON client_detail USING btree ((coalesce(upd_dtimes, cr_dtimes)));
+
+COMMENT ON COLUMN client_detail.redirect_uris IS 'Recirect URLS: JSON array of client redirect URLs.';
+COMMENT ON COLUMN client_detail.grant_types IS 'Grant Types: Allowed grant types for the client, JSON array.';
+COMMENT ON COLUMN client_detail.auth_methods IS 'Client Auth methods: Allowed token endpoint authentication methods, JSON array.';
+COMMENT ON COLUMN client_detail.claims IS 'Requested Claims: claims json as per policy defined for relying party, JSON array.';
+COMMENT ON COLUMN client_detail.acr_values IS 'Allowed Authentication context References(acr), JSON array.';
+-- ddl-end --
@@ -7,10 +7,11 @@ package io.mosip.idp.core.dto;
 
 import lombok.Data;
 
+import java.io.Serializable;
 import java.util.Map;
 
 @Data
-public class Claims {
+public class Claims implements Serializable {
 
     private Map<String, ClaimDetail> userinfo;
     private Map<String, ClaimDetail> id_token;
@@ -7,20 +7,27 @@ package io.mosip.idp.core.dto;
 
 import lombok.Data;
 
-import java.util.List;
+import java.io.Serializable;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Set;
 
+/**
+ * Policy of the registered client, built once when the client is loaded into the client detail cache. Sets keep the
+ * registered order and are not modifiable, lookups on the authorize and token paths are constant time.
+ */
 @Data
-public class ClientDetail {
+public class ClientDetail implements Serializable {
 
     private String id;
     private String name;
     private String rpId;
     private String logoUri;
-    private List<String> redirectUris;
+    private Set<String> redirectUris;
     private String publicKey;
-    private List<String> claims;
-    private List<String> acrValues;
+    private RSAPublicKey parsedPublicKey;
+    private Set<String> claims;
+    private Set<String> acrValues;
     private String status;
-    private List<String> grantTypes;
-    private List<String> clientAuthMethods;
+    private Set<String> grantTypes;
+    private Set<String> clientAuthMethods;
 }
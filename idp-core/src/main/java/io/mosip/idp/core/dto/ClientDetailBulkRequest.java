@@ -0,0 +1,25 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.core.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Items are validated one by one when processed, an invalid item fails only its own result.
+ */
+@Data
+public class ClientDetailBulkRequest {
+
+    private List<ClientDetailCreateRequest> createRequests;
+
+    /**
+     * Update requests keyed by the client id
+     */
+    private Map<String, ClientDetailUpdateRequest> updateRequests;
+}
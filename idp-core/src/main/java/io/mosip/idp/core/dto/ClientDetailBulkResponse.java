@@ -0,0 +1,19 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.core.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ClientDetailBulkResponse {
+
+    /**
+     * One result per item, results of the create requests followed by the results of the update requests
+     */
+    private List<ClientDetailBulkResult> results;
+}
@@ -5,12 +5,22 @@
  */
 package io.mosip.idp.core.dto;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
 import java.util.List;
 
 @Data
-public class IdPTransaction {
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdPTransaction implements Serializable {
+
+    String transactionId;
+    TransactionState state;
 
     String clientId;
     String relyingPartyId;
@@ -28,6 +38,11 @@ public class IdPTransaction {
     String encryptedKyc;
     String aHash;
 
+    //tokens signed ahead of the token request, set only with speculative minting
+    String mintedAccessToken;
+    String mintedIdToken;
+    long mintedAtInSeconds;
+
     String error;
 
     String nonce;
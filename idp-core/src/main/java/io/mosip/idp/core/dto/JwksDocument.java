@@ -0,0 +1,20 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Serialized JWK set with the strong ETag of its content, built once per key set.
+ */
+@Data
+@AllArgsConstructor
+public class JwksDocument {
+
+    private byte[] content;
+    private String eTag;
+}
@@ -0,0 +1,30 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.core.dto;
+
+import io.mosip.idp.core.util.Constants;
+
+/**
+ * Lifecycle of a transaction, TTL and size limit of each state are configured against the cache names
+ * (mosip.idp.cache.expire-in-seconds and mosip.idp.cache.size).
+ */
+public enum TransactionState {
+
+    INITIATED(Constants.PRE_AUTH_SESSION_CACHE),
+    AUTHENTICATED(Constants.PRE_AUTH_SESSION_CACHE),
+    CODE_ISSUED(Constants.AUTHENTICATED_CACHE),
+    TOKEN_ISSUED(Constants.KYC_CACHE);
+
+    private final String cacheName;
+
+    TransactionState(String cacheName) {
+        this.cacheName = cacheName;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+}
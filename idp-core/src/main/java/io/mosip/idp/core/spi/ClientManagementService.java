@@ -6,6 +6,8 @@
 package io.mosip.idp.core.spi;
 
 import io.mosip.idp.core.dto.ClientDetail;
+import io.mosip.idp.core.dto.ClientDetailBulkRequest;
+import io.mosip.idp.core.dto.ClientDetailBulkResponse;
 import io.mosip.idp.core.dto.ClientDetailCreateRequest;
 import io.mosip.idp.core.dto.ClientDetailResponse;
 import io.mosip.idp.core.dto.ClientDetailUpdateRequest;
@@ -31,6 +33,14 @@ public interface ClientManagementService {
      */
     ClientDetailResponse updateOIDCClient(String clientId, ClientDetailUpdateRequest clientDetailCreateRequest) throws IdPException;
 
+    /**
+     * API to register and update relying party clients in bulk, all the valid items are written in one transaction
+     * @param clientDetailBulkRequest
+     * @return result of each item
+     * @throws IdPException if the batch is too large or the write fails
+     */
+    ClientDetailBulkResponse createOrUpdateOIDCClients(ClientDetailBulkRequest clientDetailBulkRequest) throws IdPException;
+
     /**
      * Api to get the active client detail with the provided client id.
      * @param clientId
@@ -5,10 +5,10 @@
  */
 package io.mosip.idp.core.spi;
 
+import io.mosip.idp.core.dto.JwksDocument;
 import io.mosip.idp.core.dto.TokenRequest;
 import io.mosip.idp.core.dto.TokenResponse;
 import io.mosip.idp.core.exception.IdPException;
-import org.jose4j.jwk.JsonWebKeySet;
 
 public interface OAuthService {
 
@@ -33,7 +33,7 @@ public interface OAuthService {
 
     /**
      * API to get list of IdP public keys
-     * @return list of all the keys used to sign access-token, id-token and user kyc data
+     * @return serialized JWK set of all the keys used to sign access-token, id-token and user kyc data
      */
-    JsonWebKeySet getJwks();
+    JwksDocument getJwks();
 }
@@ -10,6 +10,7 @@ import io.mosip.idp.core.exception.IdPException;
 import io.mosip.idp.core.exception.NotAuthenticatedException;
 import org.json.simple.JSONObject;
 
+import java.security.interfaces.RSAPublicKey;
 import java.util.List;
 
 public interface TokenService {
@@ -107,6 +108,12 @@ public interface TokenService {
      */
      void verifyClientAssertionToken(String clientId, String jwk, String clientAssertion) throws IdPException;
 
+    /**
+     * Same as verifyClientAssertionToken with the JWK, the public key is taken as already parsed from the
+     * registered client details.
+     */
+     void verifyClientAssertionToken(String clientId, RSAPublicKey publicKey, String clientAssertion) throws IdPException;
+
     /**
      * Verifies access token signature and also the claims with expected values
      * if any one verification fails then throws NotAuthenticatedException
@@ -114,6 +121,14 @@ public interface TokenService {
      */
      void verifyAccessToken(String clientId, String subject, String accessToken) throws NotAuthenticatedException;
 
+    /**
+     * Same as verifyAccessToken, with the access token hash already computed by the caller. Outcome of a successful
+     * verification may be reused for the repeated calls with the same access token until the token expires.
+     * @throws NotAuthenticatedException
+     */
+     void verifyAccessToken(String clientId, String subject, String accessToken, String accessTokenHash)
+             throws NotAuthenticatedException;
+
 
     /**
      * Sign the provided payload with master key specific to application id
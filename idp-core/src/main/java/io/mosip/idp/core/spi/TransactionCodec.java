@@ -0,0 +1,26 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.core.spi;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+
+/**
+ * Converts the transaction to and from bytes, used by the stores which keep the transactions outside the heap.
+ */
+public interface TransactionCodec {
+
+    /**
+     * @param transaction
+     * @return encoded bytes of the transaction
+     */
+    byte[] encode(IdPTransaction transaction);
+
+    /**
+     * @param value bytes produced by encode of the same codec
+     * @return null if the value is null, otherwise the decoded transaction
+     */
+    IdPTransaction decode(byte[] value);
+}
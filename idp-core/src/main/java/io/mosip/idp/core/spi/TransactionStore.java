@@ -0,0 +1,59 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.core.spi;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.TransactionState;
+
+/**
+ * Holds a single record per transaction, keyed by the transactionId and indexed by the auth code and
+ * access token hash once issued. Record is expired after the TTL configured for its current state.
+ * Returned records are detached copies, changes are stored only through save or transition.
+ */
+public interface TransactionStore {
+
+    /**
+     * Stores the new transaction against its transactionId, any existing record with the same id is replaced.
+     * @param transaction transaction with transactionId and state set
+     */
+    void save(IdPTransaction transaction);
+
+    /**
+     * @param transactionId
+     * @return null if no record found or record is expired
+     */
+    IdPTransaction findByTransactionId(String transactionId);
+
+    /**
+     * @param authCode
+     * @return null if no record found, record is expired or the auth code is already redeemed
+     */
+    IdPTransaction findByAuthCode(String authCode);
+
+    /**
+     * @param accessTokenHash
+     * @return null if no record found or record is expired
+     */
+    IdPTransaction findByAccessTokenHash(String accessTokenHash);
+
+    /**
+     * Atomically replaces the stored record with the provided transaction only if the stored record is
+     * in fromState. TTL is reset to the TTL of the new state. Moving into CODE_ISSUED indexes the record
+     * by the auth code, moving into TOKEN_ISSUED indexes the record by the access token hash and removes
+     * the auth code index, so an auth code is redeemed only once. Only one of the concurrent callers
+     * transitioning from the same state succeeds.
+     * @param transaction transaction with the new state set
+     * @param fromState expected state of the stored record
+     * @return false if the record is not found, expired or not in fromState, otherwise true
+     */
+    boolean transition(IdPTransaction transaction, TransactionState fromState);
+
+    /**
+     * Used for admission control, new transactions are not admitted when the store is close to its capacity.
+     * @return fraction of the store capacity in use between 0 and 1, always 0 if the store is not capacity bounded
+     */
+    double getOccupancy();
+}
@@ -34,4 +34,6 @@ public class ErrorConstants {
     public static final String DUPLICATE_CLIENT_ID = "duplicate_client_id";
     public static final String INVALID_CLAIM = "invalid_claim";
     public static final String INVALID_PUBLIC_KEY = "invalid_public_key";
+    public static final String TEMPORARILY_UNAVAILABLE = "temporarily_unavailable";
+    public static final String KYC_EXCHANGE_TIMEOUT = "kyc_exchange_timeout";
 }
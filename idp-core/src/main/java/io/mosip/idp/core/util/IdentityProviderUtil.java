@@ -20,7 +20,7 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Base64;
-import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static io.mosip.idp.core.util.Constants.UTC_DATETIME_PATTERN;
@@ -107,8 +107,8 @@ public class IdentityProviderUtil {
         return ZonedDateTime.now(ZoneOffset.UTC).toEpochSecond();
     }
 
-    public static void validateRedirectURI(List<String> registeredRedirectUris, String requestedRedirectUri) throws IdPException {
-        if(registeredRedirectUris.stream().anyMatch(uri -> uri.equals(requestedRedirectUri)))
+    public static void validateRedirectURI(Set<String> registeredRedirectUris, String requestedRedirectUri) throws IdPException {
+        if(registeredRedirectUris.contains(requestedRedirectUri))
             return;
 
         log.error("Invalid redirect URI registered : {}, requested: {}", registeredRedirectUris, requestedRedirectUri);
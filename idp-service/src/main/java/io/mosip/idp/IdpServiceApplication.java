@@ -7,10 +7,13 @@ package io.mosip.idp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
 import org.springframework.cache.annotation.EnableCaching;
 
 @EnableCaching
-@SpringBootApplication(scanBasePackages = {"io.mosip.idp",
+@SpringBootApplication(exclude = {RedisAutoConfiguration.class, RedisRepositoriesAutoConfiguration.class},
+		scanBasePackages = {"io.mosip.idp",
 		"io.mosip.kernel.crypto",
 		"io.mosip.kernel.keymanager.hsm",
 		"io.mosip.kernel.cryptomanager.util",
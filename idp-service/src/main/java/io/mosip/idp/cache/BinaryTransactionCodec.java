@@ -0,0 +1,383 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.mosip.idp.core.dto.ClaimDetail;
+import io.mosip.idp.core.dto.Claims;
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.TransactionState;
+import io.mosip.idp.core.spi.TokenService;
+import io.mosip.idp.core.spi.TransactionCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact versioned binary encoding of the transaction. Fields are written in a fixed order, lengths and
+ * counts are unsigned varints offset by one so that zero marks a null value. Claim names configured in
+ * mosip.idp.openid.scope.claims are written as small integer tags, any other name is written as a literal.
+ *
+ * Encoded value starts with the format version and the hash of the claim name dictionary, a value encoded
+ * with a different version or dictionary is rejected. All the nodes sharing a store should run with the same
+ * scope claims configuration, the stores treat a rejected value as a miss so a change of the configuration only
+ * restarts the in-flight flows. Values encoded with the previous version are still decoded, the fields added in
+ * the current version are then left unset.
+ *
+ * Element counts and lengths read from the value are checked against the remaining bytes before allocating.
+ */
+@Slf4j
+public class BinaryTransactionCodec implements TransactionCodec {
+
+    private static final byte VERSION = 2;
+    private static final byte PREVIOUS_VERSION = 1;
+    private static final int HEADER_LENGTH = 5;
+    private static final TransactionState[] STATES = TransactionState.values();
+
+    private final String[] claimNames;
+    private final Map<String, Integer> claimTags;
+    private final int dictionaryHash;
+
+    public BinaryTransactionCodec(Map<String, List<String>> scopeClaims) {
+        SortedSet<String> names = new TreeSet<>();
+        names.add(TokenService.ACR);
+        scopeClaims.values().forEach(names::addAll);
+        this.claimNames = names.toArray(new String[0]);
+        this.claimTags = new HashMap<>();
+        for(int i=0; i<claimNames.length; i++) {
+            claimTags.put(claimNames[i], i + 1);
+        }
+        this.dictionaryHash = String.join(",", claimNames).hashCode();
+    }
+
+    @Override
+    public byte[] encode(IdPTransaction transaction) {
+        Writer writer = new Writer(256);
+        writer.writeByte(VERSION);
+        writer.writeFixedInt(dictionaryHash);
+        writer.writeString(transaction.getTransactionId());
+        writer.writeVarInt(transaction.getState() == null ? 0 : transaction.getState().ordinal() + 1);
+        writer.writeString(transaction.getClientId());
+        writer.writeString(transaction.getRelyingPartyId());
+        writer.writeString(transaction.getRedirectUri());
+        writeClaims(writer, transaction.getRequestedClaims());
+        writer.writeString(transaction.getClaimsLocales());
+        writer.writeString(transaction.getKycToken());
+        writer.writeString(transaction.getPartnerSpecificUserToken());
+        writer.writeVarLong(transaction.getAuthTimeInSeconds());
+        writer.writeString(transaction.getCode());
+        writeClaimNames(writer, transaction.getAcceptedClaims());
+        writeStrings(writer, transaction.getPermittedScopes());
+        writer.writeString(transaction.getEncryptedKyc());
+        writer.writeString(transaction.getAHash());
+        writer.writeString(transaction.getError());
+        writer.writeString(transaction.getNonce());
+        writer.writeString(transaction.getMintedAccessToken());
+        writer.writeString(transaction.getMintedIdToken());
+        writer.writeVarLong(transaction.getMintedAtInSeconds());
+        return writer.toByteArray();
+    }
+
+    @Override
+    public IdPTransaction decode(byte[] value) {
+        if(value == null)
+            return null;
+
+        if(value.length < HEADER_LENGTH || (value[0] != VERSION && value[0] != PREVIOUS_VERSION)) {
+            log.error("Unsupported transaction encoding version");
+            throw new IllegalStateException("Unsupported transaction encoding version");
+        }
+
+        Reader reader = new Reader(value);
+        byte version = reader.readByte();
+        if(reader.readFixedInt() != dictionaryHash) {
+            log.error("Transaction encoded with a different claim name dictionary");
+            throw new IllegalStateException("Transaction encoded with a different claim name dictionary");
+        }
+
+        try {
+            IdPTransaction transaction = new IdPTransaction();
+            transaction.setTransactionId(reader.readString());
+            int state = reader.readVarInt();
+            if(state < 0 || state > STATES.length)
+                throw new IllegalStateException("Failed to decode transaction, unknown state");
+            transaction.setState(state == 0 ? null : STATES[state - 1]);
+            transaction.setClientId(reader.readString());
+            transaction.setRelyingPartyId(reader.readString());
+            transaction.setRedirectUri(reader.readString());
+            transaction.setRequestedClaims(readClaims(reader));
+            transaction.setClaimsLocales(reader.readString());
+            transaction.setKycToken(reader.readString());
+            transaction.setPartnerSpecificUserToken(reader.readString());
+            transaction.setAuthTimeInSeconds(reader.readVarLong());
+            transaction.setCode(reader.readString());
+            transaction.setAcceptedClaims(readClaimNames(reader));
+            transaction.setPermittedScopes(readStrings(reader));
+            transaction.setEncryptedKyc(reader.readString());
+            transaction.setAHash(reader.readString());
+            transaction.setError(reader.readString());
+            transaction.setNonce(reader.readString());
+            if(version == VERSION) {
+                transaction.setMintedAccessToken(reader.readString());
+                transaction.setMintedIdToken(reader.readString());
+                transaction.setMintedAtInSeconds(reader.readVarLong());
+            }
+            return transaction;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            log.error("Failed to decode transaction, truncated value", e);
+            throw new IllegalStateException("Failed to decode transaction", e);
+        }
+    }
+
+    private void writeClaims(Writer writer, Claims claims) {
+        if(claims == null) {
+            writer.writeByte((byte) 0);
+            return;
+        }
+        writer.writeByte((byte) 1);
+        writeClaimDetails(writer, claims.getUserinfo());
+        writeClaimDetails(writer, claims.getId_token());
+    }
+
+    private Claims readClaims(Reader reader) {
+        if(reader.readByte() == 0)
+            return null;
+        Claims claims = new Claims();
+        claims.setUserinfo(readClaimDetails(reader));
+        claims.setId_token(readClaimDetails(reader));
+        return claims;
+    }
+
+    private void writeClaimDetails(Writer writer, Map<String, ClaimDetail> claimDetails) {
+        if(claimDetails == null) {
+            writer.writeVarInt(0);
+            return;
+        }
+        writer.writeVarInt(claimDetails.size() + 1);
+        for(Map.Entry<String, ClaimDetail> entry : claimDetails.entrySet()) {
+            writeClaimName(writer, entry.getKey());
+            ClaimDetail claimDetail = entry.getValue();
+            if(claimDetail == null) {
+                writer.writeByte((byte) 0);
+                continue;
+            }
+            writer.writeByte((byte) (claimDetail.isEssential() ? 2 : 1));
+            writer.writeString(claimDetail.getValue());
+            if(claimDetail.getValues() == null) {
+                writer.writeVarInt(0);
+                continue;
+            }
+            writer.writeVarInt(claimDetail.getValues().length + 1);
+            for(String value : claimDetail.getValues()) {
+                writer.writeString(value);
+            }
+        }
+    }
+
+    private Map<String, ClaimDetail> readClaimDetails(Reader reader) {
+        int size = reader.readCount();
+        if(size == 0)
+            return null;
+        Map<String, ClaimDetail> claimDetails = new HashMap<>();
+        for(int i=0; i<size-1; i++) {
+            String name = readClaimName(reader);
+            byte flag = reader.readByte();
+            if(flag == 0) {
+                claimDetails.put(name, null);
+                continue;
+            }
+            ClaimDetail claimDetail = new ClaimDetail();
+            claimDetail.setEssential(flag == 2);
+            claimDetail.setValue(reader.readString());
+            int count = reader.readCount();
+            if(count > 0) {
+                String[] values = new String[count - 1];
+                for(int j=0; j<values.length; j++) {
+                    values[j] = reader.readString();
+                }
+                claimDetail.setValues(values);
+            }
+            claimDetails.put(name, claimDetail);
+        }
+        return claimDetails;
+    }
+
+    private void writeClaimNames(Writer writer, List<String> names) {
+        if(names == null) {
+            writer.writeVarInt(0);
+            return;
+        }
+        writer.writeVarInt(names.size() + 1);
+        for(String name : names) {
+            writeClaimName(writer, name);
+        }
+    }
+
+    private List<String> readClaimNames(Reader reader) {
+        int size = reader.readCount();
+        if(size == 0)
+            return null;
+        List<String> names = new ArrayList<>(size - 1);
+        for(int i=0; i<size-1; i++) {
+            names.add(readClaimName(reader));
+        }
+        return names;
+    }
+
+    private void writeStrings(Writer writer, List<String> values) {
+        if(values == null) {
+            writer.writeVarInt(0);
+            return;
+        }
+        writer.writeVarInt(values.size() + 1);
+        for(String value : values) {
+            writer.writeString(value);
+        }
+    }
+
+    private List<String> readStrings(Reader reader) {
+        int size = reader.readCount();
+        if(size == 0)
+            return null;
+        List<String> values = new ArrayList<>(size - 1);
+        for(int i=0; i<size-1; i++) {
+            values.add(reader.readString());
+        }
+        return values;
+    }
+
+    /**
+     * Known claim name is written as its tag, any other name as tag 0 followed by the name.
+     */
+    private void writeClaimName(Writer writer, String name) {
+        Integer tag = name == null ? null : claimTags.get(name);
+        if(tag != null) {
+            writer.writeVarInt(tag);
+            return;
+        }
+        writer.writeVarInt(0);
+        writer.writeString(name);
+    }
+
+    private String readClaimName(Reader reader) {
+        int tag = reader.readVarInt();
+        if(tag < 0 || tag > claimNames.length)
+            throw new IllegalStateException("Failed to decode transaction, unknown claim tag");
+        return tag == 0 ? reader.readString() : claimNames[tag - 1];
+    }
+
+    private static class Writer {
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void writeByte(byte value) {
+            ensureCapacity(1);
+            buffer[position++] = value;
+        }
+
+        private void writeFixedInt(int value) {
+            ensureCapacity(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeString(String value) {
+            if(value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void ensureCapacity(int length) {
+            if(position + length > buffer.length)
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        private Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private byte readByte() {
+            return buffer[position++];
+        }
+
+        private int readFixedInt() {
+            return ((buffer[position++] & 0xFF) << 24) | ((buffer[position++] & 0xFF) << 16) |
+                    ((buffer[position++] & 0xFF) << 8) | (buffer[position++] & 0xFF);
+        }
+
+        private int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        /**
+         * Count of the elements offset by one, every element takes at least a byte so a count beyond the remaining
+         * bytes is rejected before any array is allocated for it.
+         */
+        private int readCount() {
+            long count = readVarLong();
+            if(count < 0 || count - 1 > buffer.length - position)
+                throw new IllegalStateException("Failed to decode transaction, invalid element count");
+            return (int) count;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private String readString() {
+            long length = readVarLong();
+            if(length == 0)
+                return null;
+            if(length < 0 || length - 1 > buffer.length - position)
+                throw new ArrayIndexOutOfBoundsException("Invalid string length " + length);
+            String value = new String(buffer, position, (int) length - 1, StandardCharsets.UTF_8);
+            position += (int) length - 1;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache evictions to every node, so that the node local copies of a shared cache are evicted
+ * as soon as the entry is changed on any node. Cache keys are carried as strings.
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Publishes the eviction to all the nodes subscribed for the cache, including the publishing node.
+     * @param cacheName
+     * @param key evicted key, null if the whole cache is cleared
+     */
+    void publish(String cacheName, Object key);
+
+    /**
+     * @param cacheName
+     * @param listener invoked with the evicted key, or with null if the whole cache is cleared
+     */
+    void subscribe(String cacheName, Consumer<String> listener);
+}
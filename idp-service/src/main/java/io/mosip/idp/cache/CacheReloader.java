@@ -0,0 +1,23 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+/**
+ * Loads the entries of a refresh-ahead cache, hot entries are reloaded in the background before they expire.
+ */
+public interface CacheReloader {
+
+    /**
+     * @return name of the cache the entries are loaded for
+     */
+    String getCacheName();
+
+    /**
+     * @param key cache key
+     * @return current value of the key, null if the key no more has a value and the entry is to be removed
+     */
+    Object load(Object key) throws Exception;
+}
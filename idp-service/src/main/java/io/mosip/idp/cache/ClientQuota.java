@@ -0,0 +1,117 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Partitions the live transactions of a store by the clientId, so that a single relying party opening lots of
+ * sessions cannot evict the sessions of the other relying parties. Each client is allowed up to its quota of
+ * live transactions, a new transaction of a client at its quota evicts the oldest transaction of the same client.
+ *
+ * Quota is taken from the per client overrides, else the default quota. Quota of 0 or less is not limited.
+ * Occupancy of each client partition and the evictions due to quota are published per client.
+ */
+@Slf4j
+public class ClientQuota {
+
+    private static final String UNKNOWN_CLIENT = "unknown";
+
+    private final int defaultQuota;
+    private final Map<String, Integer> clientQuotas;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    public ClientQuota(int defaultQuota, Map<String, Integer> clientQuotas, MeterRegistry meterRegistry) {
+        this.defaultQuota = defaultQuota;
+        this.clientQuotas = clientQuotas;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Adds the transaction to its client partition, adding an existing transaction is a no-op.
+     * @param clientId
+     * @param transactionId
+     * @return transactionId of the oldest transaction of the client to be evicted, null if the client is within its quota
+     */
+    public String acquire(String clientId, String transactionId) {
+        Partition partition = getPartition(clientId);
+        synchronized (partition) {
+            if(!partition.transactionIds.add(transactionId) || partition.quota <= 0 ||
+                    partition.transactionIds.size() <= partition.quota)
+                return null;
+
+            Iterator<String> iterator = partition.transactionIds.iterator();
+            String evicted = iterator.next();
+            iterator.remove();
+            partition.evictionCounter.increment();
+            log.debug("Client {} reached its quota of {} transactions, evicting its oldest transaction",
+                    clientId, partition.quota);
+            return evicted;
+        }
+    }
+
+    /**
+     * Removes the expired or evicted transaction from its client partition.
+     * @param clientId
+     * @param transactionId
+     */
+    public void release(String clientId, String transactionId) {
+        Partition partition = partitions.get(clientId == null ? UNKNOWN_CLIENT : clientId);
+        if(partition == null)
+            return;
+        synchronized (partition) {
+            partition.transactionIds.remove(transactionId);
+        }
+    }
+
+    /**
+     * @param clientId
+     * @return fraction of the client quota in use, 0 if the client quota is not limited
+     */
+    public double getOccupancy(String clientId) {
+        Partition partition = partitions.get(clientId == null ? UNKNOWN_CLIENT : clientId);
+        return partition == null ? 0 : partition.getOccupancy();
+    }
+
+    private Partition getPartition(String clientId) {
+        return partitions.computeIfAbsent(clientId == null ? UNKNOWN_CLIENT : clientId, id -> {
+            Partition partition = new Partition(clientQuotas.getOrDefault(id, defaultQuota),
+                    Counter.builder("idp.transaction.store.client.evictions")
+                            .description("Number of transactions evicted as the client reached its quota")
+                            .tag("client", id)
+                            .register(meterRegistry));
+            Gauge.builder("idp.transaction.store.client.occupancy", partition, Partition::getOccupancy)
+                    .description("Fraction of the client quota in use")
+                    .tag("client", id)
+                    .register(meterRegistry);
+            return partition;
+        });
+    }
+
+    private static class Partition {
+        private final int quota;
+        private final Counter evictionCounter;
+        private final LinkedHashSet<String> transactionIds = new LinkedHashSet<>();
+
+        private Partition(int quota, Counter evictionCounter) {
+            this.quota = quota;
+            this.evictionCounter = evictionCounter;
+        }
+
+        private synchronized double getOccupancy() {
+            return quota <= 0 ? 0 : transactionIds.size() / (double) quota;
+        }
+    }
+}
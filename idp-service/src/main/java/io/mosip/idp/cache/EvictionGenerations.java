@@ -0,0 +1,64 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Eviction generations of the keys of a two level cache on this node, bumped on every eviction made on the node or
+ * received on the invalidation bus. A value loaded from the source is written back to L2 only if no eviction of its
+ * key happened during the load, otherwise the value loaded before an update would be left in L2 after the update.
+ *
+ * Keys are striped over a fixed number of generations, an eviction of another key of the stripe only skips a write
+ * back which the next load does again.
+ */
+public class EvictionGenerations {
+
+    private static final int STRIPES = 1024;
+
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    /**
+     * @return generation of the key, to be read before the value is loaded from the source
+     */
+    public long get(Object key) {
+        return generations.get(getStripe(key));
+    }
+
+    public void evicted(Object key) {
+        generations.incrementAndGet(getStripe(key));
+    }
+
+    public void evictedAll() {
+        for(int i=0; i<STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+    }
+
+    /**
+     * Writes the loaded value to the shared cache if the key is not evicted since the generation was read. Value is
+     * evicted again if an eviction races with the write.
+     * @param generation generation of the key read before the value was loaded
+     * @return false if the value is not written
+     */
+    public boolean putIfNotEvicted(Cache sharedCache, Object key, Object value, long generation) {
+        if(get(key) != generation)
+            return false;
+
+        sharedCache.put(key, value);
+        if(get(key) != generation) {
+            sharedCache.evict(key);
+            return false;
+        }
+        return true;
+    }
+
+    private static int getStripe(Object key) {
+        return (key.hashCode() & 0x7FFFFFFF) % STRIPES;
+    }
+}
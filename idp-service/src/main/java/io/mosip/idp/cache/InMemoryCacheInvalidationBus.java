@@ -0,0 +1,32 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers the evictions synchronously to the subscribers in the same JVM, meant for single node deployments
+ * and tests.
+ */
+public class InMemoryCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String cacheName, Object key) {
+        String evictedKey = key == null ? null : key.toString();
+        listeners.getOrDefault(cacheName, List.of()).forEach(listener -> listener.accept(evictedKey));
+    }
+
+    @Override
+    public void subscribe(String cacheName, Consumer<String> listener) {
+        listeners.computeIfAbsent(cacheName, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+}
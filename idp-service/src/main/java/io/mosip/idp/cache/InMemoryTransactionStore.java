@@ -0,0 +1,161 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.TransactionState;
+import io.mosip.idp.core.spi.TransactionCodec;
+import io.mosip.idp.core.spi.TransactionStore;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Embeddable in-process stand-in for the shared redis transaction store, meant for tests and local development.
+ * Records are kept the same way as in the redis store, each record is the state with the transaction encoded by
+ * the codec, index entries point to the transactionId and every entry is expired with the TTL of the record state.
+ * Any mutation made on a transaction without storing it back is hence lost, as with the shared store.
+ *
+ * Transition is a compare-and-set on the stored state and updates the index entries along with the record, the same
+ * as the redis transition script. Transition within the same state keeps the expiry of the record.
+ */
+public class InMemoryTransactionStore implements TransactionStore {
+
+    private final Map<String, Entry> records = new ConcurrentHashMap<>();
+    private final Map<String, Entry> authCodeIndex = new ConcurrentHashMap<>();
+    private final Map<String, Entry> accessTokenHashIndex = new ConcurrentHashMap<>();
+    private final Map<String, Integer> cacheExpireInSeconds;
+    private final TransactionCodec codec;
+
+    public InMemoryTransactionStore(Map<String, Integer> cacheExpireInSeconds, TransactionCodec codec) {
+        this.cacheExpireInSeconds = cacheExpireInSeconds;
+        this.codec = codec;
+    }
+
+    @Override
+    public void save(IdPTransaction transaction) {
+        records.put(transaction.getTransactionId(), new Entry(transaction.getState(), codec.encode(transaction),
+                null, getExpireAt(transaction.getState())));
+    }
+
+    @Override
+    public IdPTransaction findByTransactionId(String transactionId) {
+        Entry record = get(records, transactionId);
+        return record == null ? null : codec.decode(record.data);
+    }
+
+    @Override
+    public IdPTransaction findByAuthCode(String authCode) {
+        return findByIndex(authCodeIndex, authCode, TransactionState.CODE_ISSUED);
+    }
+
+    @Override
+    public IdPTransaction findByAccessTokenHash(String accessTokenHash) {
+        return findByIndex(accessTokenHashIndex, accessTokenHash, TransactionState.TOKEN_ISSUED);
+    }
+
+    @Override
+    public boolean transition(IdPTransaction transaction, TransactionState fromState) {
+        byte[] data = codec.encode(transaction);
+        boolean[] transitioned = new boolean[1];
+        //compute holds the record for the whole transition, concurrent transitions of the record are serialized
+        records.computeIfPresent(transaction.getTransactionId(), (transactionId, stored) -> {
+            if(stored.isExpired() || stored.state != fromState)
+                return stored.isExpired() ? null : stored;
+
+            //update within the same state keeps the expiry of the record and its index entry
+            if(transaction.getState() == fromState) {
+                transitioned[0] = true;
+                return new Entry(transaction.getState(), data, null, stored.expireAt);
+            }
+
+            long expireAt = getExpireAt(transaction.getState());
+            switch (transaction.getState()) {
+                case CODE_ISSUED:
+                    authCodeIndex.put(transaction.getCode(), new Entry(null, null, transactionId, expireAt));
+                    break;
+                case TOKEN_ISSUED:
+                    accessTokenHashIndex.put(transaction.getAHash(), new Entry(null, null, transactionId, expireAt));
+                    if(transaction.getCode() != null)
+                        authCodeIndex.remove(transaction.getCode());
+                    break;
+            }
+            transitioned[0] = true;
+            return new Entry(transaction.getState(), data, null, expireAt);
+        });
+        return transitioned[0];
+    }
+
+    /**
+     * Not capacity bounded, same as the shared store.
+     */
+    @Override
+    public double getOccupancy() {
+        return 0;
+    }
+
+    /**
+     * Drops all the expired records and index entries, expired entries are otherwise only removed on access.
+     */
+    public void purgeExpired() {
+        records.values().removeIf(Entry::isExpired);
+        authCodeIndex.values().removeIf(Entry::isExpired);
+        accessTokenHashIndex.values().removeIf(Entry::isExpired);
+    }
+
+    /**
+     * @return number of the live and not yet purged entries, records and index entries together
+     */
+    public int size() {
+        return records.size() + authCodeIndex.size() + accessTokenHashIndex.size();
+    }
+
+    private IdPTransaction findByIndex(Map<String, Entry> index, String key, TransactionState state) {
+        Entry indexEntry = get(index, key);
+        if(indexEntry == null)
+            return null;
+
+        Entry record = get(records, indexEntry.transactionId);
+        return (record == null || record.state != state) ? null : codec.decode(record.data);
+    }
+
+    private static Entry get(Map<String, Entry> entries, String key) {
+        Entry entry = entries.get(key);
+        if(entry == null)
+            return null;
+
+        if(entry.isExpired()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private long getExpireAt(TransactionState state) {
+        return System.currentTimeMillis() + (cacheExpireInSeconds.getOrDefault(state.getCacheName(), 60) * 1000L);
+    }
+
+    /**
+     * Record with the state and encoded transaction, or an index entry with the transactionId.
+     */
+    private static class Entry {
+        private final TransactionState state;
+        private final byte[] data;
+        private final String transactionId;
+        private final long expireAt;
+
+        private Entry(TransactionState state, byte[] data, String transactionId, long expireAt) {
+            this.state = state;
+            this.data = data;
+            this.transactionId = transactionId;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expireAt;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.spi.TransactionCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+/**
+ * Encodes the transaction as JSON, readable with any redis client at the cost of size and speed.
+ */
+@Slf4j
+public class JsonTransactionCodec implements TransactionCodec {
+
+    private ObjectMapper objectMapper;
+
+    public JsonTransactionCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public byte[] encode(IdPTransaction transaction) {
+        try {
+            return objectMapper.writeValueAsBytes(transaction);
+        } catch (IOException e) {
+            log.error("Failed to serialize transaction", e);
+            throw new IllegalStateException("Failed to serialize transaction", e);
+        }
+    }
+
+    @Override
+    public IdPTransaction decode(byte[] value) {
+        if(value == null)
+            return null;
+        try {
+            return objectMapper.readValue(value, IdPTransaction.class);
+        } catch (IOException e) {
+            log.error("Failed to deserialize transaction", e);
+            throw new IllegalStateException("Failed to deserialize transaction", e);
+        }
+    }
+}
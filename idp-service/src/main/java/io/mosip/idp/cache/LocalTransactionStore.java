@@ -0,0 +1,254 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.TransactionState;
+import io.mosip.idp.core.spi.TransactionStore;
+import io.mosip.idp.core.util.Constants;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-node transaction store, records are kept as objects in a size bounded caffeine cache and expired with
+ * the TTL of their current state, a transition within the same state keeps the remaining TTL. Transactions are
+ * not shared across nodes, only to be used with sticky sessions or single node deployments.
+ *
+ * When a client quota is provided, records are partitioned by the clientId and a client exceeding its quota
+ * evicts its own oldest transaction, the global max size is then only a backstop.
+ *
+ * Variable expiry of the caffeine cache is a hierarchical timer wheel, expired records are removed in O(1) when
+ * the wheel is advanced, with a granularity of about a second. When an expiry publisher is provided the wheel is
+ * advanced every expiry tick instead of only on cache access, and every expired record is published as an expiry
+ * event.
+ */
+public class LocalTransactionStore implements TransactionStore, SnapshotSupport, Closeable {
+
+    private final Cache<String, IdPTransaction> records;
+    private final Cache<String, String> authCodeIndex;
+    private final Cache<String, String> accessTokenHashIndex;
+    private final Map<String, Integer> cacheExpireInSeconds;
+    private final ClientQuota clientQuota;
+    private final TransactionExpiryPublisher expiryPublisher;
+    private final ScheduledExecutorService expiryExecutor;
+    private final long maxSize;
+    //record replacing one of the same state on the calling thread, expiry is computed on the same thread
+    private final ThreadLocal<IdPTransaction> sameStateRecord = new ThreadLocal<>();
+
+    public LocalTransactionStore(Map<String, Integer> cacheMaxSize, Map<String, Integer> cacheExpireInSeconds) {
+        this(cacheMaxSize, cacheExpireInSeconds, null, null, 0);
+    }
+
+    /**
+     * @param cacheMaxSize
+     * @param cacheExpireInSeconds
+     * @param clientQuota null if the records are not partitioned by client
+     * @param expiryPublisher null if the expired records need not be published
+     * @param expiryTickInMillis interval to advance the expiry timer wheel, used only with the expiry publisher
+     */
+    public LocalTransactionStore(Map<String, Integer> cacheMaxSize, Map<String, Integer> cacheExpireInSeconds,
+                                 ClientQuota clientQuota, TransactionExpiryPublisher expiryPublisher,
+                                 long expiryTickInMillis) {
+        this.cacheExpireInSeconds = cacheExpireInSeconds;
+        this.clientQuota = clientQuota;
+        this.expiryPublisher = expiryPublisher;
+        this.maxSize = getMaxSize(cacheMaxSize, Constants.PRE_AUTH_SESSION_CACHE) +
+                getMaxSize(cacheMaxSize, Constants.AUTHENTICATED_CACHE) +
+                getMaxSize(cacheMaxSize, Constants.KYC_CACHE);
+        //removal listener is run on the calling thread to keep the client partitions in sync with the records
+        this.records = Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .maximumSize(maxSize)
+                .expireAfter(new StateExpiry())
+                .removalListener(this::onRemoval)
+                .build();
+        this.authCodeIndex = Caffeine.newBuilder()
+                .maximumSize(getMaxSize(cacheMaxSize, Constants.AUTHENTICATED_CACHE))
+                .expireAfterWrite(getExpireInNanos(TransactionState.CODE_ISSUED), TimeUnit.NANOSECONDS)
+                .build();
+        this.accessTokenHashIndex = Caffeine.newBuilder()
+                .maximumSize(getMaxSize(cacheMaxSize, Constants.KYC_CACHE))
+                .expireAfterWrite(getExpireInNanos(TransactionState.TOKEN_ISSUED), TimeUnit.NANOSECONDS)
+                .build();
+
+        if(expiryPublisher == null) {
+            this.expiryExecutor = null;
+            return;
+        }
+        this.expiryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "local-transaction-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.expiryExecutor.scheduleWithFixedDelay(this::expire, expiryTickInMillis, expiryTickInMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void save(IdPTransaction transaction) {
+        IdPTransaction record = transaction.toBuilder().build();
+        records.put(record.getTransactionId(), record);
+        applyClientQuota(record);
+    }
+
+    @Override
+    public IdPTransaction findByTransactionId(String transactionId) {
+        IdPTransaction record = records.getIfPresent(transactionId);
+        return record == null ? null : record.toBuilder().build();
+    }
+
+    @Override
+    public IdPTransaction findByAuthCode(String authCode) {
+        return findByIndex(authCodeIndex, authCode, TransactionState.CODE_ISSUED);
+    }
+
+    @Override
+    public IdPTransaction findByAccessTokenHash(String accessTokenHash) {
+        return findByIndex(accessTokenHashIndex, accessTokenHash, TransactionState.TOKEN_ISSUED);
+    }
+
+    @Override
+    public boolean transition(IdPTransaction transaction, TransactionState fromState) {
+        IdPTransaction stored = records.getIfPresent(transaction.getTransactionId());
+        if(stored == null || stored.getState() != fromState)
+            return false;
+
+        //replace is a compare and set, only one of the concurrent callers replaces the record read in fromState
+        IdPTransaction record = transaction.toBuilder().build();
+        if(record.getState() == fromState)
+            sameStateRecord.set(record);
+        try {
+            if(!records.asMap().replace(transaction.getTransactionId(), stored, record))
+                return false;
+        } finally {
+            sameStateRecord.remove();
+        }
+
+        updateIndex(record);
+        return true;
+    }
+
+    @Override
+    public void forEachLive(LiveTransactionConsumer consumer) throws IOException {
+        long now = System.currentTimeMillis();
+        for(Map.Entry<String, IdPTransaction> entry : records.asMap().entrySet()) {
+            OptionalLong expiresAfter = records.policy().expireVariably().get()
+                    .getExpiresAfter(entry.getKey(), TimeUnit.MILLISECONDS);
+            if(expiresAfter.isPresent() && expiresAfter.getAsLong() > 0)
+                consumer.accept(entry.getValue().toBuilder().build(), now + expiresAfter.getAsLong());
+        }
+    }
+
+    @Override
+    public void restore(IdPTransaction transaction, long expireAt) {
+        long expiresAfter = expireAt - System.currentTimeMillis();
+        if(expiresAfter <= 0)
+            return;
+        IdPTransaction record = transaction.toBuilder().build();
+        records.policy().expireVariably().get().put(record.getTransactionId(), record, expiresAfter,
+                TimeUnit.MILLISECONDS);
+        applyClientQuota(record);
+        updateIndex(record);
+    }
+
+    @Override
+    public double getOccupancy() {
+        return Math.min(1.0, records.estimatedSize() / (double) maxSize);
+    }
+
+    @Override
+    public void close() {
+        if(expiryExecutor != null)
+            expiryExecutor.shutdownNow();
+    }
+
+    /**
+     * Advances the expiry timer wheel, removal listener is invoked for every record expired.
+     */
+    public void expire() {
+        records.cleanUp();
+        authCodeIndex.cleanUp();
+        accessTokenHashIndex.cleanUp();
+    }
+
+    private void applyClientQuota(IdPTransaction record) {
+        if(clientQuota == null)
+            return;
+        String evicted = clientQuota.acquire(record.getClientId(), record.getTransactionId());
+        if(evicted != null)
+            records.invalidate(evicted);
+    }
+
+    private void onRemoval(String transactionId, IdPTransaction record, RemovalCause cause) {
+        //replaced records are still live with the new state
+        if(record == null || cause == RemovalCause.REPLACED)
+            return;
+        if(clientQuota != null)
+            clientQuota.release(record.getClientId(), transactionId);
+        if(expiryPublisher != null && cause == RemovalCause.EXPIRED)
+            expiryPublisher.publish(new TransactionExpiryEvent(transactionId, record.getClientId(), record.getState(),
+                    System.currentTimeMillis()));
+    }
+
+    private void updateIndex(IdPTransaction record) {
+        switch (record.getState()) {
+            case CODE_ISSUED:
+                //index entry written on issuing the code is kept along with its expiry on the later updates
+                authCodeIndex.asMap().putIfAbsent(record.getCode(), record.getTransactionId());
+                break;
+            case TOKEN_ISSUED:
+                accessTokenHashIndex.put(record.getAHash(), record.getTransactionId());
+                if(record.getCode() != null)
+                    authCodeIndex.invalidate(record.getCode());
+                break;
+        }
+    }
+
+    private IdPTransaction findByIndex(Cache<String, String> index, String key, TransactionState state) {
+        String transactionId = index.getIfPresent(key);
+        if(transactionId == null)
+            return null;
+
+        IdPTransaction record = records.getIfPresent(transactionId);
+        return (record == null || record.getState() != state) ? null : record.toBuilder().build();
+    }
+
+    private long getExpireInNanos(TransactionState state) {
+        return TimeUnit.SECONDS.toNanos(cacheExpireInSeconds.getOrDefault(state.getCacheName(), 60));
+    }
+
+    private static int getMaxSize(Map<String, Integer> cacheMaxSize, String cacheName) {
+        return cacheMaxSize.getOrDefault(cacheName, 100);
+    }
+
+    private class StateExpiry implements Expiry<String, IdPTransaction> {
+        @Override
+        public long expireAfterCreate(String key, IdPTransaction value, long currentTime) {
+            return getExpireInNanos(value.getState());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, IdPTransaction value, long currentTime, long currentDuration) {
+            //update within the same state does not extend the lifetime of the record
+            return value == sameStateRecord.get() ? currentDuration : getExpireInNanos(value.getState());
+        }
+
+        @Override
+        public long expireAfterRead(String key, IdPTransaction value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
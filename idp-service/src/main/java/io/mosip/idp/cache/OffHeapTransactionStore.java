@@ -0,0 +1,475 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.TransactionState;
+import io.mosip.idp.core.spi.TransactionCodec;
+import io.mosip.idp.core.spi.TransactionStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-node transaction store keeping the encoded transactions outside the heap, in fixed size direct or
+ * memory mapped slabs. Only the hash index (key to slab location) lives in the heap.
+ *
+ * Entries are appended to the active slab of their TTL, so every slab holds entries expiring around the same
+ * time. Once sealed, a slab is reclaimed as a whole when its last entry expires, there is no per entry free
+ * or compaction. An update appends a new entry, the superseded entry is reclaimed with its slab. Transition within
+ * the same state keeps the expiry of the record.
+ * When all the slabs are in use, the sealed slab expiring first is evicted.
+ *
+ * Expiry events, when an expiry publisher is provided, are published as the expired entries are reclaimed with
+ * their slab, i.e. up to the TTL later than the expiry.
+ */
+@Slf4j
+public class OffHeapTransactionStore implements TransactionStore, SnapshotSupport, Closeable {
+
+    private static final int ENTRY_HEADER_LENGTH = 4 + 8 + 1 + 2 + 2;
+    private static final TransactionState[] STATES = TransactionState.values();
+
+    private final TransactionCodec codec;
+    private final Map<String, Integer> cacheExpireInSeconds;
+    private final int slabSize;
+    private final int maxSlabs;
+    private final Path mappedFileDir;
+
+    private final Slab[] slabs;
+    private final Deque<Slab> freeSlabs = new ArrayDeque<>();
+    private final List<Slab> sealedSlabs = new ArrayList<>();
+    private final Map<Long, Slab> activeSlabs = new HashMap<>();
+    private final Object allocationLock = new Object();
+    private int allocatedSlabs;
+    private long appendedBytes;
+    private long appendedEntries;
+
+    private final Map<String, Long> records = new ConcurrentHashMap<>();
+    private final Map<String, Long> authCodeIndex = new ConcurrentHashMap<>();
+    private final Map<String, Long> accessTokenHashIndex = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[64];
+    private final ScheduledExecutorService reclaimExecutor;
+    private final TransactionExpiryPublisher expiryPublisher;
+
+    public OffHeapTransactionStore(TransactionCodec codec, Map<String, Integer> cacheExpireInSeconds, int slabSize,
+                                   int maxSlabs, Path mappedFileDir) {
+        this(codec, cacheExpireInSeconds, slabSize, maxSlabs, mappedFileDir, null);
+    }
+
+    /**
+     * @param slabSize size of each slab in bytes
+     * @param maxSlabs maximum number of slabs allocated, slabs are allocated on demand
+     * @param mappedFileDir directory to create the memory mapped slab files in, null to use direct buffers
+     * @param expiryPublisher null if the expired entries need not be published
+     */
+    public OffHeapTransactionStore(TransactionCodec codec, Map<String, Integer> cacheExpireInSeconds, int slabSize,
+                                   int maxSlabs, Path mappedFileDir, TransactionExpiryPublisher expiryPublisher) {
+        if(maxSlabs < STATES.length || maxSlabs > 0xFFFF)
+            throw new IllegalArgumentException("Max slabs should be between " + STATES.length + " and " + 0xFFFF);
+
+        this.codec = codec;
+        this.cacheExpireInSeconds = cacheExpireInSeconds;
+        this.slabSize = slabSize;
+        this.maxSlabs = maxSlabs;
+        this.mappedFileDir = mappedFileDir;
+        this.expiryPublisher = expiryPublisher;
+        this.slabs = new Slab[maxSlabs];
+        for(int i=0; i<locks.length; i++) {
+            locks[i] = new Object();
+        }
+        this.reclaimExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "offheap-transaction-reclaimer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.reclaimExecutor.scheduleWithFixedDelay(this::reclaimExpiredSlabs, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void save(IdPTransaction transaction) {
+        synchronized (getLock(transaction.getTransactionId())) {
+            long location = append(transaction, getExpireAt(transaction));
+            records.put(transaction.getTransactionId(), location);
+            updateIndex(transaction, location);
+        }
+    }
+
+    @Override
+    public IdPTransaction findByTransactionId(String transactionId) {
+        Long location = records.get(transactionId);
+        Entry entry = location == null ? null : read(location);
+        return entry == null ? null : codec.decode(entry.value);
+    }
+
+    @Override
+    public IdPTransaction findByAuthCode(String authCode) {
+        return findByIndex(authCodeIndex.get(authCode), TransactionState.CODE_ISSUED);
+    }
+
+    @Override
+    public IdPTransaction findByAccessTokenHash(String accessTokenHash) {
+        return findByIndex(accessTokenHashIndex.get(accessTokenHash), TransactionState.TOKEN_ISSUED);
+    }
+
+    @Override
+    public boolean transition(IdPTransaction transaction, TransactionState fromState) {
+        synchronized (getLock(transaction.getTransactionId())) {
+            Long current = records.get(transaction.getTransactionId());
+            Entry entry = current == null ? null : read(current);
+            if(entry == null || entry.state != fromState)
+                return false;
+
+            //update within the same state keeps the expiry of the record
+            long location = append(transaction, transaction.getState() == fromState ? entry.expireAt :
+                    getExpireAt(transaction));
+            records.put(transaction.getTransactionId(), location);
+            updateIndex(transaction, location);
+            return true;
+        }
+    }
+
+    @Override
+    public void forEachLive(LiveTransactionConsumer consumer) throws IOException {
+        for(Long location : records.values()) {
+            Entry entry = read(location);
+            IdPTransaction transaction = entry == null ? null : codec.decode(entry.value);
+            if(transaction != null)
+                consumer.accept(transaction, entry.expireAt);
+        }
+    }
+
+    @Override
+    public void restore(IdPTransaction transaction, long expireAt) {
+        if(expireAt <= System.currentTimeMillis())
+            return;
+        synchronized (getLock(transaction.getTransactionId())) {
+            long location = append(transaction, expireAt);
+            records.put(transaction.getTransactionId(), location);
+            updateIndex(transaction, location);
+        }
+    }
+
+    /**
+     * Superseded entries are freed only with their slab, so the slabs in use overstate the live transactions by
+     * up to the number of states. Occupancy is instead the estimated live bytes, records yet to be reclaimed times
+     * the average entry length, over the total capacity of the slabs.
+     */
+    @Override
+    public double getOccupancy() {
+        synchronized (allocationLock) {
+            if(appendedEntries == 0)
+                return 0;
+            double liveBytes = records.size() * (appendedBytes / (double) appendedEntries);
+            return Math.min(1.0, liveBytes / ((double) slabSize * maxSlabs));
+        }
+    }
+
+    @Override
+    public void close() {
+        reclaimExecutor.shutdownNow();
+    }
+
+    /**
+     * Reclaims all the sealed slabs whose entries are all expired, also run periodically in the background.
+     */
+    public void reclaimExpiredSlabs() {
+        try {
+            synchronized (allocationLock) {
+                long now = System.currentTimeMillis();
+                sealExpiredActiveSlabs(now);
+                Iterator<Slab> iterator = sealedSlabs.iterator();
+                while (iterator.hasNext()) {
+                    Slab slab = iterator.next();
+                    if(slab.maxExpireAt <= now) {
+                        iterator.remove();
+                        reclaim(slab);
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            log.error("Failed to reclaim expired slabs", t);
+        }
+    }
+
+    private IdPTransaction findByIndex(Long location, TransactionState state) {
+        Entry entry = location == null ? null : read(location);
+        if(entry == null || entry.state != state)
+            return null;
+        //index entry is stale if the record is updated after the index is set
+        return location.equals(records.get(entry.key)) ? codec.decode(entry.value) : null;
+    }
+
+    private void updateIndex(IdPTransaction transaction, long location) {
+        switch (transaction.getState()) {
+            case CODE_ISSUED:
+                authCodeIndex.put(transaction.getCode(), location);
+                break;
+            case TOKEN_ISSUED:
+                accessTokenHashIndex.put(transaction.getAHash(), location);
+                if(transaction.getCode() != null)
+                    authCodeIndex.remove(transaction.getCode());
+                break;
+        }
+    }
+
+    private String getIndexKey(IdPTransaction transaction) {
+        switch (transaction.getState()) {
+            case CODE_ISSUED:
+                return transaction.getCode();
+            case TOKEN_ISSUED:
+                return transaction.getAHash();
+            default:
+                return null;
+        }
+    }
+
+    private Map<String, Long> getIndex(TransactionState state) {
+        switch (state) {
+            case CODE_ISSUED:
+                return authCodeIndex;
+            case TOKEN_ISSUED:
+                return accessTokenHashIndex;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Entry layout : length(int) expireAt(long) state(byte) keyLength(short) key indexKeyLength(short) indexKey value
+     */
+    private long getExpireAt(IdPTransaction transaction) {
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(cacheExpireInSeconds.getOrDefault(
+                transaction.getState().getCacheName(), 60));
+    }
+
+    private long append(IdPTransaction transaction, long expireAt) {
+        byte[] key = transaction.getTransactionId().getBytes(StandardCharsets.UTF_8);
+        String indexKeyValue = getIndexKey(transaction);
+        byte[] indexKey = indexKeyValue == null ? new byte[0] : indexKeyValue.getBytes(StandardCharsets.UTF_8);
+        byte[] value = codec.encode(transaction);
+        int length = ENTRY_HEADER_LENGTH + key.length + indexKey.length + value.length;
+        if(length > slabSize)
+            throw new IllegalArgumentException("Transaction is larger than the slab size : " + length);
+
+        long ttl = TimeUnit.SECONDS.toMillis(cacheExpireInSeconds.getOrDefault(
+                transaction.getState().getCacheName(), 60));
+        //entry is written under the lock, so a slab being reclaimed or evicted never has a partially written entry
+        synchronized (allocationLock) {
+            Slab slab = getActiveSlab(ttl, length);
+            ByteBuffer buffer = slab.buffer.duplicate();
+            buffer.position(slab.position);
+            buffer.putInt(length);
+            buffer.putLong(expireAt);
+            buffer.put((byte) transaction.getState().ordinal());
+            buffer.putShort((short) key.length);
+            buffer.put(key);
+            buffer.putShort((short) indexKey.length);
+            buffer.put(indexKey);
+            buffer.put(value);
+            long location = toLocation(slab.id, slab.generation, slab.position);
+            slab.position += length;
+            slab.maxExpireAt = Math.max(slab.maxExpireAt, expireAt);
+            appendedBytes += length;
+            appendedEntries++;
+            return location;
+        }
+    }
+
+    private Entry read(long location) {
+        Slab slab = slabs[(int) (location >>> 48)];
+        int generation = (int) ((location >>> 32) & 0xFFFF);
+        if(slab == null || (slab.generation & 0xFFFF) != generation)
+            return null;
+
+        Entry entry;
+        try {
+            ByteBuffer buffer = slab.buffer.duplicate();
+            buffer.position((int) location);
+            entry = readEntry(buffer, slab, generation);
+        } catch (RuntimeException e) {
+            if((slab.generation & 0xFFFF) != generation)
+                return null;
+            throw e;
+        }
+        //slab reclaimed and reused while reading, entry was expired or evicted anyway
+        if((slab.generation & 0xFFFF) != generation || entry.expireAt <= System.currentTimeMillis())
+            return null;
+        return entry;
+    }
+
+    /**
+     * Reads are not locked, a slab reclaimed and reused during the read yields garbage. Lengths are hence checked
+     * against the bytes left in the slab, and the generation is checked again before the value is allocated.
+     */
+    private Entry readEntry(ByteBuffer buffer, Slab slab, int generation) {
+        Entry entry = new Entry();
+        int length = buffer.getInt();
+        if(length < ENTRY_HEADER_LENGTH || length - 4 > buffer.remaining())
+            throw new IllegalStateException("Invalid entry length " + length);
+        entry.expireAt = buffer.getLong();
+        entry.state = STATES[buffer.get()];
+        byte[] key = new byte[readLength(buffer, length)];
+        buffer.get(key);
+        entry.key = new String(key, StandardCharsets.UTF_8);
+        byte[] indexKey = new byte[readLength(buffer, length)];
+        buffer.get(indexKey);
+        entry.indexKey = indexKey.length == 0 ? null : new String(indexKey, StandardCharsets.UTF_8);
+        int valueLength = length - ENTRY_HEADER_LENGTH - key.length - indexKey.length;
+        if(valueLength < 0 || (slab.generation & 0xFFFF) != generation)
+            throw new IllegalStateException("Entry overwritten while reading");
+        entry.value = new byte[valueLength];
+        buffer.get(entry.value);
+        return entry;
+    }
+
+    private static int readLength(ByteBuffer buffer, int entryLength) {
+        int length = buffer.getShort() & 0xFFFF;
+        if(length > entryLength - ENTRY_HEADER_LENGTH)
+            throw new IllegalStateException("Invalid key length " + length);
+        return length;
+    }
+
+    private Slab getActiveSlab(long ttl, int length) {
+        Slab slab = activeSlabs.get(ttl);
+        if(slab != null && slab.position + length <= slabSize)
+            return slab;
+
+        if(slab != null)
+            sealedSlabs.add(slab);
+        slab = getFreeSlab();
+        slab.createdAt = System.currentTimeMillis();
+        slab.ttl = ttl;
+        activeSlabs.put(ttl, slab);
+        return slab;
+    }
+
+    private Slab getFreeSlab() {
+        if(!freeSlabs.isEmpty())
+            return freeSlabs.poll();
+
+        if(allocatedSlabs < maxSlabs) {
+            Slab slab = new Slab(allocatedSlabs, allocate());
+            slabs[allocatedSlabs++] = slab;
+            return slab;
+        }
+
+        long now = System.currentTimeMillis();
+        sealExpiredActiveSlabs(now);
+        Slab candidate = null;
+        for(Slab slab : sealedSlabs) {
+            if(candidate == null || slab.maxExpireAt < candidate.maxExpireAt)
+                candidate = slab;
+        }
+        if(candidate == null)
+            throw new IllegalStateException("No slab available to store the transaction");
+
+        if(candidate.maxExpireAt > now)
+            log.warn("All the slabs are in use, evicting slab {} with live transactions", candidate.id);
+        sealedSlabs.remove(candidate);
+        reclaim(candidate);
+        return freeSlabs.poll();
+    }
+
+    /**
+     * Active slab older than its TTL is sealed, so that a slab never spans more than twice the TTL.
+     */
+    private void sealExpiredActiveSlabs(long now) {
+        Iterator<Slab> iterator = activeSlabs.values().iterator();
+        while (iterator.hasNext()) {
+            Slab slab = iterator.next();
+            if(now - slab.createdAt > slab.ttl) {
+                iterator.remove();
+                sealedSlabs.add(slab);
+            }
+        }
+    }
+
+    private void reclaim(Slab slab) {
+        ByteBuffer buffer = slab.buffer.duplicate();
+        long now = System.currentTimeMillis();
+        int offset = 0;
+        while (offset < slab.position) {
+            buffer.position(offset);
+            Entry entry = readEntry(buffer, slab, slab.generation & 0xFFFF);
+            Long location = toLocation(slab.id, slab.generation, offset);
+            //only the current entry of a record expires the record, superseded entries are just dropped
+            if(records.remove(entry.key, location) && expiryPublisher != null && entry.expireAt <= now) {
+                IdPTransaction transaction = codec.decode(entry.value);
+                expiryPublisher.publish(new TransactionExpiryEvent(entry.key,
+                        transaction == null ? null : transaction.getClientId(), entry.state, entry.expireAt));
+            }
+            Map<String, Long> index = getIndex(entry.state);
+            if(index != null && entry.indexKey != null)
+                index.remove(entry.indexKey, location);
+            offset = buffer.position();
+        }
+        slab.generation++;
+        slab.position = 0;
+        slab.maxExpireAt = 0;
+        freeSlabs.add(slab);
+    }
+
+    private ByteBuffer allocate() {
+        if(mappedFileDir == null)
+            return ByteBuffer.allocateDirect(slabSize);
+
+        try {
+            Path file = Files.createTempFile(mappedFileDir, "idp-slab-", ".bin");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                //mapping stays valid after the channel is closed and the file is unlinked
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, slabSize);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.error("Failed to map slab file in {}", mappedFileDir, e);
+            throw new IllegalStateException("Failed to map slab file", e);
+        }
+    }
+
+    private Object getLock(String transactionId) {
+        return locks[(transactionId.hashCode() & 0x7FFFFFFF) % locks.length];
+    }
+
+    private static long toLocation(int slabId, int generation, int offset) {
+        return ((long) slabId << 48) | ((long) (generation & 0xFFFF) << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static class Slab {
+        private final int id;
+        private final ByteBuffer buffer;
+        private volatile int generation;
+        private int position;
+        private long maxExpireAt;
+        private long createdAt;
+        private long ttl;
+
+        private Slab(int id, ByteBuffer buffer) {
+            this.id = id;
+            this.buffer = buffer;
+        }
+    }
+
+    private static class Entry {
+        private String key;
+        private String indexKey;
+        private TransactionState state;
+        private long expireAt;
+        private byte[] value;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Publishes the evictions on a redis pub/sub channel subscribed by all the nodes.
+ * Message format : E|cacheName|key for an eviction and C|cacheName for clearing the cache.
+ * Pub/sub is fire and forget, a node disconnected while an eviction is published keeps the stale copy until
+ * it expires, hence the local copies should still be configured with a bounded TTL.
+ */
+@Slf4j
+public class RedisCacheInvalidationBus implements CacheInvalidationBus, MessageListener {
+
+    private static final String SEPARATOR = "|";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    public RedisCacheInvalidationBus(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                                     String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    @Override
+    public void publish(String cacheName, Object key) {
+        redisTemplate.convertAndSend(channel, key == null ? "C" + SEPARATOR + cacheName :
+                "E" + SEPARATOR + cacheName + SEPARATOR + key);
+    }
+
+    @Override
+    public void subscribe(String cacheName, Consumer<String> listener) {
+        listeners.computeIfAbsent(cacheName, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if(parts.length < 2) {
+            log.warn("Ignoring invalid cache invalidation message");
+            return;
+        }
+        String key = "E".equals(parts[0]) && parts.length == 3 ? parts[2] : null;
+        listeners.getOrDefault(parts[1], List.of()).forEach(listener -> {
+            try {
+                listener.accept(key);
+            } catch (Exception e) {
+                log.error("Failed to apply cache invalidation on {}", parts[1], e);
+            }
+        });
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.TransactionState;
+import io.mosip.idp.core.spi.TransactionCodec;
+import io.mosip.idp.core.spi.TransactionStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction store shared by all the nodes, backed by any server speaking the redis protocol.
+ * Each transaction is a hash holding the state and the serialized record, auth code and access token hash
+ * index keys point to the transactionId. Every key is set with the TTL configured for the record state, a
+ * transition within the same state only updates the record and keeps the TTL of the record and its index key.
+ * Transitions are run as a single server side script, so they are atomic across nodes. Every key a script
+ * touches is passed in its KEYS. Lookup by an index key reads the index key and then the record with two
+ * commands, the record is only returned if it is still in the state of the index.
+ *
+ * Occupancy used by admission control is polled in the background from the memory info of the server.
+ */
+@Slf4j
+public class RedisTransactionStore implements TransactionStore, Closeable {
+
+    private static final String RECORD_KEY = "txn::";
+    private static final String AUTH_CODE_KEY = "code::";
+    private static final String ACCESS_TOKEN_HASH_KEY = "ath::";
+    private static final byte[] STATE_FIELD = "state".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA_FIELD = "data".getBytes(StandardCharsets.UTF_8);
+
+    private static final RedisScript<Long> SAVE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('HMSET', KEYS[1], 'state', ARGV[1], 'data', ARGV[2]) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[3]) " +
+            "return 1", Long.class);
+
+    private static final RedisScript<Long> TRANSITION_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], 'state') ~= ARGV[1] then return 0 end " +
+            "redis.call('HMSET', KEYS[1], 'state', ARGV[2], 'data', ARGV[3]) " +
+            "if ARGV[1] == ARGV[2] then return 1 end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[4]) " +
+            "if KEYS[2] ~= '' then redis.call('SET', KEYS[2], ARGV[5], 'PX', ARGV[4]) end " +
+            "if KEYS[3] ~= '' then redis.call('DEL', KEYS[3]) end " +
+            "return 1", Long.class);
+
+    private RedisTemplate<String, byte[]> redisTemplate;
+    private Map<String, Integer> cacheExpireInSeconds;
+    private TransactionCodec codec;
+    private String keyPrefix;
+    private final ScheduledExecutorService occupancyExecutor;
+    private volatile double occupancy;
+    private boolean maxMemoryWarned;
+
+    public RedisTransactionStore(RedisTemplate<String, byte[]> redisTemplate, Map<String, Integer> cacheExpireInSeconds,
+                                 TransactionCodec codec, String keyPrefix) {
+        this(redisTemplate, cacheExpireInSeconds, codec, keyPrefix, 0);
+    }
+
+    /**
+     * @param occupancyRefreshInSeconds interval to poll the memory info of the server, 0 to not track occupancy
+     */
+    public RedisTransactionStore(RedisTemplate<String, byte[]> redisTemplate, Map<String, Integer> cacheExpireInSeconds,
+                                 TransactionCodec codec, String keyPrefix, long occupancyRefreshInSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.cacheExpireInSeconds = cacheExpireInSeconds;
+        this.codec = codec;
+        this.keyPrefix = keyPrefix;
+        if(occupancyRefreshInSeconds <= 0) {
+            this.occupancyExecutor = null;
+            return;
+        }
+        //polled in the background, admission control reads the occupancy on every authorize request
+        this.occupancyExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-transaction-occupancy");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.occupancyExecutor.scheduleWithFixedDelay(this::refreshOccupancy, 0, occupancyRefreshInSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void save(IdPTransaction transaction) {
+        redisTemplate.execute(SAVE_SCRIPT, Collections.singletonList(getKey(RECORD_KEY, transaction.getTransactionId())),
+                toBytes(transaction.getState().name()),
+                codec.encode(transaction),
+                toBytes(String.valueOf(getExpireInMillis(transaction.getState()))));
+    }
+
+    @Override
+    public IdPTransaction findByTransactionId(String transactionId) {
+        byte[] key = toBytes(getKey(RECORD_KEY, transactionId));
+        return codec.decode(redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.hGet(key, DATA_FIELD)));
+    }
+
+    @Override
+    public IdPTransaction findByAuthCode(String authCode) {
+        return findByIndex(getKey(AUTH_CODE_KEY, authCode), TransactionState.CODE_ISSUED);
+    }
+
+    @Override
+    public IdPTransaction findByAccessTokenHash(String accessTokenHash) {
+        return findByIndex(getKey(ACCESS_TOKEN_HASH_KEY, accessTokenHash), TransactionState.TOKEN_ISSUED);
+    }
+
+    @Override
+    public boolean transition(IdPTransaction transaction, TransactionState fromState) {
+        String indexKey = "";
+        String removeIndexKey = "";
+        switch (transaction.getState()) {
+            case CODE_ISSUED:
+                indexKey = getKey(AUTH_CODE_KEY, transaction.getCode());
+                break;
+            case TOKEN_ISSUED:
+                indexKey = getKey(ACCESS_TOKEN_HASH_KEY, transaction.getAHash());
+                removeIndexKey = getKey(AUTH_CODE_KEY, transaction.getCode());
+                break;
+        }
+
+        Long result = redisTemplate.execute(TRANSITION_SCRIPT,
+                Arrays.asList(getKey(RECORD_KEY, transaction.getTransactionId()), indexKey, removeIndexKey),
+                toBytes(fromState.name()),
+                toBytes(transaction.getState().name()),
+                codec.encode(transaction),
+                toBytes(String.valueOf(getExpireInMillis(transaction.getState()))),
+                toBytes(transaction.getTransactionId()));
+        return result != null && result == 1;
+    }
+
+    /**
+     * Used memory over the maxmemory of the redis server, as of the last poll. Always 0 if the server has no
+     * maxmemory set, the store is then not capacity bounded.
+     */
+    @Override
+    public double getOccupancy() {
+        return occupancy;
+    }
+
+    @Override
+    public void close() {
+        if(occupancyExecutor != null)
+            occupancyExecutor.shutdownNow();
+    }
+
+    void refreshOccupancy() {
+        try {
+            Properties info = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                    connection.info("memory"));
+            long maxMemory = Long.parseLong(info.getProperty("maxmemory", "0"));
+            if(maxMemory <= 0) {
+                if(!maxMemoryWarned)
+                    log.warn("Redis server has no maxmemory set, transaction store occupancy is not tracked");
+                maxMemoryWarned = true;
+                occupancy = 0;
+                return;
+            }
+            occupancy = Math.min(1.0, Long.parseLong(info.getProperty("used_memory", "0")) / (double) maxMemory);
+        } catch (RuntimeException e) {
+            log.error("Failed to read the redis memory info, occupancy left at {}", occupancy, e);
+        }
+    }
+
+    private IdPTransaction findByIndex(String indexKey, TransactionState state) {
+        byte[] stateName = toBytes(state.name());
+        return codec.decode(redisTemplate.execute((RedisCallback<byte[]>) connection -> {
+            byte[] transactionId = connection.get(toBytes(indexKey));
+            if(transactionId == null)
+                return null;
+
+            List<byte[]> record = connection.hMGet(toBytes(getKey(RECORD_KEY,
+                    new String(transactionId, StandardCharsets.UTF_8))), STATE_FIELD, DATA_FIELD);
+            if(record == null || !Arrays.equals(stateName, record.get(0)))
+                return null;
+            return record.get(1);
+        }));
+    }
+
+    private long getExpireInMillis(TransactionState state) {
+        return cacheExpireInSeconds.getOrDefault(state.getCacheName(), 60) * 1000L;
+    }
+
+    private String getKey(String type, String key) {
+        return keyPrefix + type + key;
+    }
+
+    private static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
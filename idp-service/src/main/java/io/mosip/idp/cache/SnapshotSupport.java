@@ -0,0 +1,34 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+
+import java.io.IOException;
+
+/**
+ * Implemented by the node local transaction stores, whose transactions are otherwise lost on restart.
+ */
+public interface SnapshotSupport {
+
+    /**
+     * Invokes the consumer with every live transaction and its expiry time.
+     * @param consumer
+     * @throws IOException thrown by the consumer
+     */
+    void forEachLive(LiveTransactionConsumer consumer) throws IOException;
+
+    /**
+     * Stores the transaction as is, indexed as per its state and expired at the provided time.
+     * @param transaction
+     * @param expireAt epoch millis
+     */
+    void restore(IdPTransaction transaction, long expireAt);
+
+    interface LiveTransactionConsumer {
+        void accept(IdPTransaction transaction, long expireAt) throws IOException;
+    }
+}
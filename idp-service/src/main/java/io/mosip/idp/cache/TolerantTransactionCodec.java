@@ -0,0 +1,49 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.spi.TransactionCodec;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Codec handed to the transaction stores, a stored value which the configured codec rejects is decoded as null so
+ * the stores treat it as a miss. During a rolling deploy with a changed codec configuration (e.g. scope claims of
+ * the binary codec) the in-flight flows of the other nodes then restart instead of failing every request.
+ * Undecodable values are counted as idp.transaction.codec.undecodable.
+ */
+@Slf4j
+public class TolerantTransactionCodec implements TransactionCodec {
+
+    private final TransactionCodec codec;
+    private final Counter undecodable;
+
+    public TolerantTransactionCodec(TransactionCodec codec, MeterRegistry meterRegistry) {
+        this.codec = codec;
+        this.undecodable = meterRegistry.counter("idp.transaction.codec.undecodable");
+    }
+
+    @Override
+    public byte[] encode(IdPTransaction transaction) {
+        return codec.encode(transaction);
+    }
+
+    /**
+     * @return null if the value is null or cannot be decoded
+     */
+    @Override
+    public IdPTransaction decode(byte[] value) {
+        try {
+            return codec.decode(value);
+        } catch (IllegalStateException e) {
+            undecodable.increment();
+            log.warn("Stored transaction could not be decoded, treated as a miss : {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.mosip.idp.core.dto.TransactionState;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published when a transaction expires in its current state, without moving to the next step of the flow.
+ */
+@Data
+@AllArgsConstructor
+public class TransactionExpiryEvent {
+
+    private String transactionId;
+    private String clientId;
+    private TransactionState state;
+    private Stage stage;
+    private long expiredAt;
+
+    public TransactionExpiryEvent(String transactionId, String clientId, TransactionState state, long expiredAt) {
+        this(transactionId, clientId, state, Stage.of(state), expiredAt);
+    }
+
+    /**
+     * Lifecycle stage the transaction was abandoned in.
+     */
+    public enum Stage {
+        ABANDONED_BEFORE_AUTH,
+        CODE_NOT_REDEEMED,
+        TOKEN_ISSUED;
+
+        public static Stage of(TransactionState state) {
+            switch (state) {
+                case INITIATED:
+                    return ABANDONED_BEFORE_AUTH;
+                case AUTHENTICATED:
+                case CODE_ISSUED:
+                    return CODE_NOT_REDEEMED;
+                default:
+                    return TOKEN_ISSUED;
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Hands over the expiry events from the transaction store to the listeners. Publishing only queues the event,
+ * listeners are invoked on a single dispatcher thread. When the queue is full the event is dropped and counted,
+ * the store is never blocked by a slow listener.
+ *
+ * Expired transactions are counted per state and lifecycle stage as idp.transaction.expired.
+ */
+@Slf4j
+public class TransactionExpiryPublisher implements Closeable {
+
+    private final List<TransactionExpiryListener> listeners;
+    private final MeterRegistry meterRegistry;
+    private final BlockingQueue<TransactionExpiryEvent> queue;
+    private final Counter droppedCounter;
+    private final Thread dispatcher;
+
+    public TransactionExpiryPublisher(List<TransactionExpiryListener> listeners, MeterRegistry meterRegistry,
+                                      int queueCapacity) {
+        this.listeners = listeners;
+        this.meterRegistry = meterRegistry;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.droppedCounter = Counter.builder("idp.transaction.expiry.events.dropped")
+                .description("Number of expiry events dropped as the dispatcher queue was full")
+                .register(meterRegistry);
+        this.dispatcher = new Thread(this::dispatch, "transaction-expiry-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public void publish(TransactionExpiryEvent event) {
+        if(!queue.offer(event))
+            droppedCounter.increment();
+    }
+
+    @Override
+    public void close() {
+        dispatcher.interrupt();
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            TransactionExpiryEvent event;
+            try {
+                event = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            meterRegistry.counter("idp.transaction.expired", "state", event.getState().name().toLowerCase(),
+                    "stage", event.getStage().name().toLowerCase()).increment();
+            for(TransactionExpiryListener listener : listeners) {
+                try {
+                    listener.onExpiry(event);
+                } catch (Exception e) {
+                    log.error("Transaction expiry listener failed for {}", event.getTransactionId(), e);
+                }
+            }
+        }
+    }
+}
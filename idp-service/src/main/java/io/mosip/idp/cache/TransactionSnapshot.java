@@ -0,0 +1,135 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.spi.TransactionCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes the live transactions of a node local store to a file on shutdown and restores them on startup with
+ * their remaining TTL, so that a restart does not drop the in-flight sessions and the issued access tokens.
+ *
+ * File layout : magic(int) version(byte) followed by entries of expireAt(long) length(int) encoded transaction.
+ * Snapshot is written to a temporary file and renamed only when complete. Writing is abandoned after
+ * max write time, so the shutdown is never held up longer than that. Snapshot file is deleted once restored.
+ */
+@Slf4j
+public class TransactionSnapshot {
+
+    private static final int MAGIC = 0x49445053;
+    private static final byte VERSION = 1;
+
+    private final SnapshotSupport store;
+    private final TransactionCodec codec;
+    private final Path file;
+    private final long maxWriteInMillis;
+
+    public TransactionSnapshot(SnapshotSupport store, TransactionCodec codec, Path file, long maxWriteInMillis) {
+        this.store = store;
+        this.codec = codec;
+        this.file = file;
+        this.maxWriteInMillis = maxWriteInMillis;
+    }
+
+    /**
+     * Restores the transactions from the snapshot file if present, expired transactions are skipped.
+     */
+    public void restore() {
+        if(!Files.exists(file))
+            return;
+
+        int restored = 0;
+        long now = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.remaining() < 5 || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                log.warn("Ignoring transaction snapshot {} with unknown format", file);
+                return;
+            }
+            while (buffer.hasRemaining()) {
+                long expireAt = buffer.getLong();
+                byte[] value = new byte[buffer.getInt()];
+                buffer.get(value);
+                IdPTransaction transaction = expireAt > now ? codec.decode(value) : null;
+                if(transaction != null) {
+                    store.restore(transaction, expireAt);
+                    restored++;
+                }
+            }
+            log.info("Restored {} transactions from snapshot {}", restored, file);
+        } catch (Exception e) {
+            log.error("Failed to restore transactions from snapshot {}, restored {}", file, restored, e);
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    /**
+     * Writes the live transactions to the snapshot file, gives up after the max write time.
+     */
+    public void snapshot() {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        ExecutorService executorService = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Future<Integer> future = executorService.submit(() -> write(tempFile, aborted));
+        try {
+            int written = future.get(maxWriteInMillis, TimeUnit.MILLISECONDS);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved {} transactions to snapshot {}", written, file);
+        } catch (TimeoutException e) {
+            aborted.set(true);
+            future.cancel(true);
+            log.error("Transaction snapshot not completed in {} ms, abandoned", maxWriteInMillis);
+        } catch (Exception e) {
+            log.error("Failed to save transactions to snapshot {}", file, e);
+        } finally {
+            executorService.shutdownNow();
+            deleteQuietly(tempFile);
+        }
+    }
+
+    private int write(Path tempFile, AtomicBoolean aborted) throws IOException {
+        int[] written = {0};
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile),
+                64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            store.forEachLive((transaction, expireAt) -> {
+                if(aborted.get())
+                    throw new InterruptedIOException("Transaction snapshot aborted");
+                byte[] value = codec.encode(transaction);
+                out.writeLong(expireAt);
+                out.writeInt(value.length);
+                out.write(value);
+                written[0]++;
+            });
+        }
+        return written[0];
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", path, e);
+        }
+    }
+}
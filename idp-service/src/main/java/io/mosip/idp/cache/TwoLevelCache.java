@@ -0,0 +1,164 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Node local L1 cache in front of an optional shared L2 cache. Lookups missing L1 are served from L2 and only
+ * then loaded from the source, a refresh-ahead L1 is to be built with the TwoLevelCacheLoader to do the same.
+ * Evictions remove the entry from L2 and are published on the invalidation bus, every node subscribed to the bus
+ * evicts its L1 copy on receiving it. A loaded value is not written to L2 if its key is evicted during the load.
+ *
+ * Keys are carried as strings on the bus, hence only string keys are supported.
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private final Cache localCache;
+    private final Cache sharedCache;
+    private final CacheInvalidationBus invalidationBus;
+    private final EvictionGenerations evictionGenerations;
+
+    /**
+     * @param localCache node local cache
+     * @param sharedCache cache shared by all the nodes, null if there is none
+     * @param invalidationBus
+     */
+    public TwoLevelCache(Cache localCache, Cache sharedCache, CacheInvalidationBus invalidationBus) {
+        this(localCache, sharedCache, invalidationBus, new EvictionGenerations());
+    }
+
+    /**
+     * @param evictionGenerations shared with the TwoLevelCacheLoader of a refresh-ahead L1
+     */
+    public TwoLevelCache(Cache localCache, Cache sharedCache, CacheInvalidationBus invalidationBus,
+                         EvictionGenerations evictionGenerations) {
+        this.localCache = localCache;
+        this.sharedCache = sharedCache;
+        this.invalidationBus = invalidationBus;
+        this.evictionGenerations = evictionGenerations;
+        this.invalidationBus.subscribe(localCache.getName(), this::evictLocal);
+    }
+
+    @Override
+    public String getName() {
+        return localCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper valueWrapper = getLocal(key);
+        if(valueWrapper != null || sharedCache == null)
+            return valueWrapper;
+
+        valueWrapper = sharedCache.get(key);
+        if(valueWrapper != null)
+            localCache.put(key, valueWrapper.get());
+        return valueWrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper valueWrapper = get(key);
+        Object value = valueWrapper == null ? null : valueWrapper.get();
+        if(value != null && type != null && !type.isInstance(value))
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        //L1 runs one load per key, the other callers for the key wait on it
+        return localCache.get(key, () -> {
+            if(sharedCache == null)
+                return valueLoader.call();
+
+            //not loaded through the L2, redis cache synchronizes the loads of all the keys on the cache
+            long generation = evictionGenerations.get(key);
+            ValueWrapper valueWrapper = sharedCache.get(key);
+            if(valueWrapper != null)
+                return (T) valueWrapper.get();
+            T value = valueLoader.call();
+            evictionGenerations.putIfNotEvicted(sharedCache, key, value, generation);
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        localCache.put(key, value);
+        if(sharedCache != null)
+            sharedCache.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = get(key);
+        if(existing != null)
+            return existing;
+        put(key, value);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictionGenerations.evicted(key);
+        if(sharedCache != null)
+            sharedCache.evict(key);
+        localCache.evict(key);
+        invalidationBus.publish(getName(), key);
+    }
+
+    @Override
+    public void clear() {
+        evictionGenerations.evictedAll();
+        if(sharedCache != null)
+            sharedCache.clear();
+        localCache.clear();
+        invalidationBus.publish(getName(), null);
+    }
+
+    /**
+     * Lookup on a refresh-ahead caffeine L1 is only a probe, a get on the loading cache would load a missing entry
+     * from the source without reading L2.
+     */
+    @SuppressWarnings("unchecked")
+    private ValueWrapper getLocal(Object key) {
+        if(!(localCache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache))
+            return localCache.get(key);
+
+        Object value = ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) localCache.getNativeCache())
+                .getIfPresent(key);
+        if(value == null)
+            return null;
+        return new SimpleValueWrapper(value == NullValue.INSTANCE ? null : value);
+    }
+
+    private void evictLocal(String key) {
+        log.debug("Evicting {} from local cache {} on invalidation", key, getName());
+        if(key == null) {
+            evictionGenerations.evictedAll();
+            localCache.clear();
+        }
+        else {
+            evictionGenerations.evicted(key);
+            localCache.evict(key);
+        }
+    }
+}
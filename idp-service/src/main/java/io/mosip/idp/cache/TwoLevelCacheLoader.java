@@ -0,0 +1,63 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import org.springframework.cache.Cache;
+
+import java.util.function.Supplier;
+
+/**
+ * Loader of the refresh-ahead L1 of a two level cache. A missing entry is read from the shared L2 first and only
+ * then loaded by the cache reloader, the loaded value is written to L2. A refresh always reloads the entry with the
+ * cache reloader and writes the reloaded value to L2, so the other nodes missing the entry get the refreshed value.
+ * Value is not written to L2 if the key is evicted during the load.
+ */
+public class TwoLevelCacheLoader implements CacheLoader<Object, Object> {
+
+    private final Cache sharedCache;
+    private final EvictionGenerations evictionGenerations;
+    private final Supplier<CacheReloader> cacheReloader;
+
+    /**
+     * @param sharedCache cache shared by all the nodes
+     * @param evictionGenerations eviction generations of the two level cache built on the loading cache
+     * @param cacheReloader resolved on the first load
+     */
+    public TwoLevelCacheLoader(Cache sharedCache, EvictionGenerations evictionGenerations,
+                               Supplier<CacheReloader> cacheReloader) {
+        this.sharedCache = sharedCache;
+        this.evictionGenerations = evictionGenerations;
+        this.cacheReloader = cacheReloader;
+    }
+
+    @Override
+    public Object load(Object key) throws Exception {
+        long generation = evictionGenerations.get(key);
+        Cache.ValueWrapper valueWrapper = sharedCache.get(key);
+        if(valueWrapper != null && valueWrapper.get() != null)
+            return valueWrapper.get();
+
+        Object value = cacheReloader.get().load(key);
+        if(value != null)
+            evictionGenerations.putIfNotEvicted(sharedCache, key, value, generation);
+        return value;
+    }
+
+    /**
+     * @return null if the key no more has a value, the entry is then removed from both the levels
+     */
+    @Override
+    public Object reload(Object key, Object oldValue) throws Exception {
+        long generation = evictionGenerations.get(key);
+        Object value = cacheReloader.get().load(key);
+        if(value == null)
+            sharedCache.evict(key);
+        else
+            evictionGenerations.putIfNotEvicted(sharedCache, key, value, generation);
+        return value;
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+
+/**
+ * Binds the statistics of the caffeine L1 of a two level cache to the actuator cache metrics, the same meters as
+ * published for the plain caffeine caches. L2 is shared by all the nodes and is not bound.
+ */
+public class TwoLevelCacheMeterBinderProvider implements CacheMeterBinderProvider<TwoLevelCache> {
+
+    /**
+     * @return null if the L1 is not a caffeine cache
+     */
+    @Override
+    public MeterBinder getMeterBinder(TwoLevelCache cache, Iterable<Tag> tags) {
+        if(!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache))
+            return null;
+
+        return new CaffeineCacheMetrics((com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache(),
+                cache.getName(), tags);
+    }
+}
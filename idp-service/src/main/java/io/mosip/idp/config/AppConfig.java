@@ -13,6 +13,7 @@ import io.mosip.kernel.keymanagerservice.dto.KeyPairGenerateRequestDto;
 import io.mosip.kernel.keymanagerservice.service.KeymanagerService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
@@ -20,6 +21,9 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Configuration
 @EnableJpaRepositories(basePackages = {"io.mosip.idp.repository", "io.mosip.kernel.keymanagerservice.repository"})
 @EntityScan(basePackages = {"io.mosip.idp.entity", "io.mosip.kernel.keymanagerservice.entity"})
@@ -36,6 +40,22 @@ public class AppConfig implements ApplicationRunner {
                 .build();
     }
 
+    /**
+     * Bounded pool to run the token endpoint steps in parallel. Once the queue is full the step runs on the request
+     * thread, so the token endpoint degrades to sequential processing instead of failing.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService tokenExecutor(@Value("${mosip.idp.token.executor.pool-size:16}") int poolSize,
+                                         @Value("${mosip.idp.token.executor.queue-capacity:100}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "token-executor-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
     @Override
     public void run(ApplicationArguments args) throws Exception {
         log.info("===================== IDP_SERVICE ROOT KEY CHECK ========================");
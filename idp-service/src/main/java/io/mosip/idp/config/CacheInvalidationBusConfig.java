@@ -0,0 +1,54 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.config;
+
+import io.mosip.idp.cache.CacheInvalidationBus;
+import io.mosip.idp.cache.InMemoryCacheInvalidationBus;
+import io.mosip.idp.cache.RedisCacheInvalidationBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+@Slf4j
+public class CacheInvalidationBusConfig {
+
+    @ConditionalOnProperty(value = "mosip.idp.cache.invalidation-bus.impl", havingValue = "InMemoryCacheInvalidationBus",
+            matchIfMissing = true)
+    @Bean
+    public CacheInvalidationBus inMemoryCacheInvalidationBus() {
+        log.info("Cache evictions are applied only on this node");
+        return new InMemoryCacheInvalidationBus();
+    }
+
+    @ConditionalOnProperty(value = "mosip.idp.cache.invalidation-bus.impl", havingValue = "RedisCacheInvalidationBus")
+    @Configuration
+    public static class RedisCacheInvalidationBusConfig {
+
+        @Value("${mosip.idp.cache.invalidation-bus.redis.channel:idp:cache-invalidation}")
+        private String channel;
+
+        @Bean
+        public RedisMessageListenerContainer cacheInvalidationListenerContainer(LettuceConnectionFactory redisConnectionFactory) {
+            RedisMessageListenerContainer listenerContainer = new RedisMessageListenerContainer();
+            listenerContainer.setConnectionFactory(redisConnectionFactory);
+            return listenerContainer;
+        }
+
+        @Bean
+        public CacheInvalidationBus redisCacheInvalidationBus(LettuceConnectionFactory redisConnectionFactory,
+                                                              RedisMessageListenerContainer cacheInvalidationListenerContainer) {
+            log.info("Cache evictions are published to all the nodes on redis channel {}", channel);
+            return new RedisCacheInvalidationBus(new StringRedisTemplate(redisConnectionFactory),
+                    cacheInvalidationListenerContainer, channel);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.config;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+
+/**
+ * Redis connection shared by the redis transaction store and the redis backed caches, created only when
+ * either of them is configured.
+ */
+@ConditionalOnExpression("'${mosip.idp.transaction.store.impl:}' == 'RedisTransactionStore' or " +
+        "'${mosip.idp.cache.invalidation-bus.impl:}' == 'RedisCacheInvalidationBus'")
+@Configuration
+@EnableConfigurationProperties(RedisProperties.class)
+public class RedisConfig {
+
+    /**
+     * Lettuce pipelines the commands issued by all the request threads over the shared native connection,
+     * pooled connections are used for the blocking and transactional commands.
+     */
+    @Bean
+    public LettuceConnectionFactory redisConnectionFactory(RedisProperties redisProperties) {
+        RedisStandaloneConfiguration standaloneConfiguration = new RedisStandaloneConfiguration();
+        standaloneConfiguration.setHostName(redisProperties.getHost());
+        standaloneConfiguration.setPort(redisProperties.getPort());
+        standaloneConfiguration.setDatabase(redisProperties.getDatabase());
+        standaloneConfiguration.setPassword(RedisPassword.of(redisProperties.getPassword()));
+
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        RedisProperties.Pool pool = redisProperties.getLettuce().getPool();
+        if(pool != null) {
+            poolConfig.setMaxTotal(pool.getMaxActive());
+            poolConfig.setMaxIdle(pool.getMaxIdle());
+            poolConfig.setMinIdle(pool.getMinIdle());
+            if(pool.getMaxWait() != null)
+                poolConfig.setMaxWaitMillis(pool.getMaxWait().toMillis());
+        }
+
+        LettucePoolingClientConfiguration.LettucePoolingClientConfigurationBuilder builder =
+                LettucePoolingClientConfiguration.builder().poolConfig(poolConfig);
+        if(redisProperties.isSsl())
+            builder.useSsl();
+        if(redisProperties.getTimeout() != null)
+            builder.commandTimeout(redisProperties.getTimeout());
+
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(standaloneConfiguration,
+                builder.build());
+        connectionFactory.setShareNativeConnection(true);
+        return connectionFactory;
+    }
+}
@@ -5,26 +5,65 @@
  */
 package io.mosip.idp.config;
 
-import com.google.common.cache.CacheBuilder;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.mosip.idp.cache.CacheInvalidationBus;
+import io.mosip.idp.cache.CacheReloader;
+import io.mosip.idp.cache.EvictionGenerations;
+import io.mosip.idp.cache.TwoLevelCache;
+import io.mosip.idp.cache.TwoLevelCacheLoader;
+import io.mosip.idp.cache.TwoLevelCacheMeterBinderProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
-import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Caffeine backed caches, size bounded caches use W-TinyLFU admission so that a burst of one-time entries
+ * does not flush out the frequently used ones. Cache statistics (hits, misses, evictions and load time) are
+ * recorded and published by the actuator cache metrics, evictions are additionally counted per removal cause.
+ *
+ * Caches listed in mosip.idp.cache.shared-names are two level caches, caffeine cache is the node local L1 and
+ * redis, when configured, is the shared L2. Evictions are published on the cache invalidation bus so that all the
+ * nodes evict their L1 copy. Statistics of the L1 are published by the actuator cache metrics, as for the other
+ * caches.
+ *
+ * Expiry of a cache can be jittered, and entries of a cache with a refresh-ahead ratio are reloaded in the
+ * background by its CacheReloader once they are read after the ratio of the expiry has elapsed. Entries of a two
+ * level cache are loaded from its L2 when present there, and the refreshed entries are written back to its L2.
+ */
 @ConditionalOnProperty(value = "spring.cache.type", havingValue = "SIMPLE")
 @Configuration
+@Slf4j
 public class SimpleCacheConfig extends CachingConfigurerSupport {
 
+    public static final String EXPIRE_AFTER_ACCESS = "expire-after-access";
+    public static final String EXPIRE_AFTER_WRITE = "expire-after-write";
+
     @Value("#{${mosip.idp.cache.names}}")
     private List<String> cacheNames;
 
@@ -34,25 +73,179 @@ public class SimpleCacheConfig extends CachingConfigurerSupport {
     @Value("#{${mosip.idp.cache.expire-in-seconds}}")
     private Map<String, Integer> cacheExpireInSeconds;
 
+    @Value("#{${mosip.idp.cache.expire-policy:{:}}}")
+    private Map<String, String> cacheExpirePolicy;
+
+    @Value("#{${mosip.idp.cache.shared-names:{}}}")
+    private List<String> sharedCacheNames = Collections.emptyList();
+
+    @Value("#{${mosip.idp.cache.expire-jitter-ratio:{:}}}")
+    private Map<String, Double> cacheExpireJitterRatio = Collections.emptyMap();
+
+    @Value("#{${mosip.idp.cache.refresh-ahead-ratio:{:}}}")
+    private Map<String, Double> cacheRefreshAheadRatio = Collections.emptyMap();
+
+    //reloaders are services built on the caches, resolved only when the first entry is loaded
+    @Lazy
+    @Autowired
+    private List<CacheReloader> cacheReloaders;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<CacheInvalidationBus> cacheInvalidationBus;
+
+    @Autowired
+    private ObjectProvider<LettuceConnectionFactory> redisConnectionFactory;
 
     @Bean
     @Override
     public CacheManager cacheManager() {
         SimpleCacheManager cacheManager = new SimpleCacheManager();
         List<Cache> caches = new ArrayList<>();
+        RedisCacheManager redisCacheManager = buildRedisCacheManager();
         for(String name : cacheNames) {
-            caches.add(buildMapCache(name));
+            if(sharedCacheNames.contains(name)) {
+                log.info("Cache {} is a two level cache, shared L2 : {}", name, redisCacheManager != null);
+                Cache sharedCache = redisCacheManager == null ? null : redisCacheManager.getCache(name);
+                EvictionGenerations evictionGenerations = new EvictionGenerations();
+                caches.add(new TwoLevelCache(buildCaffeineCache(name, sharedCache, evictionGenerations), sharedCache,
+                        cacheInvalidationBus.getObject(), evictionGenerations));
+            }
+            else
+                caches.add(buildCaffeineCache(name, null, null));
         }
         cacheManager.setCaches(caches);
         return cacheManager;
     }
 
-    private ConcurrentMapCache buildMapCache(String name) {
-        return new ConcurrentMapCache(name,
-                CacheBuilder.newBuilder()
-                        .expireAfterWrite(cacheExpireInSeconds.getOrDefault(name, 60), TimeUnit.SECONDS)
-                        .maximumSize(cacheMaxSize.getOrDefault(name, 100))
-                        .build()
-                        .asMap(), true);
+    /**
+     * Picked up by the actuator cache metrics registrar, which has no binder for caches other than caffeine's own.
+     */
+    @Bean
+    public TwoLevelCacheMeterBinderProvider twoLevelCacheMeterBinderProvider() {
+        return new TwoLevelCacheMeterBinderProvider();
+    }
+
+    /**
+     * @param sharedCache L2 of the two level cache, null if there is none
+     * @param evictionGenerations of the two level cache, null if the cache is not a two level cache
+     */
+    private CaffeineCache buildCaffeineCache(String name, Cache sharedCache, EvictionGenerations evictionGenerations) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize.getOrDefault(name, 100))
+                .removalListener(getRemovalListener(name))
+                .recordStats();
+
+        int expireInSeconds = cacheExpireInSeconds.getOrDefault(name, 60);
+        String expirePolicy = cacheExpirePolicy.getOrDefault(name, EXPIRE_AFTER_WRITE);
+        if(!EXPIRE_AFTER_ACCESS.equals(expirePolicy) && !EXPIRE_AFTER_WRITE.equals(expirePolicy))
+            throw new IllegalArgumentException("Invalid expire policy '" + expirePolicy + "' for cache " + name);
+
+        double jitterRatio = cacheExpireJitterRatio.getOrDefault(name, 0d);
+        if(jitterRatio > 0)
+            builder.expireAfter(new JitteredExpiry(TimeUnit.SECONDS.toNanos(expireInSeconds), jitterRatio,
+                    EXPIRE_AFTER_ACCESS.equals(expirePolicy)));
+        else if(EXPIRE_AFTER_ACCESS.equals(expirePolicy))
+            builder.expireAfterAccess(expireInSeconds, TimeUnit.SECONDS);
+        else
+            builder.expireAfterWrite(expireInSeconds, TimeUnit.SECONDS);
+        log.info("Cache {} built with max size {}, {} {} seconds, jitter ratio {}", name,
+                cacheMaxSize.getOrDefault(name, 100), expirePolicy, expireInSeconds, jitterRatio);
+
+        double refreshAheadRatio = cacheRefreshAheadRatio.getOrDefault(name, 0d);
+        if(refreshAheadRatio <= 0)
+            return new CaffeineCache(name, builder.build(), true);
+
+        //refreshed before the earliest jittered expiry
+        long refreshInNanos = (long) (TimeUnit.SECONDS.toNanos(expireInSeconds) * (1 - jitterRatio) * refreshAheadRatio);
+        builder.refreshAfterWrite(refreshInNanos, TimeUnit.NANOSECONDS);
+        log.info("Cache {} entries are refreshed ahead after {} seconds", name, TimeUnit.NANOSECONDS.toSeconds(refreshInNanos));
+        if(sharedCache != null)
+            return new CaffeineCache(name, builder.build(new TwoLevelCacheLoader(sharedCache,
+                    evictionGenerations, () -> getCacheReloader(name))), true);
+        return new CaffeineCache(name, builder.build(key -> getCacheReloader(name).load(key)), true);
+    }
+
+    private CacheReloader getCacheReloader(String name) {
+        for(CacheReloader cacheReloader : cacheReloaders) {
+            if(cacheReloader.getCacheName().equals(name))
+                return cacheReloader;
+        }
+        throw new IllegalStateException("No cache reloader found for the refresh-ahead cache " + name);
+    }
+
+    /**
+     * Shared L2 of the two level caches with the same TTL as the L1, available only when redis is configured.
+     */
+    private RedisCacheManager buildRedisCacheManager() {
+        LettuceConnectionFactory connectionFactory = redisConnectionFactory.getIfAvailable();
+        if(connectionFactory == null || sharedCacheNames.isEmpty())
+            return null;
+
+        Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        for(String name : sharedCacheNames) {
+            cacheConfigurations.put(name, RedisCacheConfiguration.defaultCacheConfig()
+                    .entryTtl(Duration.ofSeconds(cacheExpireInSeconds.getOrDefault(name, 60)))
+                    .prefixKeysWith("idp:" + name + "::"));
+        }
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .withInitialCacheConfigurations(cacheConfigurations)
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        return redisCacheManager;
+    }
+
+    /**
+     * Expiry shortened by a random fraction of up to the jitter ratio, so that the entries loaded together and the
+     * same entries loaded on all the nodes do not expire at the same moment. Entry gets a new expiry when replaced
+     * or refreshed, and on every read with the expire-after-access policy.
+     */
+    private static class JitteredExpiry implements Expiry<Object, Object> {
+        private final long expireInNanos;
+        private final double jitterRatio;
+        private final boolean expireAfterAccess;
+
+        private JitteredExpiry(long expireInNanos, double jitterRatio, boolean expireAfterAccess) {
+            this.expireInNanos = expireInNanos;
+            this.jitterRatio = jitterRatio;
+            this.expireAfterAccess = expireAfterAccess;
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            return jittered();
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return jittered();
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterAccess ? jittered() : currentDuration;
+        }
+
+        private long jittered() {
+            return expireInNanos - (long) (expireInNanos * jitterRatio * ThreadLocalRandom.current().nextDouble());
+        }
+    }
+
+    /**
+     * Removal listener is invoked asynchronously on the caffeine executor, never on the request thread.
+     * Explicit removals and replacements are not evictions, hence not counted.
+     */
+    private RemovalListener<Object, Object> getRemovalListener(String name) {
+        return (key, value, cause) -> {
+            if(!cause.wasEvicted())
+                return;
+
+            meterRegistry.counter("idp.cache.evictions", "cache", name,
+                    "cause", cause.name().toLowerCase()).increment();
+            if(cause == RemovalCause.SIZE)
+                log.debug("Entry evicted from cache {} before expiry as max size is reached", name);
+        };
     }
 }
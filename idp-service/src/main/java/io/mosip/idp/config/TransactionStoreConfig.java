@@ -0,0 +1,162 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.mosip.idp.cache.BinaryTransactionCodec;
+import io.mosip.idp.cache.ClientQuota;
+import io.mosip.idp.cache.InMemoryTransactionStore;
+import io.mosip.idp.cache.JsonTransactionCodec;
+import io.mosip.idp.cache.LocalTransactionStore;
+import io.mosip.idp.cache.OffHeapTransactionStore;
+import io.mosip.idp.cache.RedisTransactionStore;
+import io.mosip.idp.cache.SnapshotSupport;
+import io.mosip.idp.cache.TolerantTransactionCodec;
+import io.mosip.idp.cache.TransactionExpiryListener;
+import io.mosip.idp.cache.TransactionExpiryPublisher;
+import io.mosip.idp.cache.TransactionSnapshot;
+import io.mosip.idp.core.spi.TransactionCodec;
+import io.mosip.idp.core.spi.TransactionStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@Slf4j
+public class TransactionStoreConfig {
+
+    @Value("#{${mosip.idp.cache.size}}")
+    private Map<String, Integer> cacheMaxSize;
+
+    @Value("#{${mosip.idp.cache.expire-in-seconds}}")
+    private Map<String, Integer> cacheExpireInSeconds;
+
+    @Value("#{${mosip.idp.openid.scope.claims}}")
+    private Map<String, List<String>> scopeClaims;
+
+    @ConditionalOnProperty(value = "mosip.idp.transaction.codec.impl", havingValue = "BinaryTransactionCodec",
+            matchIfMissing = true)
+    @Bean
+    public TransactionCodec binaryTransactionCodec(MeterRegistry meterRegistry) {
+        return new TolerantTransactionCodec(new BinaryTransactionCodec(scopeClaims), meterRegistry);
+    }
+
+    @ConditionalOnProperty(value = "mosip.idp.transaction.codec.impl", havingValue = "JsonTransactionCodec")
+    @Bean
+    public TransactionCodec jsonTransactionCodec(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return new TolerantTransactionCodec(new JsonTransactionCodec(objectMapper), meterRegistry);
+    }
+
+    @ConditionalOnProperty(value = "mosip.idp.transaction.store.impl", havingValue = "LocalTransactionStore",
+            matchIfMissing = true)
+    @Bean
+    public TransactionStore localTransactionStore(MeterRegistry meterRegistry,
+                                                  ObjectProvider<TransactionExpiryPublisher> expiryPublisher,
+                                                  @Value("${mosip.idp.transaction.store.client-quota.default:0}") int defaultClientQuota,
+                                                  @Value("#{${mosip.idp.transaction.store.client-quota.overrides:{:}}}") Map<String, Integer> clientQuotas,
+                                                  @Value("${mosip.idp.transaction.expiry.tick-ms:1000}") long expiryTickInMillis) {
+        log.info("Transactions are stored in the node local store, default client quota : {}", defaultClientQuota);
+        return new LocalTransactionStore(cacheMaxSize, cacheExpireInSeconds,
+                new ClientQuota(defaultClientQuota, clientQuotas, meterRegistry), expiryPublisher.getIfAvailable(),
+                expiryTickInMillis);
+    }
+
+    @ConditionalOnProperty(value = "mosip.idp.transaction.store.impl", havingValue = "OffHeapTransactionStore")
+    @Bean
+    public TransactionStore offHeapTransactionStore(TransactionCodec transactionCodec,
+                                                    ObjectProvider<TransactionExpiryPublisher> expiryPublisher,
+                                                    @Value("${mosip.idp.transaction.store.offheap.slab-size-mb:32}") int slabSizeInMB,
+                                                    @Value("${mosip.idp.transaction.store.offheap.max-slabs:32}") int maxSlabs,
+                                                    @Value("${mosip.idp.transaction.store.offheap.mapped-file-dir:}") String mappedFileDir) {
+        log.info("Transactions are stored off heap in {} slabs of {} MB, mapped file dir : {}", maxSlabs, slabSizeInMB,
+                mappedFileDir);
+        return new OffHeapTransactionStore(transactionCodec, cacheExpireInSeconds, slabSizeInMB * 1024 * 1024,
+                maxSlabs, StringUtils.isEmpty(mappedFileDir) ? null : Paths.get(mappedFileDir),
+                expiryPublisher.getIfAvailable());
+    }
+
+    @ConditionalOnProperty(value = "mosip.idp.transaction.store.impl", havingValue = "InMemoryTransactionStore")
+    @Bean
+    public TransactionStore inMemoryTransactionStore(TransactionCodec transactionCodec) {
+        log.info("Transactions are stored in the embedded in-memory store");
+        return new InMemoryTransactionStore(cacheExpireInSeconds, transactionCodec);
+    }
+
+    /**
+     * Expiry events are delivered to all the expiry listener beans and published as application events,
+     * so any @EventListener of TransactionExpiryEvent (e.g. audit) receives them on the dispatcher thread.
+     */
+    @ConditionalOnProperty(value = "mosip.idp.transaction.expiry.events-enabled", havingValue = "true")
+    @Bean
+    public TransactionExpiryPublisher transactionExpiryPublisher(MeterRegistry meterRegistry,
+                                                                 ApplicationEventPublisher applicationEventPublisher,
+                                                                 ObjectProvider<List<TransactionExpiryListener>> expiryListeners,
+                                                                 @Value("${mosip.idp.transaction.expiry.queue-capacity:10000}") int queueCapacity) {
+        List<TransactionExpiryListener> listeners = new ArrayList<>(expiryListeners.getIfAvailable(ArrayList::new));
+        listeners.add(applicationEventPublisher::publishEvent);
+        log.info("Transaction expiry events are published to {} listeners", listeners.size());
+        return new TransactionExpiryPublisher(listeners, meterRegistry, queueCapacity);
+    }
+
+    @ConditionalOnProperty(value = "mosip.idp.transaction.snapshot.enabled", havingValue = "true")
+    @Bean(initMethod = "restore", destroyMethod = "snapshot")
+    public TransactionSnapshot transactionSnapshot(TransactionStore transactionStore, TransactionCodec transactionCodec,
+                                                   @Value("${mosip.idp.transaction.snapshot.file}") String file,
+                                                   @Value("${mosip.idp.transaction.snapshot.max-write-ms:5000}") long maxWriteInMillis) {
+        if(!(transactionStore instanceof SnapshotSupport))
+            throw new IllegalStateException("Transaction snapshot is not supported with " +
+                    transactionStore.getClass().getSimpleName());
+
+        log.info("Transactions are saved to snapshot {} on shutdown and restored on startup", file);
+        return new TransactionSnapshot((SnapshotSupport) transactionStore, transactionCodec, Paths.get(file),
+                maxWriteInMillis);
+    }
+
+    @ConditionalOnProperty(value = "mosip.idp.transaction.store.impl", havingValue = "RedisTransactionStore")
+    @Configuration
+    public static class RedisTransactionStoreConfig {
+
+        @Value("#{${mosip.idp.cache.expire-in-seconds}}")
+        private Map<String, Integer> cacheExpireInSeconds;
+
+        @Value("${mosip.idp.transaction.store.redis.key-prefix:idp:}")
+        private String keyPrefix;
+
+        @Value("${mosip.idp.transaction.store.redis.occupancy-refresh-seconds:5}")
+        private long occupancyRefreshInSeconds;
+
+        @Bean
+        public RedisTemplate<String, byte[]> transactionRedisTemplate(LettuceConnectionFactory redisConnectionFactory) {
+            RedisTemplate<String, byte[]> redisTemplate = new RedisTemplate<>();
+            redisTemplate.setConnectionFactory(redisConnectionFactory);
+            redisTemplate.setEnableDefaultSerializer(false);
+            redisTemplate.setKeySerializer(new StringRedisSerializer());
+            return redisTemplate;
+        }
+
+        @Bean
+        public TransactionStore redisTransactionStore(RedisTemplate<String, byte[]> transactionRedisTemplate,
+                                                      TransactionCodec transactionCodec) {
+            log.info("Transactions are stored in the shared redis store with key prefix : {}", keyPrefix);
+            return new RedisTransactionStore(transactionRedisTemplate, cacheExpireInSeconds, transactionCodec, keyPrefix,
+                    occupancyRefreshInSeconds);
+        }
+    }
+}
@@ -43,4 +43,14 @@ public class ClientManagementController {
         response.setResponseTime(IdentityProviderUtil.getResponseTime());
         return response;
     }
+
+    @RequestMapping(value = "/client-mgmt/oidc-clients", method = RequestMethod.POST,
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseWrapper<ClientDetailBulkResponse> createOrUpdateClients(
+            @Valid @RequestBody RequestWrapper<ClientDetailBulkRequest> requestWrapper) throws Exception {
+        ResponseWrapper response = new ResponseWrapper<ClientDetailBulkResponse>();
+        response.setResponse(clientManagementService.createOrUpdateOIDCClients(requestWrapper.getRequest()));
+        response.setResponseTime(IdentityProviderUtil.getResponseTime());
+        return response;
+    }
 }
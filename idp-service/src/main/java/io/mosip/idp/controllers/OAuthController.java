@@ -5,16 +5,21 @@
  */
 package io.mosip.idp.controllers;
 
+import io.mosip.idp.core.dto.JwksDocument;
 import io.mosip.idp.core.dto.TokenRequest;
 import io.mosip.idp.core.dto.TokenResponse;
 import io.mosip.idp.core.exception.IdPException;
 import io.mosip.idp.core.spi.OAuthService;
-import org.jose4j.jwk.JsonWebKeySet;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.TimeUnit;
+
 @RestController
 @RequestMapping("/oauth")
 public class OAuthController {
@@ -22,6 +27,9 @@ public class OAuthController {
     @Autowired
     private OAuthService oAuthService;
 
+    @Value("${mosip.idp.jwks.max-age-seconds:300}")
+    private long jwksMaxAgeSeconds;
+
     @PostMapping(value = "/token", consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE},
             produces = {MediaType.APPLICATION_JSON_VALUE})
     public TokenResponse getToken(@RequestParam MultiValueMap<String,String> paramMap)
@@ -36,8 +44,16 @@ public class OAuthController {
         return oAuthService.getTokens(tokenRequest);
     }
 
+    /**
+     * Key set is served with a strong ETag, conditional requests with a matching If-None-Match get 304.
+     */
     @GetMapping("/.well-known/jwks.json")
-    public JsonWebKeySet getAllJwks() {
-        return oAuthService.getJwks();
+    public ResponseEntity<byte[]> getAllJwks() {
+        JwksDocument jwksDocument = oAuthService.getJwks();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(jwksDocument.getETag())
+                .cacheControl(CacheControl.maxAge(jwksMaxAgeSeconds, TimeUnit.SECONDS).cachePublic())
+                .body(jwksDocument.getContent());
     }
 }
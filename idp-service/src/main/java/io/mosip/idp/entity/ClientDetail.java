@@ -8,6 +8,7 @@ package io.mosip.idp.entity;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnTransformer;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -22,6 +23,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class ClientDetail {
 
+    //list columns are jsonb, the bound JSON strings are cast explicitly as postgres does not cast varchar to jsonb
+    private static final String JSONB_WRITE = "?::jsonb";
+
     @Id
     @NotBlank
     private String id;
@@ -38,6 +42,7 @@ public class ClientDetail {
     private String logoUri;
 
     @NotBlank(message = "invalid_redirect_uri")
+    @ColumnTransformer(write = JSONB_WRITE)
     @Column(name = "redirect_uris")
     private String redirectUris;
 
@@ -46,10 +51,12 @@ public class ClientDetail {
     private String publicKey;
 
     @NotBlank(message = "invalid_claims")
+    @ColumnTransformer(write = JSONB_WRITE)
     @Column(name = "claims")
     private String claims;
 
     @NotBlank(message = "invalid_acr_values")
+    @ColumnTransformer(write = JSONB_WRITE)
     @Column(name = "acr_values")
     private String acrValues;
 
@@ -59,10 +66,12 @@ public class ClientDetail {
     private String status;
 
     @NotBlank(message = "invalid_grant_types")
+    @ColumnTransformer(write = JSONB_WRITE)
     @Column(name = "grant_types")
     private String grantTypes;
 
     @NotBlank(message = "invalid_client_auth")
+    @ColumnTransformer(write = JSONB_WRITE)
     @Column(name = "auth_methods")
     private String clientAuthMethods;
 
@@ -0,0 +1,34 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read only view of the client detail columns required to build the client policy. Instances are created by the
+ * constructor expression of the query, they are not managed by the persistence context hence not dirty checked.
+ * Modified time is the update time of the row, or its creation time if never updated.
+ */
+@Getter
+@AllArgsConstructor
+public class ClientDetailProjection {
+
+    private final String id;
+    private final String name;
+    private final String rpId;
+    private final String logoUri;
+    private final String redirectUris;
+    private final String publicKey;
+    private final String claims;
+    private final String acrValues;
+    private final String status;
+    private final String grantTypes;
+    private final String clientAuthMethods;
+    private final LocalDateTime modifiedtimes;
+}
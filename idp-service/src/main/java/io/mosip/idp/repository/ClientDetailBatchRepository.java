@@ -0,0 +1,25 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.repository;
+
+import io.mosip.idp.entity.ClientDetail;
+
+import java.util.List;
+import java.util.Set;
+
+public interface ClientDetailBatchRepository {
+
+    /**
+     * Inserts the new clients and updates the existing clients with JDBC batch statements in one transaction.
+     * Existence of the clients is checked within the same transaction, clients to insert which already exist and
+     * clients to update which do not exist are not written. Entity validations are not applied, clients must be
+     * validated by the caller.
+     * @param inserts clients to insert
+     * @param updates clients to update, created time and relying party of the stored client are retained
+     * @return ids of the clients written
+     */
+    Set<String> saveAllInBatch(List<ClientDetail> inserts, List<ClientDetail> updates);
+}
@@ -0,0 +1,141 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.repository;
+
+import io.mosip.idp.entity.ClientDetail;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+public class ClientDetailBatchRepositoryImpl implements ClientDetailBatchRepository {
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private static final String EXISTING_IDS_SQL = "select id from client_detail where id in (:clientIds)";
+
+    private static final String INSERT_SQL = "insert into client_detail (id, name, rp_id, logo_uri, redirect_uris, " +
+            "public_key, claims, acr_values, status, grant_types, auth_methods, cr_dtimes) " +
+            "values (?, ?, ?, ?, ?::jsonb, ?, ?::jsonb, ?::jsonb, ?, ?::jsonb, ?::jsonb, ?)";
+
+    private static final String UPDATE_SQL = "update client_detail set name = ?, logo_uri = ?, " +
+            "redirect_uris = ?::jsonb, claims = ?::jsonb, acr_values = ?::jsonb, status = ?, grant_types = ?::jsonb, " +
+            "auth_methods = ?::jsonb, upd_dtimes = ? where id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${mosip.idp.client-mgmt.bulk.jdbc-batch-size:100}")
+    private int batchSize;
+
+    /**
+     * A client inserted concurrently after the existence check fails the insert with a duplicate key, the whole
+     * write is then retried in a new transaction which finds the client as existing.
+     */
+    @Override
+    public Set<String> saveAllInBatch(List<ClientDetail> inserts, List<ClientDetail> updates) {
+        for(int attempt = 1; ; attempt++) {
+            try {
+                return new TransactionTemplate(transactionManager).execute(status -> write(inserts, updates));
+            } catch (DuplicateKeyException e) {
+                if(attempt >= MAX_WRITE_ATTEMPTS)
+                    throw e;
+                log.warn("Bulk write attempt {} failed, client registered concurrently", attempt);
+            }
+        }
+    }
+
+    private Set<String> write(List<ClientDetail> inserts, List<ClientDetail> updates) {
+        Set<String> clientIds = new HashSet<>();
+        inserts.forEach(clientDetail -> clientIds.add(clientDetail.getId()));
+        updates.forEach(clientDetail -> clientIds.add(clientDetail.getId()));
+        Set<String> existingIds = clientIds.isEmpty() ? Collections.emptySet() : new HashSet<>(
+                new NamedParameterJdbcTemplate(jdbcTemplate).queryForList(EXISTING_IDS_SQL,
+                        Collections.singletonMap("clientIds", clientIds), String.class));
+
+        List<ClientDetail> newClients = inserts.stream()
+                .filter(clientDetail -> !existingIds.contains(clientDetail.getId()))
+                .collect(Collectors.toList());
+        List<ClientDetail> existingClients = updates.stream()
+                .filter(clientDetail -> existingIds.contains(clientDetail.getId()))
+                .collect(Collectors.toList());
+
+        Set<String> written = new HashSet<>();
+        if(!newClients.isEmpty())
+            addWritten(written, newClients, jdbcTemplate.batchUpdate(INSERT_SQL, newClients, batchSize,
+                    ClientDetailBatchRepositoryImpl::setInsertValues));
+        if(!existingClients.isEmpty())
+            addWritten(written, existingClients, jdbcTemplate.batchUpdate(UPDATE_SQL, existingClients, batchSize,
+                    ClientDetailBatchRepositoryImpl::setUpdateValues));
+        return written;
+    }
+
+    /**
+     * Update counts are returned per batch in the order of the clients, a client removed concurrently after the
+     * existence check is updated on no row and hence not written.
+     */
+    private static void addWritten(Set<String> written, List<ClientDetail> clients, int[][] updateCounts) {
+        int index = 0;
+        for(int[] batchCounts : updateCounts) {
+            for(int count : batchCounts) {
+                if(count > 0 || count == Statement.SUCCESS_NO_INFO)
+                    written.add(clients.get(index).getId());
+                index++;
+            }
+        }
+    }
+
+    private static void setInsertValues(PreparedStatement ps, ClientDetail clientDetail) throws SQLException {
+        ps.setString(1, clientDetail.getId());
+        ps.setString(2, clientDetail.getName());
+        ps.setString(3, clientDetail.getRpId());
+        ps.setString(4, clientDetail.getLogoUri());
+        ps.setString(5, clientDetail.getRedirectUris());
+        ps.setString(6, clientDetail.getPublicKey());
+        ps.setString(7, clientDetail.getClaims());
+        ps.setString(8, clientDetail.getAcrValues());
+        ps.setString(9, clientDetail.getStatus());
+        ps.setString(10, clientDetail.getGrantTypes());
+        ps.setString(11, clientDetail.getClientAuthMethods());
+        ps.setTimestamp(12, toTimestamp(clientDetail.getCreatedtimes()));
+    }
+
+    private static void setUpdateValues(PreparedStatement ps, ClientDetail clientDetail) throws SQLException {
+        ps.setString(1, clientDetail.getName());
+        ps.setString(2, clientDetail.getLogoUri());
+        ps.setString(3, clientDetail.getRedirectUris());
+        ps.setString(4, clientDetail.getClaims());
+        ps.setString(5, clientDetail.getAcrValues());
+        ps.setString(6, clientDetail.getStatus());
+        ps.setString(7, clientDetail.getGrantTypes());
+        ps.setString(8, clientDetail.getClientAuthMethods());
+        ps.setTimestamp(9, toTimestamp(clientDetail.getUpdatedtimes()));
+        ps.setString(10, clientDetail.getId());
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime == null ? null : Timestamp.valueOf(dateTime);
+    }
+}
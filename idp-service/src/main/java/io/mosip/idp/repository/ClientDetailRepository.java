@@ -6,11 +6,24 @@
 package io.mosip.idp.repository;
 
 import io.mosip.idp.entity.ClientDetail;
+import io.mosip.idp.entity.ClientDetailProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ClientDetailRepository extends JpaRepository<ClientDetail, String> {
+public interface ClientDetailRepository extends JpaRepository<ClientDetail, String>, ClientDetailBatchRepository {
+
+    String SELECT_PROJECTION = "select new io.mosip.idp.entity.ClientDetailProjection(c.id, c.name, c.rpId, " +
+            "c.logoUri, c.redirectUris, c.publicKey, c.claims, c.acrValues, c.status, c.grantTypes, " +
+            "c.clientAuthMethods, coalesce(c.updatedtimes, c.createdtimes)) from ClientDetail c ";
 
     /**
      * case-sensitive query to fetch client with clientId and status
@@ -19,4 +32,41 @@ public interface ClientDetailRepository extends JpaRepository<ClientDetail, Stri
      * @return
      */
     Optional<ClientDetail> findByIdAndStatus(String clientId, String status);
+
+    /**
+     * case-sensitive query to fetch the read only projection of client with clientId and status
+     * @param clientId
+     * @param status
+     * @return
+     */
+    @Query(SELECT_PROJECTION + "where c.id = :clientId and c.status = :status")
+    Optional<ClientDetailProjection> findProjectionByIdAndStatus(@Param("clientId") String clientId,
+                                                                 @Param("status") String status);
+
+    /**
+     * Streams the read only projection of all the clients with the status, rows are fetched in batches through a
+     * database cursor. Stream must be consumed and closed within a transaction.
+     * @param status
+     * @return
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_PROJECTION + "where c.status = :status")
+    Stream<ClientDetailProjection> streamProjectionByStatus(@Param("status") String status);
+
+    /**
+     * Query to fetch the read only projection of all the clients created or updated at or after the given time,
+     * irrespective of the status
+     * @param since
+     * @return
+     */
+    @Query(SELECT_PROJECTION + "where coalesce(c.updatedtimes, c.createdtimes) >= :since")
+    List<ClientDetailProjection> findProjectionModifiedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Query to fetch the read only projection of the clients with the given client ids, irrespective of the status
+     * @param clientIds
+     * @return
+     */
+    @Query(SELECT_PROJECTION + "where c.id in :clientIds")
+    List<ClientDetailProjection> findProjectionByIds(@Param("clientIds") Collection<String> clientIds);
 }
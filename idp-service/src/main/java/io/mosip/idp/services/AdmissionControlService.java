@@ -0,0 +1,83 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.mosip.idp.core.exception.TemporarilyUnavailableException;
+import io.mosip.idp.core.spi.TransactionStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Protects the in-flight transactions by not admitting new transactions when the transaction store is close
+ * to its capacity, instead of letting the store evict live transactions.
+ *
+ * Store enters the overload mode when its occupancy reaches the high watermark and leaves it only when the
+ * occupancy drops below the low watermark. In overload mode a new request is rejected right away with the
+ * retryable temporarily_unavailable error, request threads are never held waiting for the store to drain.
+ */
+@Slf4j
+@Service
+public class AdmissionControlService {
+
+    @Autowired
+    private TransactionStore transactionStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${mosip.idp.admission.high-watermark:0.9}")
+    private double highWatermark;
+
+    @Value("${mosip.idp.admission.low-watermark:0.8}")
+    private double lowWatermark;
+
+    private volatile boolean overloaded;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("idp.transaction.store.occupancy", transactionStore, TransactionStore::getOccupancy)
+                .description("Fraction of the transaction store capacity in use")
+                .register(meterRegistry);
+        Gauge.builder("idp.admission.overloaded", this, service -> service.overloaded ? 1 : 0)
+                .description("1 when new transactions are not admitted")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("idp.admission.rejected")
+                .description("Number of new transactions rejected as the transaction store is full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @throws TemporarilyUnavailableException if the store is overloaded
+     */
+    public void admit() throws TemporarilyUnavailableException {
+        if(isAdmissible())
+            return;
+
+        rejectedCounter.increment();
+        throw new TemporarilyUnavailableException();
+    }
+
+    private boolean isAdmissible() {
+        double occupancy = transactionStore.getOccupancy();
+        if(overloaded && occupancy < lowWatermark) {
+            overloaded = false;
+            log.info("Transaction store occupancy {} below low watermark, admitting new transactions", occupancy);
+        }
+        else if(!overloaded && occupancy >= highWatermark) {
+            overloaded = true;
+            log.warn("Transaction store occupancy {} reached high watermark, not admitting new transactions", occupancy);
+        }
+        return !overloaded;
+    }
+}
@@ -40,9 +40,18 @@ public class AuthorizationServiceImpl implements io.mosip.idp.core.spi.Authoriza
     @Autowired
     private CacheUtilService cacheUtilService;
 
+    @Autowired
+    private AdmissionControlService admissionControlService;
+
     @Autowired
     private AuthenticationContextClassRefUtil authenticationContextClassRefUtil;
 
+    @Autowired
+    private SpeculativeTokenMinter speculativeTokenMinter;
+
+    @Autowired
+    private KycExchangeService kycExchangeService;
+
     @Value("#{${mosip.idp.openid.scope.claims}}")
     private Map<String, List<String>> claims;
 
@@ -58,6 +67,8 @@ public class AuthorizationServiceImpl implements io.mosip.idp.core.spi.Authoriza
 
     @Override
     public OAuthDetailResponse getOauthDetails(OAuthDetailRequest oauthDetailReqDto) throws IdPException {
+        admissionControlService.admit();
+
         ClientDetail clientDetailDto = clientManagementService.getClientDetails(oauthDetailReqDto.getClientId());
 
         log.info("nonce : {} Valid client id found, proceeding to validate redirect URI", oauthDetailReqDto.getNonce());
@@ -132,7 +143,8 @@ public class AuthorizationServiceImpl implements io.mosip.idp.core.spi.Authoriza
         transaction.setPartnerSpecificUserToken(result.getResponse().getPartnerSpecificUserToken());
         transaction.setKycToken(result.getResponse().getKycToken());
         transaction.setAuthTimeInSeconds(IdentityProviderUtil.getEpochSeconds());
-        cacheUtilService.setTransaction(kycAuthRequest.getTransactionId(), transaction);
+        if(cacheUtilService.setAuthenticatedTransaction(transaction) == null)
+            throw new InvalidTransactionException();
 
         AuthResponse authRespDto = new AuthResponse();
         authRespDto.setTransactionId(kycAuthRequest.getTransactionId());
@@ -148,10 +160,14 @@ public class AuthorizationServiceImpl implements io.mosip.idp.core.spi.Authoriza
 
         String authCode = IdentityProviderUtil.generateB64EncodedHash(ALGO_MD5, UUID.randomUUID().toString());
         // cache consent with auth-code as key
-        transaction.setCode(authCode);
         transaction.setAcceptedClaims(authCodeRequest.getAcceptedClaims());
         transaction.setPermittedScopes(authCodeRequest.getPermittedAuthorizeScopes());
-        return cacheUtilService.setAuthenticatedTransaction(authCode, authCodeRequest.getTransactionId(), transaction);
+        transaction = cacheUtilService.setAuthCodeTransaction(authCode, transaction);
+        if(transaction == null)
+            throw new InvalidTransactionException();
+        kycExchangeService.prefetch(transaction);
+        speculativeTokenMinter.mintAsync(authCode);
+        return transaction;
     }
 
     private Claims getRequestedClaims(OAuthDetailRequest oauthDetailRequest, ClientDetail clientDetailDto)
@@ -171,7 +187,7 @@ public class AuthorizationServiceImpl implements io.mosip.idp.core.spi.Authoriza
 
         log.info("Started to resolve claims based on the request scope {} and claims {}", requestedScopes, requestedClaims);
         //get claims based on scope
-        List<String> claimBasedOnScope = new ArrayList<>();
+        Set<String> claimBasedOnScope = new HashSet<>();
         Arrays.stream(requestedScopes)
                 .forEach(scope -> { claimBasedOnScope.addAll(claims.getOrDefault(scope, new ArrayList<>())); });
 
@@ -193,7 +209,7 @@ public class AuthorizationServiceImpl implements io.mosip.idp.core.spi.Authoriza
         return resolvedClaims;
     }
 
-    private ClaimDetail resolveACRClaim(List<String> registeredACRs, String requestedAcr, Claims requestedClaims) throws IdPException {
+    private ClaimDetail resolveACRClaim(Set<String> registeredACRs, String requestedAcr, Claims requestedClaims) throws IdPException {
         ClaimDetail claimDetail = new ClaimDetail();
         claimDetail.setEssential(true);
 
@@ -6,66 +6,93 @@
 package io.mosip.idp.services;
 
 import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.TransactionState;
 import io.mosip.idp.core.exception.IdPException;
-import io.mosip.idp.core.spi.TokenService;
-import io.mosip.idp.core.util.Constants;
-import io.mosip.idp.core.util.IdentityProviderUtil;
+import io.mosip.idp.core.spi.TransactionStore;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.function.Consumer;
+
 @Service
 public class CacheUtilService {
 
-    private Cache pre_auth_cache = null;
-    private Cache authenticate_cache = null;
-    private Cache kyc_cache = null;
-
-    @Autowired
-    CacheManager cacheManager;
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
 
     @Autowired
-    TokenService tokenService;
+    TransactionStore transactionStore;
 
-    @Cacheable(value = Constants.PRE_AUTH_SESSION_CACHE, key = "#transactionId")
     public IdPTransaction setTransaction(String transactionId, IdPTransaction idPTransaction) {
+        idPTransaction.setTransactionId(transactionId);
+        idPTransaction.setState(TransactionState.INITIATED);
+        transactionStore.save(idPTransaction);
         return idPTransaction;
     }
 
-    @CacheEvict(value = Constants.PRE_AUTH_SESSION_CACHE, key = "#transactionId")
-    @Cacheable(value = Constants.AUTHENTICATED_CACHE, key = "#authCode")
-    public IdPTransaction setAuthenticatedTransaction(String authCode, String transactionId,
-                                                         IdPTransaction idPTransaction) {
-        return idPTransaction;
+    /**
+     * Marks the pre-auth transaction as authenticated.
+     * @return null if the transaction is concurrently updated, already moved past authentication or expired
+     */
+    public IdPTransaction setAuthenticatedTransaction(IdPTransaction idPTransaction) {
+        return transition(idPTransaction, TransactionState.AUTHENTICATED);
     }
 
-    @CacheEvict(value = Constants.AUTHENTICATED_CACHE, key = "#idPTransaction.getCode()")
-    @Cacheable(value = Constants.KYC_CACHE, key = "#accessTokenHash")
+    /**
+     * Issues the auth code on the pre-auth transaction.
+     * @return null if the auth code is already issued for the transaction or the transaction is expired
+     */
+    public IdPTransaction setAuthCodeTransaction(String authCode, IdPTransaction idPTransaction) {
+        idPTransaction.setCode(authCode);
+        return transition(idPTransaction, TransactionState.CODE_ISSUED);
+    }
+
+    /**
+     * Applies the update on the transaction with the auth code, retried on the latest record if the transaction
+     * is concurrently updated.
+     * @return null if the auth code is already redeemed or expired
+     */
+    public IdPTransaction updateAuthCodeTransaction(String authCode, Consumer<IdPTransaction> update) {
+        for(int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+            IdPTransaction transaction = transactionStore.findByAuthCode(authCode);
+            if(transaction == null)
+                return null;
+            update.accept(transaction);
+            if(transition(transaction, TransactionState.CODE_ISSUED) != null)
+                return transaction;
+        }
+        return null;
+    }
+
+    /**
+     * Redeems the auth code, the transaction is thereafter only found with the access token hash.
+     * @return null if the auth code is already redeemed or expired
+     */
     public IdPTransaction setKycTransaction(String accessTokenHash, IdPTransaction idPTransaction) {
-        return idPTransaction;
+        idPTransaction.setAHash(accessTokenHash);
+        return transition(idPTransaction, TransactionState.TOKEN_ISSUED);
     }
 
     public IdPTransaction getPreAuthTransaction(String transactionId) throws IdPException {
-        if(pre_auth_cache == null)
-            pre_auth_cache = cacheManager.getCache(Constants.PRE_AUTH_SESSION_CACHE);
-
-        return pre_auth_cache.get(transactionId, IdPTransaction.class);
+        IdPTransaction transaction = transactionStore.findByTransactionId(transactionId);
+        return (transaction != null && (transaction.getState() == TransactionState.INITIATED ||
+                transaction.getState() == TransactionState.AUTHENTICATED)) ? transaction : null;
     }
 
     public IdPTransaction getAuthenticatedTransaction(String authCode) {
-        if(authenticate_cache == null)
-            authenticate_cache = cacheManager.getCache(Constants.AUTHENTICATED_CACHE);
-
-        return authenticate_cache.get(authCode, IdPTransaction.class);
+        return transactionStore.findByAuthCode(authCode);
     }
 
     public IdPTransaction getKycTransaction(String accessTokenHash) {
-        if(kyc_cache == null)
-            kyc_cache = cacheManager.getCache(Constants.KYC_CACHE);
+        return transactionStore.findByAccessTokenHash(accessTokenHash);
+    }
+
+    private IdPTransaction transition(IdPTransaction idPTransaction, TransactionState toState) {
+        TransactionState fromState = idPTransaction.getState();
+        idPTransaction.setState(toState);
+        if(transactionStore.transition(idPTransaction, fromState))
+            return idPTransaction;
 
-        return kyc_cache.get(accessTokenHash, IdPTransaction.class);
+        idPTransaction.setState(fromState);
+        return null;
     }
 }
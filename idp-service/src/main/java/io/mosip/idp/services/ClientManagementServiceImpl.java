@@ -7,6 +7,10 @@ package io.mosip.idp.services;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.mosip.idp.cache.CacheReloader;
+import io.mosip.idp.core.dto.ClientDetailBulkRequest;
+import io.mosip.idp.core.dto.ClientDetailBulkResponse;
+import io.mosip.idp.core.dto.ClientDetailBulkResult;
 import io.mosip.idp.core.dto.ClientDetailCreateRequest;
 import io.mosip.idp.core.dto.ClientDetailResponse;
 import io.mosip.idp.core.dto.ClientDetailUpdateRequest;
@@ -16,28 +20,44 @@ import io.mosip.idp.core.spi.ClientManagementService;
 import io.mosip.idp.core.util.Constants;
 import io.mosip.idp.core.util.ErrorConstants;
 import io.mosip.idp.entity.ClientDetail;
+import io.mosip.idp.entity.ClientDetailProjection;
 import io.mosip.idp.repository.ClientDetailRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.RsaJsonWebKey;
 import org.jose4j.lang.JoseException;
 import org.json.simple.JSONArray;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static io.mosip.idp.core.util.Constants.CLIENT_ACTIVE_STATUS;
 
 @Slf4j
 @Service
-public class ClientManagementServiceImpl implements ClientManagementService {
+public class ClientManagementServiceImpl implements ClientManagementService, CacheReloader {
 
     @Autowired
     ClientDetailRepository clientDetailRepository;
@@ -45,6 +65,20 @@ public class ClientManagementServiceImpl implements ClientManagementService {
     @Autowired
     ObjectMapper objectMapper;
 
+    @Autowired
+    ClientRegistry clientRegistry;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    Validator validator;
+
+    @Value("${mosip.idp.client-mgmt.bulk.max-items:500}")
+    private int bulkMaxItems;
+
+    private static final TypeReference<LinkedHashSet<String>> STRING_SET_TYPE = new TypeReference<LinkedHashSet<String>>() {};
+
     private List<String> NULL = Collections.singletonList(null);
 
     @CacheEvict(value = Constants.CLIENT_DETAIL_CACHE, key = "#clientDetailCreateRequest.getClientId()")
@@ -55,6 +89,212 @@ public class ClientManagementServiceImpl implements ClientManagementService {
             throw new IdPException(ErrorConstants.DUPLICATE_CLIENT_ID);
         }
 
+        ClientDetail clientDetail = buildClientDetail(clientDetailCreateRequest);
+        clientDetail = clientDetailRepository.saveAndFlush(clientDetail);
+        clientRegistry.onClientsWritten(Collections.singleton(clientDetail.getId()));
+
+        var response = new ClientDetailResponse();
+        response.setClientId(clientDetail.getId());
+        response.setStatus(clientDetail.getStatus());
+        return response;
+    }
+
+    @CacheEvict(value = Constants.CLIENT_DETAIL_CACHE, key = "#clientId")
+    @Override
+    public ClientDetailResponse updateOIDCClient(String clientId, ClientDetailUpdateRequest clientDetailUpdateRequest) throws IdPException {
+        Optional<ClientDetail> result = clientDetailRepository.findById(clientId);
+        if (!result.isPresent()) {
+            throw new IdPException(ErrorConstants.INVALID_CLIENT_ID);
+        }
+
+        ClientDetail clientDetail = result.get();
+        applyUpdate(clientDetail, clientDetailUpdateRequest);
+        clientDetail = clientDetailRepository.saveAndFlush(clientDetail);
+        clientRegistry.onClientsWritten(Collections.singleton(clientDetail.getId()));
+
+        var response = new ClientDetailResponse();
+        response.setClientId(clientDetail.getId());
+        response.setStatus(clientDetail.getStatus());
+        return response;
+    }
+
+    /**
+     * Items are validated in parallel, then the valid ones are written with JDBC batch statements in one
+     * transaction. Client detail cache entries of the written clients are evicted and the written clients are
+     * applied to the client registry once the transaction commits.
+     */
+    @Override
+    public ClientDetailBulkResponse createOrUpdateOIDCClients(ClientDetailBulkRequest clientDetailBulkRequest)
+            throws IdPException {
+        List<BulkItem> items = new ArrayList<>();
+        if(clientDetailBulkRequest.getCreateRequests() != null)
+            clientDetailBulkRequest.getCreateRequests().forEach(createRequest -> items.add(new BulkItem(
+                    createRequest == null ? null : createRequest.getClientId(), createRequest, null)));
+        if(clientDetailBulkRequest.getUpdateRequests() != null)
+            clientDetailBulkRequest.getUpdateRequests().forEach((clientId, updateRequest) -> items.add(
+                    new BulkItem(clientId, null, updateRequest)));
+
+        if(items.isEmpty() || items.size() > bulkMaxItems) {
+            log.error("Bulk request with {} items, allowed max is {}", items.size(), bulkMaxItems);
+            throw new IdPException(ErrorConstants.INVALID_REQUEST);
+        }
+
+        items.parallelStream().forEach(this::prepare);
+
+        Set<String> clientIds = new HashSet<>();
+        for(BulkItem item : items) {
+            if(item.clientDetail != null && !clientIds.add(item.clientId))
+                item.fail(ErrorConstants.DUPLICATE_CLIENT_ID, "client id repeated in the request");
+        }
+
+        List<ClientDetail> inserts = new ArrayList<>();
+        List<ClientDetail> updates = new ArrayList<>();
+        for(BulkItem item : items) {
+            if(item.clientDetail != null)
+                (item.createRequest != null ? inserts : updates).add(item.clientDetail);
+        }
+
+        if(!inserts.isEmpty() || !updates.isEmpty()) {
+            //existence is checked within the write transaction, items are failed with the clients not written
+            Set<String> written;
+            try {
+                written = clientDetailRepository.saveAllInBatch(inserts, updates);
+            } catch (DuplicateKeyException e) {
+                log.error("Bulk write failed on every attempt, clients registered concurrently", e);
+                throw new IdPException(ErrorConstants.DUPLICATE_CLIENT_ID);
+            }
+            for(BulkItem item : items) {
+                if(item.clientDetail == null || written.contains(item.clientId))
+                    continue;
+                if(item.createRequest != null)
+                    item.fail(ErrorConstants.DUPLICATE_CLIENT_ID, "client already exists");
+                else
+                    item.fail(ErrorConstants.INVALID_CLIENT_ID, "client does not exist");
+            }
+            evictClientDetails(written);
+            clientRegistry.onClientsWritten(written);
+        }
+
+        ClientDetailBulkResponse response = new ClientDetailBulkResponse();
+        response.setResults(items.stream().map(item -> item.result).collect(Collectors.toList()));
+        return response;
+    }
+
+    /**
+     * Clients are served from the client registry if it is enabled, otherwise loaded from the database into the
+     * client detail cache. Concurrent misses of a client are coalesced into one load, the other callers wait on it.
+     */
+    @Cacheable(value = Constants.CLIENT_DETAIL_CACHE, key = "#clientId", condition = "!@clientRegistry.enabled",
+            sync = true)
+    @Override
+    public io.mosip.idp.core.dto.ClientDetail getClientDetails(String clientId) throws IdPException {
+        if(clientRegistry.isEnabled())
+            return clientRegistry.getClientDetails(clientId);
+
+        Optional<ClientDetailProjection> result = clientDetailRepository.findProjectionByIdAndStatus(clientId,
+                CLIENT_ACTIVE_STATUS);
+        if(!result.isPresent())
+            throw new InvalidClientException();
+
+        return toClientDetail(objectMapper, result.get());
+    }
+
+    @Override
+    public String getCacheName() {
+        return Constants.CLIENT_DETAIL_CACHE;
+    }
+
+    /**
+     * Reloads the client detail cache entry in the background, entry is removed if the client is no more active.
+     */
+    @Override
+    public Object load(Object clientId) {
+        Optional<ClientDetailProjection> result = clientDetailRepository.findProjectionByIdAndStatus((String) clientId,
+                CLIENT_ACTIVE_STATUS);
+        try {
+            return result.isPresent() ? toClientDetail(objectMapper, result.get()) : null;
+        } catch (InvalidClientException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Builds the client policy from the stored client detail.
+     * @throws InvalidClientException if any of the stored values does not parse
+     */
+    static io.mosip.idp.core.dto.ClientDetail toClientDetail(ObjectMapper objectMapper, ClientDetailProjection result)
+            throws InvalidClientException {
+        io.mosip.idp.core.dto.ClientDetail dto = new io.mosip.idp.core.dto.ClientDetail();
+        dto.setId(result.getId());
+        dto.setName(result.getName());
+        dto.setRpId(result.getRpId());
+        dto.setLogoUri(result.getLogoUri());
+        dto.setStatus(result.getStatus());
+        dto.setPublicKey(result.getPublicKey());
+        try {
+            dto.setParsedPublicKey(((RsaJsonWebKey) JsonWebKey.Factory.newJwk(result.getPublicKey())).getRsaPublicKey());
+            dto.setClaims(readSet(objectMapper, result.getClaims()));
+            dto.setAcrValues(readSet(objectMapper, result.getAcrValues()));
+            dto.setRedirectUris(readSet(objectMapper, result.getRedirectUris()));
+            dto.setGrantTypes(readSet(objectMapper, result.getGrantTypes()));
+            dto.setClientAuthMethods(readSet(objectMapper, result.getClientAuthMethods()));
+        } catch (Exception e) {
+            log.error("Failed to parse client details of {}", result.getId(), e);
+            throw new InvalidClientException();
+        }
+        return dto;
+    }
+
+    /**
+     * @return registered order is kept as acr values are returned in the same order when none is requested
+     */
+    private static Set<String> readSet(ObjectMapper objectMapper, String jsonArray) throws IOException {
+        return Collections.unmodifiableSet(objectMapper.readValue(jsonArray, STRING_SET_TYPE));
+    }
+
+    /**
+     * Validates the bulk item and builds the client detail to write, item is failed with the first violation.
+     */
+    private void prepare(BulkItem item) {
+        Object request = item.createRequest != null ? item.createRequest : item.updateRequest;
+        if(request == null || item.clientId == null || item.clientId.isBlank()) {
+            item.fail(request == null ? ErrorConstants.INVALID_REQUEST : ErrorConstants.INVALID_CLIENT_ID,
+                    "client id or request is missing");
+            return;
+        }
+
+        Optional<ConstraintViolation<Object>> violation = validator.validate(request).stream()
+                .min(Comparator.comparing(v -> v.getPropertyPath().toString()));
+        if(violation.isPresent()) {
+            item.fail(violation.get().getMessage(), violation.get().getPropertyPath() + ": " +
+                    violation.get().getMessage());
+            return;
+        }
+
+        try {
+            ClientDetail clientDetail;
+            if(item.createRequest != null)
+                clientDetail = buildClientDetail(item.createRequest);
+            else {
+                clientDetail = new ClientDetail();
+                clientDetail.setId(item.clientId);
+                applyUpdate(clientDetail, item.updateRequest);
+            }
+            item.clientDetail = clientDetail;
+            item.result.setStatus(clientDetail.getStatus());
+        } catch (IdPException e) {
+            item.fail(e.getErrorCode(), e.getMessage());
+        }
+    }
+
+    private void evictClientDetails(Set<String> clientIds) {
+        Cache cache = cacheManager.getCache(Constants.CLIENT_DETAIL_CACHE);
+        if(cache == null)
+            return;
+        clientIds.forEach(cache::evict);
+    }
+
+    private ClientDetail buildClientDetail(ClientDetailCreateRequest clientDetailCreateRequest) throws IdPException {
         ClientDetail clientDetail = new ClientDetail();
         clientDetail.setId(clientDetailCreateRequest.getClientId());
         clientDetail.setPublicKey(getJWKString(clientDetailCreateRequest.getPublicKey()));
@@ -79,23 +319,10 @@ public class ClientManagementServiceImpl implements ClientManagementService {
 
         clientDetail.setStatus(CLIENT_ACTIVE_STATUS);
         clientDetail.setCreatedtimes(LocalDateTime.now(ZoneId.of("UTC")));
-        clientDetail = clientDetailRepository.saveAndFlush(clientDetail);
-
-        var response = new ClientDetailResponse();
-        response.setClientId(clientDetail.getId());
-        response.setStatus(clientDetail.getStatus());
-        return response;
+        return clientDetail;
     }
 
-    @CacheEvict(value = Constants.CLIENT_DETAIL_CACHE, key = "#clientId")
-    @Override
-    public ClientDetailResponse updateOIDCClient(String clientId, ClientDetailUpdateRequest clientDetailUpdateRequest) throws IdPException {
-        Optional<ClientDetail> result = clientDetailRepository.findById(clientId);
-        if (!result.isPresent()) {
-            throw new IdPException(ErrorConstants.INVALID_CLIENT_ID);
-        }
-
-        ClientDetail clientDetail = result.get();
+    private void applyUpdate(ClientDetail clientDetail, ClientDetailUpdateRequest clientDetailUpdateRequest) {
         clientDetail.setName(clientDetailUpdateRequest.getClientName());
         clientDetail.setLogoUri(clientDetailUpdateRequest.getLogoUri());
 
@@ -115,40 +342,6 @@ public class ClientManagementServiceImpl implements ClientManagementService {
         clientDetail.setClientAuthMethods(JSONArray.toJSONString(clientDetailUpdateRequest.getClientAuthMethods()));
         clientDetail.setStatus(clientDetailUpdateRequest.getStatus());
         clientDetail.setUpdatedtimes(LocalDateTime.now(ZoneId.of("UTC")));
-        clientDetail = clientDetailRepository.saveAndFlush(clientDetail);
-
-        var response = new ClientDetailResponse();
-        response.setClientId(clientDetail.getId());
-        response.setStatus(clientDetail.getStatus());
-        return response;
-    }
-
-    @Cacheable(value = Constants.CLIENT_DETAIL_CACHE, key = "#clientId")
-    @Override
-    public io.mosip.idp.core.dto.ClientDetail getClientDetails(String clientId) throws IdPException {
-        Optional<ClientDetail> result = clientDetailRepository.findByIdAndStatus(clientId, CLIENT_ACTIVE_STATUS);
-        if(!result.isPresent())
-            throw new InvalidClientException();
-
-        io.mosip.idp.core.dto.ClientDetail dto = new io.mosip.idp.core.dto.ClientDetail();
-        dto.setId(clientId);
-        dto.setName(result.get().getName());
-        dto.setRpId(result.get().getRpId());
-        dto.setLogoUri(result.get().getLogoUri());
-        dto.setStatus(result.get().getStatus());
-        dto.setPublicKey(result.get().getPublicKey());
-        TypeReference<List<String>> typeReference = new TypeReference<List<String>>() {};
-        try {
-            dto.setClaims(objectMapper.readValue(result.get().getClaims(), typeReference));
-            dto.setAcrValues(objectMapper.readValue(result.get().getAcrValues(), typeReference));
-            dto.setRedirectUris(objectMapper.readValue(result.get().getRedirectUris(), typeReference));
-            dto.setGrantTypes(objectMapper.readValue(result.get().getGrantTypes(), typeReference));
-            dto.setClientAuthMethods(objectMapper.readValue(result.get().getClientAuthMethods(), typeReference));
-        } catch (Exception e) {
-            log.error("Failed to parse json array", e);
-            throw new InvalidClientException();
-        }
-        return dto;
     }
 
     private String getJWKString(Map<String, Object> jwk) throws IdPException {
@@ -160,4 +353,27 @@ public class ClientManagementServiceImpl implements ClientManagementService {
             throw new IdPException(ErrorConstants.INVALID_PUBLIC_KEY);
         }
     }
+
+    private static class BulkItem {
+        private final String clientId;
+        private final ClientDetailCreateRequest createRequest;
+        private final ClientDetailUpdateRequest updateRequest;
+        private final ClientDetailBulkResult result = new ClientDetailBulkResult();
+        private ClientDetail clientDetail;
+
+        private BulkItem(String clientId, ClientDetailCreateRequest createRequest,
+                         ClientDetailUpdateRequest updateRequest) {
+            this.clientId = clientId;
+            this.createRequest = createRequest;
+            this.updateRequest = updateRequest;
+            this.result.setClientId(clientId);
+        }
+
+        private void fail(String errorCode, String errorMessage) {
+            clientDetail = null;
+            result.setStatus(null);
+            result.setErrorCode(errorCode);
+            result.setErrorMessage(errorMessage);
+        }
+    }
 }
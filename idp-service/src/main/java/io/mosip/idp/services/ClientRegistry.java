@@ -0,0 +1,257 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.mosip.idp.cache.CacheInvalidationBus;
+import io.mosip.idp.core.dto.ClientDetail;
+import io.mosip.idp.core.exception.InvalidClientException;
+import io.mosip.idp.entity.ClientDetailProjection;
+import io.mosip.idp.repository.ClientDetailRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.mosip.idp.core.util.Constants.CLIENT_ACTIVE_STATUS;
+
+/**
+ * Optional in-memory registry of all the active clients. When enabled, the clients are bulk loaded at startup into
+ * an immutable snapshot, and client lookups are served only from the snapshot without reaching the database.
+ *
+ * Clients created or updated after the watermark, the latest modified time seen, are polled at the refresh
+ * interval and applied on a copy of the snapshot which is then swapped in. Each poll overlaps the previous one by
+ * the refresh interval, so rows committed late with an older modified time are not missed.
+ *
+ * Clients written through the client management service are applied to the snapshot as soon as the write commits,
+ * and published on the cache invalidation bus so that the other nodes apply them right away instead of on their
+ * next poll. The poll still picks up the changes missed on the bus, within the refresh interval.
+ */
+@Slf4j
+@Service
+public class ClientRegistry {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    static final String INVALIDATION_NAME = "clientregistry";
+
+    @Autowired
+    private ClientDetailRepository clientDetailRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${mosip.idp.client-registry.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mosip.idp.client-registry.refresh-interval-seconds:30}")
+    private long refreshIntervalInSeconds;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), EPOCH);
+    private ScheduledExecutorService refreshExecutor;
+
+    @PostConstruct
+    public void init() {
+        if(!enabled)
+            return;
+
+        snapshot = load();
+        log.info("Client registry loaded with {} active clients", snapshot.clients.size());
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "client-registry-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refreshExecutor.scheduleWithFixedDelay(this::refresh, refreshIntervalInSeconds, refreshIntervalInSeconds,
+                TimeUnit.SECONDS);
+        //clients are reloaded on the refresh thread, not on the thread delivering the bus messages
+        cacheInvalidationBus.subscribe(INVALIDATION_NAME, clientId -> refreshExecutor.execute(() -> {
+            if(clientId == null)
+                refresh();
+            else
+                apply(Collections.singleton(clientId));
+        }));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if(refreshExecutor != null)
+            refreshExecutor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param clientId
+     * @return active client from the snapshot
+     * @throws InvalidClientException if the client is not active in the snapshot
+     */
+    public ClientDetail getClientDetails(String clientId) throws InvalidClientException {
+        ClientDetail clientDetail = snapshot.clients.get(clientId);
+        if(clientDetail == null)
+            throw new InvalidClientException();
+        return clientDetail;
+    }
+
+    /**
+     * Applies the written clients to the snapshot once the current transaction, if any, commits and publishes them
+     * to the other nodes. Publishing node also receives its own message and reloads the clients once more.
+     * @param clientIds ids of the created or updated clients
+     */
+    public void onClientsWritten(Collection<String> clientIds) {
+        if(!enabled || clientIds.isEmpty())
+            return;
+
+        Runnable applyAndPublish = () -> {
+            apply(clientIds);
+            clientIds.forEach(clientId -> cacheInvalidationBus.publish(INVALIDATION_NAME, clientId));
+        };
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyAndPublish.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                applyAndPublish.run();
+            }
+        });
+    }
+
+    /**
+     * Reloads the clients and applies them on a copy of the snapshot, clients no more active or no more found are
+     * removed. Watermark is not moved, the next poll still covers the clients.
+     */
+    synchronized void apply(Collection<String> clientIds) {
+        try {
+            Snapshot current = snapshot;
+            Map<String, ClientDetail> clients = new HashMap<>(current.clients);
+            Set<String> notFound = new HashSet<>(clientIds);
+            for(ClientDetailProjection row : clientDetailRepository.findProjectionByIds(clientIds)) {
+                notFound.remove(row.getId());
+                ClientDetail clientDetail = toActiveClientDetail(row);
+                if(clientDetail == null)
+                    clients.remove(row.getId());
+                else
+                    clients.put(row.getId(), clientDetail);
+            }
+            notFound.forEach(clients::remove);
+            snapshot = new Snapshot(Collections.unmodifiableMap(clients), current.watermark);
+            log.debug("Client registry applied the written clients {}", clientIds);
+        } catch (RuntimeException e) {
+            log.error("Failed to apply the written clients {}, applied on the next refresh", clientIds, e);
+        }
+    }
+
+    /**
+     * Applies the clients modified since the watermark of the current snapshot.
+     */
+    synchronized void refresh() {
+        try {
+            Snapshot current = snapshot;
+            List<ClientDetailProjection> modified = clientDetailRepository.findProjectionModifiedSince(
+                    current.watermark.minusSeconds(refreshIntervalInSeconds));
+
+            Map<String, ClientDetail> clients = null;
+            LocalDateTime watermark = current.watermark;
+            for(ClientDetailProjection row : modified) {
+                watermark = max(watermark, row.getModifiedtimes());
+                ClientDetail clientDetail = toActiveClientDetail(row);
+                if(Objects.equals(clientDetail, current.clients.get(row.getId())))
+                    continue;
+
+                if(clients == null)
+                    clients = new HashMap<>(current.clients);
+                if(clientDetail == null)
+                    clients.remove(row.getId());
+                else
+                    clients.put(row.getId(), clientDetail);
+            }
+
+            if(clients != null) {
+                snapshot = new Snapshot(Collections.unmodifiableMap(clients), watermark);
+                log.info("Client registry refreshed, {} active clients", clients.size());
+            }
+            else if(!watermark.equals(current.watermark))
+                snapshot = new Snapshot(current.clients, watermark);
+        } catch (RuntimeException e) {
+            log.error("Failed to refresh the client registry, serving the previous snapshot", e);
+        }
+    }
+
+    private Snapshot load() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> {
+            Map<String, ClientDetail> clients = new HashMap<>();
+            LocalDateTime watermark = EPOCH;
+            try(Stream<ClientDetailProjection> rows = clientDetailRepository.streamProjectionByStatus(
+                    CLIENT_ACTIVE_STATUS)) {
+                for(ClientDetailProjection row : (Iterable<ClientDetailProjection>) rows::iterator) {
+                    watermark = max(watermark, row.getModifiedtimes());
+                    ClientDetail clientDetail = toActiveClientDetail(row);
+                    if(clientDetail != null)
+                        clients.put(row.getId(), clientDetail);
+                }
+            }
+            return new Snapshot(Collections.unmodifiableMap(clients), watermark);
+        });
+    }
+
+    /**
+     * @return null if the client is not active or its details do not parse
+     */
+    private ClientDetail toActiveClientDetail(ClientDetailProjection row) {
+        if(!CLIENT_ACTIVE_STATUS.equals(row.getStatus()))
+            return null;
+        try {
+            return ClientManagementServiceImpl.toClientDetail(objectMapper, row);
+        } catch (InvalidClientException e) {
+            return null;
+        }
+    }
+
+    private static LocalDateTime max(LocalDateTime watermark, LocalDateTime modifiedtimes) {
+        return modifiedtimes != null && modifiedtimes.isAfter(watermark) ? modifiedtimes : watermark;
+    }
+
+    private static class Snapshot {
+        private final Map<String, ClientDetail> clients;
+        private final LocalDateTime watermark;
+
+        private Snapshot(Map<String, ClientDetail> clients, LocalDateTime watermark) {
+            this.clients = clients;
+            this.watermark = watermark;
+        }
+    }
+}
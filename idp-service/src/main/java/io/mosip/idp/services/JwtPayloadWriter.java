@@ -0,0 +1,206 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import io.mosip.idp.core.spi.TokenService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes the JWT claims of the idp tokens with the jackson streaming generator straight into a byte buffer of the
+ * thread, the buffer is then base64url encoded in place into the signing input of the JWS. Buffers and the
+ * generator are reused by all the tokens signed on the thread, so no intermediate JSON or base64 strings are
+ * created per token.
+ *
+ * Claim names are limited to the fixed set of claims the idp issues. A payload must be signed before the next one
+ * is started on the same thread.
+ */
+public final class JwtPayloadWriter {
+
+    public enum Claim {
+        ISS(TokenService.ISS),
+        SUB(TokenService.SUB),
+        AUD(TokenService.AUD),
+        IAT(TokenService.IAT),
+        EXP(TokenService.EXP),
+        AUTH_TIME(TokenService.AUTH_TIME),
+        NONCE(TokenService.NONCE),
+        ACR(TokenService.ACR),
+        AT_HASH(TokenService.ACCESS_TOKEN_HASH),
+        SCOPE(TokenService.SCOPE);
+
+        private final SerializedString name;
+
+        Claim(String name) {
+            this.name = new SerializedString(name);
+        }
+    }
+
+    /**
+     * Signs the signing input held in the buffer, the returned signature is in the JWS format.
+     */
+    public interface Signer {
+        byte[] sign(byte[] signingInput, int offset, int length);
+    }
+
+    private static final byte[] BASE64URL_ALPHABET = ("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz" +
+            "0123456789-_").getBytes(StandardCharsets.US_ASCII);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    static {
+        //root objects are written back to back on the same generator, one per token
+        JSON_FACTORY.setRootValueSeparator(null);
+    }
+    private static final ThreadLocal<JwtPayloadWriter> WRITERS = ThreadLocal.withInitial(JwtPayloadWriter::new);
+
+    private final Buffer payload = new Buffer(512);
+    private final Buffer token = new Buffer(1024);
+    private JsonGenerator generator;
+
+    private JwtPayloadWriter() {
+        this.generator = createGenerator(payload);
+    }
+
+    /**
+     * @return writer of the current thread with an empty payload
+     */
+    public static JwtPayloadWriter start() {
+        JwtPayloadWriter writer = WRITERS.get();
+        writer.payload.reset();
+        //generator left mid object by a failed payload is not reusable
+        if(!writer.generator.getOutputContext().inRoot())
+            writer.generator = createGenerator(writer.payload);
+        try {
+            writer.generator.writeStartObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write the JWT payload", e);
+        }
+        return writer;
+    }
+
+    /**
+     * @param value claim is not written if null
+     */
+    public JwtPayloadWriter claim(Claim claim, String value) {
+        if(value == null)
+            return this;
+        try {
+            generator.writeFieldName(claim.name);
+            generator.writeString(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write the JWT payload", e);
+        }
+        return this;
+    }
+
+    public JwtPayloadWriter claim(Claim claim, long value) {
+        try {
+            generator.writeFieldName(claim.name);
+            generator.writeNumber(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write the JWT payload", e);
+        }
+        return this;
+    }
+
+    /**
+     * @param encodedHeader base64url encoded JWS header
+     * @param signer signer of the signing input
+     * @return signed JWT in compact serialization
+     */
+    public String sign(byte[] encodedHeader, Signer signer) {
+        try {
+            generator.writeEndObject();
+            generator.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write the JWT payload", e);
+        }
+        token.reset();
+        token.write(encodedHeader, 0, encodedHeader.length);
+        token.write('.');
+        encodeBase64Url(payload.bytes, 0, payload.length, token);
+        byte[] signature = signer.sign(token.bytes, 0, token.length);
+        token.write('.');
+        encodeBase64Url(signature, 0, signature.length, token);
+        return new String(token.bytes, 0, token.length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Unpadded base64url encoding appended to the buffer.
+     */
+    static void encodeBase64Url(byte[] source, int offset, int length, Buffer target) {
+        target.ensureCapacity(target.length + (length * 4 + 2) / 3);
+        byte[] out = target.bytes;
+        int position = target.length;
+        int end = offset + length;
+        int i = offset;
+        for(; i + 2 < end; i += 3) {
+            int bits = (source[i] & 0xff) << 16 | (source[i + 1] & 0xff) << 8 | (source[i + 2] & 0xff);
+            out[position++] = BASE64URL_ALPHABET[bits >>> 18];
+            out[position++] = BASE64URL_ALPHABET[(bits >>> 12) & 0x3f];
+            out[position++] = BASE64URL_ALPHABET[(bits >>> 6) & 0x3f];
+            out[position++] = BASE64URL_ALPHABET[bits & 0x3f];
+        }
+        if(end - i == 1) {
+            int bits = (source[i] & 0xff) << 16;
+            out[position++] = BASE64URL_ALPHABET[bits >>> 18];
+            out[position++] = BASE64URL_ALPHABET[(bits >>> 12) & 0x3f];
+        } else if(end - i == 2) {
+            int bits = (source[i] & 0xff) << 16 | (source[i + 1] & 0xff) << 8;
+            out[position++] = BASE64URL_ALPHABET[bits >>> 18];
+            out[position++] = BASE64URL_ALPHABET[(bits >>> 12) & 0x3f];
+            out[position++] = BASE64URL_ALPHABET[(bits >>> 6) & 0x3f];
+        }
+        target.length = position;
+    }
+
+    private static JsonGenerator createGenerator(Buffer buffer) {
+        try {
+            return JSON_FACTORY.createGenerator(buffer);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create the JSON generator", e);
+        }
+    }
+
+    /**
+     * Growable byte buffer, unlike ByteArrayOutputStream the backing array is accessed without a copy.
+     */
+    static final class Buffer extends OutputStream {
+        private byte[] bytes;
+        private int length;
+
+        Buffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(length + 1);
+            bytes[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] source, int offset, int count) {
+            ensureCapacity(length + count);
+            System.arraycopy(source, offset, bytes, length, count);
+            length += count;
+        }
+
+        void reset() {
+            length = 0;
+        }
+
+        void ensureCapacity(int capacity) {
+            if(capacity > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import com.nimbusds.jose.JOSEException;
+import io.mosip.idp.core.util.IdentityProviderUtil;
+import io.mosip.kernel.keymanagerservice.dto.SignatureCertificate;
+import io.mosip.kernel.keymanagerservice.service.KeymanagerService;
+import io.mosip.kernel.signature.util.SignatureUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.json.simple.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signs the JWTs in process with the signing key of the application, instead of resolving the key alias and
+ * the keystore entry through the keymanager on every call.
+ *
+ * Signing key is loaded once per application and re-resolved from the keymanager only after the key refresh
+ * interval or once the key expires, so a rotated key is picked up within the refresh interval. Each thread reuses
+ * its own initialized Signature instance of the current key. JWS header carries the key id and the certificate
+ * thumbprint, not the full certificate chain.
+ *
+ * With the ES256 and EdDSA signing profiles, JWTs are signed with the configured key loaded at startup in place of
+ * the keymanager key of the application.
+ */
+@Slf4j
+@Service
+public class JwtSigningEngine {
+
+    @Autowired
+    private KeymanagerService keymanagerService;
+
+    @Autowired
+    private LocalSigningKeyStore localSigningKeyStore;
+
+    @Value("${mosip.idp.signing.key-refresh-seconds:300}")
+    private long keyRefreshSeconds;
+
+    private final Map<String, SigningKey> signingKeys = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<SigningKey>> pendingLoads = new ConcurrentHashMap<>();
+
+    /**
+     * @param applicationId keymanager application id of the signing key
+     * @param payload JWT claims
+     * @return signed JWT in compact serialization
+     */
+    public String sign(String applicationId, JSONObject payload) {
+        SigningKey signingKey = getSigningKey(applicationId);
+        String signingInput = signingKey.encodedHeader + "." + IdentityProviderUtil.B64Encode(payload.toJSONString());
+        byte[] signingInputBytes = signingInput.getBytes(StandardCharsets.US_ASCII);
+        return signingInput + "." + IdentityProviderUtil.B64Encode(signingKey.sign(signingInputBytes, 0,
+                signingInputBytes.length));
+    }
+
+    /**
+     * @param applicationId keymanager application id of the signing key
+     * @param payload JWT claims written on the current thread
+     * @return signed JWT in compact serialization
+     */
+    public String sign(String applicationId, JwtPayloadWriter payload) {
+        SigningKey signingKey = getSigningKey(applicationId);
+        return payload.sign(signingKey.encodedHeaderBytes, signingKey::sign);
+    }
+
+    private SigningKey getSigningKey(String applicationId) {
+        SigningKey signingKey = signingKeys.get(applicationId);
+        if(signingKey != null && !signingKey.isStale())
+            return signingKey;
+
+        //only one of the concurrent callers reloads the stale key, the others wait for its load. Keymanager is
+        //called outside of the map compute, so a slow load does not block the other keys of the map
+        CompletableFuture<SigningKey> load = new CompletableFuture<>();
+        CompletableFuture<SigningKey> pendingLoad = pendingLoads.putIfAbsent(applicationId, load);
+        if(pendingLoad != null)
+            return awaitLoad(pendingLoad);
+
+        try {
+            //key could have been reloaded by a load completed before this one was registered
+            signingKey = signingKeys.get(applicationId);
+            if(signingKey == null || signingKey.isStale()) {
+                signingKey = loadSigningKey(applicationId);
+                signingKeys.put(applicationId, signingKey);
+            }
+            load.complete(signingKey);
+            return signingKey;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingLoads.remove(applicationId, load);
+        }
+    }
+
+    private static SigningKey awaitLoad(CompletableFuture<SigningKey> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private SigningKey loadSigningKey(String applicationId) {
+        LocalSigningKeyStore.LocalSigningKey localSigningKey = localSigningKeyStore.getKey(applicationId);
+        if(localSigningKey != null) {
+            //configured key is not rotated, a new key file is picked up on restart
+            return new SigningKey(localSigningKey.getSigningProfile(), localSigningKey.getKeyPair().getPrivate(),
+                    buildHeader(localSigningKey.getSigningProfile(), localSigningKey.getKeyId(), null),
+                    Long.MAX_VALUE);
+        }
+
+        SignatureCertificate signatureCertificate = keymanagerService.getSignatureCertificate(applicationId,
+                Optional.of(""), IdentityProviderUtil.getResponseTime());
+        X509Certificate certificate = signatureCertificate.getCertificateEntry().getChain()[0];
+        PrivateKey privateKey = signatureCertificate.getCertificateEntry().getPrivateKey();
+        long expireAt = signatureCertificate.getExpiryAt() == null ? Long.MAX_VALUE :
+                signatureCertificate.getExpiryAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+        log.info("Loaded signing key {} of {}", signatureCertificate.getUniqueIdentifier(), applicationId);
+        //key id is same as the one listed in the keymanager certificates
+        String keyId = signatureCertificate.getUniqueIdentifier() == null ? null :
+                SignatureUtil.convertHexToBase64(signatureCertificate.getUniqueIdentifier());
+        return new SigningKey(SigningProfile.RS256, privateKey, buildHeader(SigningProfile.RS256, keyId, certificate),
+                Math.min(expireAt, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(keyRefreshSeconds)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String buildHeader(SigningProfile signingProfile, String keyId, X509Certificate certificate) {
+        JSONObject header = new JSONObject();
+        header.put("alg", signingProfile.getAlgorithm().getName());
+        header.put("typ", "JWT");
+        if(keyId != null)
+            header.put("kid", keyId);
+        if(certificate != null) {
+            try {
+                header.put("x5t#S256", IdentityProviderUtil.B64Encode(MessageDigest.getInstance("SHA-256")
+                        .digest(certificate.getEncoded())));
+            } catch (NoSuchAlgorithmException | CertificateEncodingException e) {
+                throw new IllegalStateException("Failed to build the certificate thumbprint", e);
+            }
+        }
+        return IdentityProviderUtil.B64Encode(header.toJSONString());
+    }
+
+    private static class SigningKey {
+        private final SigningProfile signingProfile;
+        private final String encodedHeader;
+        private final byte[] encodedHeaderBytes;
+        private final long refreshAt;
+        private final ThreadLocal<Signature> signatures;
+
+        private SigningKey(SigningProfile signingProfile, PrivateKey privateKey, String encodedHeader,
+                           long refreshAt) {
+            this.signingProfile = signingProfile;
+            this.encodedHeader = encodedHeader;
+            this.encodedHeaderBytes = encodedHeader.getBytes(StandardCharsets.US_ASCII);
+            this.refreshAt = refreshAt;
+            this.signatures = ThreadLocal.withInitial(() -> {
+                try {
+                    Signature signature = signingProfile.newSignature();
+                    signature.initSign(privateKey);
+                    return signature;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Failed to initialize the signature", e);
+                }
+            });
+        }
+
+        private boolean isStale() {
+            return System.currentTimeMillis() >= refreshAt;
+        }
+
+        /**
+         * Signature is reset to its initialized state after signing, hence reused for the next call.
+         */
+        private byte[] sign(byte[] signingInput, int offset, int length) {
+            Signature signature = signatures.get();
+            try {
+                signature.update(signingInput, offset, length);
+                return signingProfile.toJwsSignature(signature.sign());
+            } catch (SignatureException | JOSEException e) {
+                signatures.remove();
+                throw new IllegalStateException("Failed to sign the JWT", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.KycExchangeRequest;
+import io.mosip.idp.core.dto.KycExchangeResult;
+import io.mosip.idp.core.dto.ResponseWrapper;
+import io.mosip.idp.core.spi.AuthenticationWrapper;
+import io.mosip.idp.core.util.Constants;
+import io.mosip.idp.core.util.IdentityProviderUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the KYC exchange of the transaction on the token executor. With prefetch enabled the exchange is started as
+ * soon as the auth code is issued, the token endpoint then only awaits the in-flight exchange.
+ *
+ * In-flight exchanges are held on the node which issued the auth code, successful result is also stored with the
+ * authenticated transaction so the token request served by any other node does not repeat the exchange.
+ */
+@Slf4j
+@Service
+public class KycExchangeService {
+
+    @Autowired
+    private AuthenticationWrapper authenticationWrapper;
+
+    @Autowired
+    private CacheUtilService cacheUtilService;
+
+    @Autowired
+    private ExecutorService tokenExecutor;
+
+    @Value("${mosip.idp.token.kyc-prefetch.enabled:false}")
+    private boolean prefetchEnabled;
+
+    @Value("#{${mosip.idp.cache.expire-in-seconds}}")
+    private Map<String, Integer> cacheExpireInSeconds;
+
+    private Cache<String, Future<ResponseWrapper<KycExchangeResult>>> inFlightExchanges;
+
+    @PostConstruct
+    public void init() {
+        //prefetched exchange is of no use once the auth code expires
+        inFlightExchanges = Caffeine.newBuilder()
+                .expireAfterWrite(cacheExpireInSeconds.getOrDefault(Constants.AUTHENTICATED_CACHE, 60), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Starts the KYC exchange of the transaction with the auth code issued, if prefetch is enabled.
+     * @param transaction transaction with the auth code and the accepted claims set
+     */
+    public void prefetch(IdPTransaction transaction) {
+        if(!prefetchEnabled)
+            return;
+
+        //token executor runs rejected tasks on the caller, prefetch must not delay the auth code response
+        if(tokenExecutor instanceof ThreadPoolExecutor &&
+                ((ThreadPoolExecutor) tokenExecutor).getQueue().remainingCapacity() == 0) {
+            log.warn("Token executor is saturated, skipped KYC exchange prefetch");
+            return;
+        }
+
+        KycExchangeRequest kycExchangeRequest = buildKycExchangeRequest(transaction);
+        String authCode = transaction.getCode();
+        inFlightExchanges.put(transaction.getTransactionId(), tokenExecutor.submit(() -> {
+            ResponseWrapper<KycExchangeResult> exchangeResult = authenticationWrapper.doKycExchange(kycExchangeRequest);
+            if(isSuccessful(exchangeResult) && cacheUtilService.updateAuthCodeTransaction(authCode, stored ->
+                    stored.setEncryptedKyc(exchangeResult.getResponse().getEncryptedKyc())) == null)
+                log.debug("Auth code redeemed or expired before the KYC exchange result is stored");
+            return exchangeResult;
+        }));
+    }
+
+    /**
+     * @param transaction authenticated transaction
+     * @return prefetched exchange of the transaction if any, otherwise a newly started exchange
+     */
+    public Future<ResponseWrapper<KycExchangeResult>> exchange(IdPTransaction transaction) {
+        Future<ResponseWrapper<KycExchangeResult>> exchange = inFlightExchanges.asMap()
+                .remove(transaction.getTransactionId());
+        if(exchange != null)
+            return exchange;
+
+        //prefetched on another node
+        if(transaction.getEncryptedKyc() != null) {
+            KycExchangeResult kycExchangeResult = new KycExchangeResult();
+            kycExchangeResult.setEncryptedKyc(transaction.getEncryptedKyc());
+            ResponseWrapper<KycExchangeResult> exchangeResult = new ResponseWrapper<>();
+            exchangeResult.setResponse(kycExchangeResult);
+            return CompletableFuture.completedFuture(exchangeResult);
+        }
+
+        KycExchangeRequest kycExchangeRequest = buildKycExchangeRequest(transaction);
+        return tokenExecutor.submit(() -> authenticationWrapper.doKycExchange(kycExchangeRequest));
+    }
+
+    private KycExchangeRequest buildKycExchangeRequest(IdPTransaction transaction) {
+        KycExchangeRequest kycExchangeRequest = new KycExchangeRequest();
+        kycExchangeRequest.setClientId(transaction.getClientId());
+        kycExchangeRequest.setKycToken(transaction.getKycToken());
+        kycExchangeRequest.setAcceptedClaims(transaction.getAcceptedClaims());
+        kycExchangeRequest.setClaimsLocales(IdentityProviderUtil.splitAndTrimValue(transaction.getClaimsLocales(),
+                Constants.SPACE));
+        return kycExchangeRequest;
+    }
+
+    private static boolean isSuccessful(ResponseWrapper<KycExchangeResult> exchangeResult) {
+        return exchangeResult != null && (exchangeResult.getErrors() == null || exchangeResult.getErrors().isEmpty())
+                && exchangeResult.getResponse() != null;
+    }
+}
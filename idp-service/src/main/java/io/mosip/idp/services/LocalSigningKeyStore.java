@@ -0,0 +1,159 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWK;
+import io.mosip.idp.core.util.Constants;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.Signature;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Signing keys of the ES256 and EdDSA signing profiles, loaded on bean initialization from the configured key file. All the
+ * nodes are configured with the same key file, so a JWT signed by any node is verifiable on every other node and
+ * across restarts. Key id is the JWK thumbprint of the public key, hence also the same on all the nodes.
+ *
+ * Key file (mosip.idp.signing.key-file) is a resource location, e.g. a mounted secret, of a PEM file with the PKCS#8
+ * private key (PRIVATE KEY) and the X.509 public key (PUBLIC KEY). Startup fails if the signing profile is not RS256
+ * and no key file is configured.
+ *
+ * No key is loaded with the RS256 profile, JWTs are then signed with the keymanager keys.
+ */
+@Slf4j
+@Service
+public class LocalSigningKeyStore {
+
+    @Value("${mosip.idp.signing.profile:RS256}")
+    private SigningProfile signingProfile = SigningProfile.RS256;
+
+    @Value("${mosip.idp.signing.key-file:}")
+    private String keyFile;
+
+    private final Map<String, LocalSigningKey> signingKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Key of the idp service is loaded while the context is built, before the signing engine signs any JWT.
+     */
+    @PostConstruct
+    public void init() {
+        log.info("===================== IDP_SERVICE {} SIGNING KEY CHECK ========================", signingProfile);
+        loadKey(Constants.IDP_SERVICE_APP_ID);
+    }
+
+    public SigningProfile getSigningProfile() {
+        return signingProfile;
+    }
+
+    /**
+     * Loads the signing key of the application from the key file if the signing profile is not RS256.
+     * @param applicationId keymanager application id the key is used in place of
+     * @throws IllegalStateException if no key file is configured or the key file is not a key pair of the profile
+     */
+    public void loadKey(String applicationId) {
+        if(signingProfile == SigningProfile.RS256)
+            return;
+
+        if(keyFile == null || keyFile.trim().isEmpty())
+            throw new IllegalStateException("mosip.idp.signing.key-file is required with the " + signingProfile +
+                    " signing profile");
+
+        try {
+            KeyPair keyPair = readKeyPair(new DefaultResourceLoader().getResource(keyFile.trim()));
+            //thumbprint covers only the required members of the key, not the kid
+            String keyId = signingProfile.toPublicJWK(keyPair.getPublic(), null).computeThumbprint().toString();
+            signingKeys.put(applicationId, new LocalSigningKey(signingProfile, keyPair, keyId,
+                    signingProfile.toPublicJWK(keyPair.getPublic(), keyId)));
+            log.info("Loaded {} signing key {} of {} from {}", signingProfile, keyId, applicationId, keyFile);
+        } catch (IOException | GeneralSecurityException | JOSEException e) {
+            throw new IllegalStateException("Failed to load the " + signingProfile + " signing key from " + keyFile, e);
+        }
+    }
+
+    private KeyPair readKeyPair(Resource resource) throws IOException, GeneralSecurityException {
+        byte[] privateKey = null;
+        byte[] publicKey = null;
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.US_ASCII);
+             PemReader pemReader = new PemReader(reader)) {
+            PemObject pemObject;
+            while ((pemObject = pemReader.readPemObject()) != null) {
+                if("PRIVATE KEY".equals(pemObject.getType()))
+                    privateKey = pemObject.getContent();
+                else if("PUBLIC KEY".equals(pemObject.getType()))
+                    publicKey = pemObject.getContent();
+            }
+        }
+        if(privateKey == null || publicKey == null)
+            throw new IllegalStateException("Key file should have both the PRIVATE KEY and the PUBLIC KEY");
+
+        KeyPair keyPair = signingProfile.toKeyPair(privateKey, publicKey);
+        //a public key not of the private key would sign JWTs that no node verifies
+        byte[] probe = "signing-key-check".getBytes(StandardCharsets.US_ASCII);
+        Signature signature = signingProfile.newSignature();
+        signature.initSign(keyPair.getPrivate());
+        signature.update(probe);
+        byte[] probeSignature = signature.sign();
+        signature.initVerify(keyPair.getPublic());
+        signature.update(probe);
+        if(!signature.verify(probeSignature))
+            throw new IllegalStateException("Public key of the key file is not of its private key");
+        return keyPair;
+    }
+
+    /**
+     * @param applicationId keymanager application id
+     * @return loaded signing key of the application, null if none
+     */
+    public LocalSigningKey getKey(String applicationId) {
+        return signingKeys.get(applicationId);
+    }
+
+    public static class LocalSigningKey {
+        private final SigningProfile signingProfile;
+        private final KeyPair keyPair;
+        private final String keyId;
+        private final JWK publicJWK;
+
+        private LocalSigningKey(SigningProfile signingProfile, KeyPair keyPair, String keyId, JWK publicJWK) {
+            this.signingProfile = signingProfile;
+            this.keyPair = keyPair;
+            this.keyId = keyId;
+            this.publicJWK = publicJWK;
+        }
+
+        public SigningProfile getSigningProfile() {
+            return signingProfile;
+        }
+
+        public KeyPair getKeyPair() {
+            return keyPair;
+        }
+
+        public String getKeyId() {
+            return keyId;
+        }
+
+        public JWK getPublicJWK() {
+            return publicJWK;
+        }
+    }
+}
@@ -14,13 +14,13 @@ import io.mosip.idp.core.util.Constants;
 import io.mosip.idp.core.util.ErrorConstants;
 import io.mosip.idp.core.util.IdentityProviderUtil;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.NotImplementedException;
-import org.jose4j.jwk.JsonWebKeySet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.validation.Valid;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.*;
 
 @Slf4j
 @Service
@@ -30,19 +30,34 @@ public class OAuthServiceImpl implements OAuthService {
     @Autowired
     private ClientManagementService clientManagementService;
 
-    @Autowired
-    private AuthenticationWrapper authenticationWrapper;
-
     @Autowired
     private TokenService tokenService;
 
     @Autowired
     private CacheUtilService cacheUtilService;
 
+    @Autowired
+    private PublicKeyRing publicKeyRing;
+
+    @Autowired
+    private KycExchangeService kycExchangeService;
+
+    @Autowired
+    private SpeculativeTokenMinter speculativeTokenMinter;
+
     @Value("${mosip.idp.access-token.expire.seconds:60}")
     private int accessTokenExpireSeconds;
 
+    @Value("${mosip.idp.token.kyc-exchange-timeout-ms:5000}")
+    private long kycExchangeTimeoutInMillis;
+
 
+    /**
+     * KYC exchange, unless already prefetched with the auth code, runs on the token executor while the access token
+     * and the ID token, which depends only on the access token hash, are signed on the request thread. KYC exchange
+     * is cancelled if it does not complete within the timeout or if the token signing fails. Tokens minted
+     * speculatively with the auth code are returned as is, if not older than the max-age.
+     */
     @Override
     public TokenResponse getTokens(@Valid TokenRequest tokenRequest) throws IdPException {
         IdPTransaction transaction = cacheUtilService.getAuthenticatedTransaction(tokenRequest.getCode());
@@ -61,41 +76,72 @@ public class OAuthServiceImpl implements OAuthService {
 
         IdentityProviderUtil.validateRedirectURI(clientDetailDto.getRedirectUris(), tokenRequest.getRedirect_uri());
 
-        KycExchangeRequest kycExchangeRequest = new KycExchangeRequest();
-        kycExchangeRequest.setClientId(tokenRequest.getClient_id());
-        kycExchangeRequest.setKycToken(transaction.getKycToken());
-        kycExchangeRequest.setAcceptedClaims(transaction.getAcceptedClaims());
-        kycExchangeRequest.setClaimsLocales(IdentityProviderUtil.splitAndTrimValue(transaction.getClaimsLocales(), Constants.SPACE));
-        ResponseWrapper<KycExchangeResult> exchangeResult = authenticationWrapper.doKycExchange(kycExchangeRequest);
+        Future<ResponseWrapper<KycExchangeResult>> kycExchange = kycExchangeService.exchange(transaction);
+
+        TokenResponse tokenResponse = new TokenResponse();
+        String accessTokenHash;
+        ResponseWrapper<KycExchangeResult> exchangeResult;
+        try {
+            if(speculativeTokenMinter.hasFreshTokens(transaction)) {
+                tokenResponse.setAccess_token(transaction.getMintedAccessToken());
+                accessTokenHash = IdentityProviderUtil.generateOIDCAtHash(tokenResponse.getAccess_token());
+                tokenResponse.setId_token(transaction.getMintedIdToken());
+            } else {
+                tokenResponse.setAccess_token(tokenService.getAccessToken(transaction));
+                accessTokenHash = IdentityProviderUtil.generateOIDCAtHash(tokenResponse.getAccess_token());
+                transaction.setAHash(accessTokenHash);
+                tokenResponse.setId_token(tokenService.getIDToken(transaction));
+            }
+            exchangeResult = awaitKycExchange(kycExchange);
+        } finally {
+            kycExchange.cancel(true);
+        }
 
         if(exchangeResult.getErrors() != null && !exchangeResult.getErrors().isEmpty()) {
             throw new IdPException(exchangeResult.getErrors().get(0).getErrorCode());
         }
 
-        TokenResponse tokenResponse = new TokenResponse();
-        tokenResponse.setAccess_token(tokenService.getAccessToken(transaction));
-        String accessTokenHash = IdentityProviderUtil.generateOIDCAtHash(tokenResponse.getAccess_token());
-        transaction.setAHash(accessTokenHash);
-        tokenResponse.setId_token(tokenService.getIDToken(transaction));
         tokenResponse.setExpires_in(accessTokenExpireSeconds);
         tokenResponse.setToken_type(Constants.BEARER);
 
         // cache kyc with access-token as key
         transaction.setEncryptedKyc(exchangeResult.getResponse().getEncryptedKyc());
-        cacheUtilService.setKycTransaction(accessTokenHash, transaction);
+        transaction.setMintedAccessToken(null);
+        transaction.setMintedIdToken(null);
+        if(cacheUtilService.setKycTransaction(accessTokenHash, transaction) == null)
+            throw new NotAuthenticatedException();
 
         return tokenResponse;
     }
 
     @Override
-    public JsonWebKeySet getJwks() {
-        throw new NotImplementedException("Under implementation...");
+    public JwksDocument getJwks() {
+        return publicKeyRing.getJwks(Constants.IDP_SERVICE_APP_ID);
+    }
+
+    private ResponseWrapper<KycExchangeResult> awaitKycExchange(Future<ResponseWrapper<KycExchangeResult>> kycExchange)
+            throws IdPException {
+        try {
+            return kycExchange.get(kycExchangeTimeoutInMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.error("KYC exchange did not complete in {} ms", kycExchangeTimeoutInMillis);
+            throw new IdPException(ErrorConstants.KYC_EXCHANGE_TIMEOUT);
+        } catch (ExecutionException e) {
+            //error of the authentication wrapper is passed on as is, the same as when run on the request thread
+            if(e.getCause() instanceof IdPException)
+                throw (IdPException) e.getCause();
+            log.error("KYC exchange failed", e.getCause());
+            throw new IdPException(ErrorConstants.UNKNOWN_ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdPException(ErrorConstants.UNKNOWN_ERROR);
+        }
     }
 
     private void authenticateClient(TokenRequest tokenRequest, ClientDetail clientDetail) throws IdPException {
         switch (tokenRequest.getClient_assertion_type()) {
             case JWT_BEARER_TYPE:
-                validateJwtClientAssertion(clientDetail.getId(), clientDetail.getPublicKey(), tokenRequest.getClient_assertion());
+                validateJwtClientAssertion(clientDetail.getId(), clientDetail.getParsedPublicKey(), tokenRequest.getClient_assertion());
                 break;
             default:
                 throw new IdPException(ErrorConstants.INVALID_ASSERTION_TYPE);
@@ -103,12 +149,12 @@ public class OAuthServiceImpl implements OAuthService {
     }
 
 
-    private void validateJwtClientAssertion(String ClientId, String jwk, String clientAssertion) throws IdPException {
+    private void validateJwtClientAssertion(String ClientId, RSAPublicKey publicKey, String clientAssertion) throws IdPException {
         if(clientAssertion == null || clientAssertion.isBlank())
             throw new IdPException(ErrorConstants.INVALID_ASSERTION);
 
         //verify signature
         //on valid signature, verify each claims on JWT payload
-        tokenService.verifyClientAssertionToken(ClientId, jwk, clientAssertion);
+        tokenService.verifyClientAssertionToken(ClientId, publicKey, clientAssertion);
     }
 }
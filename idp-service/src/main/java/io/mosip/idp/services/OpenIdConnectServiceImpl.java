@@ -16,21 +16,43 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
 @Service
 public class OpenIdConnectServiceImpl implements io.mosip.idp.core.spi.OpenIdConnectService {
 
+    private static final String ID_TOKEN_SIGNING_ALGS = "id_token_signing_alg_values_supported";
+
     @Autowired
     private TokenService tokenService;
 
     @Autowired
     private CacheUtilService cacheUtilService;
 
+    @Autowired
+    private LocalSigningKeyStore localSigningKeyStore;
+
     @Value("#{${mosip.idp.discovery.key-values}}")
     private Map<String, Object> discoveryMap;
 
+    /**
+     * Advertises the algorithm of the signing profile, RS256 is always listed as required by the OIDC discovery spec.
+     */
+    @PostConstruct
+    public void init() {
+        List<String> signingAlgorithms = new ArrayList<>();
+        signingAlgorithms.add(localSigningKeyStore.getSigningProfile().getAlgorithm().getName());
+        if(!signingAlgorithms.contains(SigningProfile.RS256.name()))
+            signingAlgorithms.add(SigningProfile.RS256.name());
+        //inline map of the property is not modifiable
+        discoveryMap = new LinkedHashMap<>(discoveryMap);
+        discoveryMap.put(ID_TOKEN_SIGNING_ALGS, signingAlgorithms);
+    }
 
     @Override
     public String getUserInfo(String accessToken) throws IdPException {
@@ -49,7 +71,8 @@ public class OpenIdConnectServiceImpl implements io.mosip.idp.core.spi.OpenIdCon
         if(transaction == null)
             throw new NotAuthenticatedException();
 
-        tokenService.verifyAccessToken(transaction.getClientId(), transaction.getPartnerSpecificUserToken(), tokenParts[1]);
+        tokenService.verifyAccessToken(transaction.getClientId(), transaction.getPartnerSpecificUserToken(),
+                tokenParts[1], accessTokenHash);
         return transaction.getEncryptedKyc();
     }
 
@@ -0,0 +1,195 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import io.mosip.idp.core.dto.JwksDocument;
+import io.mosip.idp.core.util.IdentityProviderUtil;
+import io.mosip.kernel.keymanagerservice.dto.AllCertificatesDataResponseDto;
+import io.mosip.kernel.keymanagerservice.dto.CertificateDataResponseDto;
+import io.mosip.kernel.keymanagerservice.service.KeymanagerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory ring of the public keys of an application keyed by the key id, used to verify the JWTs signed by
+ * the idp locally. Certificates are loaded from the keymanager once and reloaded after the key refresh interval.
+ * An unknown key id triggers an early reload, at most once per min-reload interval, to pick up a rotated key.
+ *
+ * Serialized JWK set of the keys and its ETag are built along with the key ring, so the key set document is
+ * built only when the keys are reloaded. Configured key of the ES256 or EdDSA signing profile is listed along with
+ * the keymanager keys.
+ *
+ * Generation of the key ring is incremented whenever a reload changes the set of key ids of an application, the
+ * outcomes of verifications done with an older generation are not to be reused.
+ */
+@Slf4j
+@Service
+public class PublicKeyRing {
+
+    @Autowired
+    private KeymanagerService keymanagerService;
+
+    @Autowired
+    private LocalSigningKeyStore localSigningKeyStore;
+
+    @Value("${mosip.idp.signing.key-refresh-seconds:300}")
+    private long keyRefreshSeconds;
+
+    @Value("${mosip.idp.signing.key-ring.min-reload-seconds:10}")
+    private long minReloadSeconds;
+
+    private final Map<String, KeyRing> keyRings = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<KeyRing>> pendingReloads = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param applicationId keymanager application id of the signing key
+     * @param keyId kid of the JWS header
+     * @return reusable verifier of the key, null if no such key
+     */
+    public JWSVerifier getVerifier(String applicationId, String keyId) {
+        KeyRing keyRing = keyRings.get(applicationId);
+        if(keyRing == null || keyRing.isStale(keyRefreshSeconds) ||
+                (!keyRing.verifiers.containsKey(keyId) && keyRing.isStale(minReloadSeconds)))
+            keyRing = reload(applicationId, keyRing);
+        return keyRing.verifiers.get(keyId);
+    }
+
+    /**
+     * @param applicationId keymanager application id of the signing key
+     * @return JWK set of all the public keys of the application
+     */
+    public JwksDocument getJwks(String applicationId) {
+        KeyRing keyRing = keyRings.get(applicationId);
+        if(keyRing == null || keyRing.isStale(keyRefreshSeconds))
+            keyRing = reload(applicationId, keyRing);
+        return keyRing.jwksDocument;
+    }
+
+    /**
+     * @return current generation of the key rings of all the applications
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    private KeyRing reload(String applicationId, KeyRing stale) {
+        //only one of the concurrent callers reloads the key ring, the others wait for the same reload. Keymanager
+        //is not called within a compute of the key ring map, which would hold its lock for the whole call
+        CompletableFuture<KeyRing> reload = new CompletableFuture<>();
+        CompletableFuture<KeyRing> pendingReload = pendingReloads.putIfAbsent(applicationId, reload);
+        if(pendingReload != null)
+            return awaitReload(pendingReload);
+
+        try {
+            //key ring could have been replaced by a reload completed before this one was registered
+            KeyRing current = keyRings.get(applicationId);
+            KeyRing keyRing = current;
+            if(current == null || current == stale) {
+                keyRing = loadKeyRing(applicationId);
+                if(current != null && !current.verifiers.keySet().equals(keyRing.verifiers.keySet()))
+                    generation.incrementAndGet();
+                keyRings.put(applicationId, keyRing);
+            }
+            reload.complete(keyRing);
+            return keyRing;
+        } catch (RuntimeException e) {
+            reload.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingReloads.remove(applicationId, reload);
+        }
+    }
+
+    private static KeyRing awaitReload(CompletableFuture<KeyRing> reload) {
+        try {
+            return reload.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private KeyRing loadKeyRing(String applicationId) {
+        AllCertificatesDataResponseDto certificates = keymanagerService.getAllCertificates(applicationId,
+                Optional.of(""));
+        Map<String, JWSVerifier> verifiers = new HashMap<>();
+        List<JWK> keys = new ArrayList<>();
+        try {
+            CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+            for(CertificateDataResponseDto certificateData : certificates.getAllCertificates()) {
+                X509Certificate certificate = (X509Certificate) certificateFactory.generateCertificate(
+                        new ByteArrayInputStream(certificateData.getCertificateData().getBytes(StandardCharsets.UTF_8)));
+                verifiers.put(certificateData.getKeyId(), new RSASSAVerifier((RSAPublicKey) certificate.getPublicKey()));
+                keys.add(new RSAKey.Builder(RSAKey.parse(certificate))
+                        .keyID(certificateData.getKeyId())
+                        .keyUse(KeyUse.SIGNATURE)
+                        .algorithm(JWSAlgorithm.RS256)
+                        .build());
+            }
+            LocalSigningKeyStore.LocalSigningKey localSigningKey = localSigningKeyStore.getKey(applicationId);
+            if(localSigningKey != null) {
+                verifiers.put(localSigningKey.getKeyId(), localSigningKey.getSigningProfile()
+                        .newVerifier(localSigningKey.getKeyPair().getPublic()));
+                keys.add(localSigningKey.getPublicJWK());
+            }
+        } catch (CertificateException | JOSEException e) {
+            log.error("Failed to parse the certificates of {}", applicationId, e);
+            throw new IllegalStateException("Failed to load the key ring", e);
+        }
+        log.info("Loaded {} public keys of {}", verifiers.size(), applicationId);
+        return new KeyRing(Collections.unmodifiableMap(verifiers), buildJwksDocument(new JWKSet(keys)));
+    }
+
+    private static JwksDocument buildJwksDocument(JWKSet jwkSet) {
+        byte[] content = jwkSet.toString(true).getBytes(StandardCharsets.UTF_8);
+        try {
+            String eTag = "\"" + IdentityProviderUtil.B64Encode(MessageDigest.getInstance("SHA-256").digest(content)) + "\"";
+            return new JwksDocument(content, eTag);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to build the JWKS ETag", e);
+        }
+    }
+
+    private static class KeyRing {
+        private final Map<String, JWSVerifier> verifiers;
+        private final JwksDocument jwksDocument;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private KeyRing(Map<String, JWSVerifier> verifiers, JwksDocument jwksDocument) {
+            this.verifiers = verifiers;
+            this.jwksDocument = jwksDocument;
+        }
+
+        private boolean isStale(long ageInSeconds) {
+            return System.currentTimeMillis() - loadedAt >= TimeUnit.SECONDS.toMillis(ageInSeconds);
+        }
+    }
+}
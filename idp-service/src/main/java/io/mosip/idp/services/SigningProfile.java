@@ -0,0 +1,155 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.crypto.impl.ECDSA;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.jwk.*;
+import com.nimbusds.jose.util.Base64URL;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.security.*;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * JWS algorithms the idp signs the JWTs with (mosip.idp.signing.profile). RS256 keys are issued by the keymanager,
+ * ES256 (P-256) and EdDSA (Ed25519) keys are configured key material shared by all the nodes, as the keymanager
+ * issues only RSA keys.
+ */
+public enum SigningProfile {
+
+    RS256(JWSAlgorithm.RS256, "SHA256withRSA", null),
+    ES256(JWSAlgorithm.ES256, "SHA256withECDSA", null),
+    //Ed25519 is part of the JDK only from 15
+    EdDSA(JWSAlgorithm.EdDSA, "Ed25519", new BouncyCastleProvider());
+
+    private static final int ED25519_KEY_LENGTH = 32;
+
+    private final JWSAlgorithm algorithm;
+    private final String signatureAlgorithm;
+    private final Provider provider;
+
+    SigningProfile(JWSAlgorithm algorithm, String signatureAlgorithm, Provider provider) {
+        this.algorithm = algorithm;
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.provider = provider;
+    }
+
+    public JWSAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public Signature newSignature() throws NoSuchAlgorithmException {
+        return provider == null ? Signature.getInstance(signatureAlgorithm) :
+                Signature.getInstance(signatureAlgorithm, provider);
+    }
+
+    /**
+     * @param privateKey PKCS#8 encoded private key
+     * @param publicKey X.509 encoded public key
+     */
+    public KeyPair toKeyPair(byte[] privateKey, byte[] publicKey) throws GeneralSecurityException {
+        KeyFactory keyFactory;
+        switch (this) {
+            case ES256:
+                keyFactory = KeyFactory.getInstance("EC");
+                break;
+            case EdDSA:
+                keyFactory = KeyFactory.getInstance("Ed25519", provider);
+                break;
+            default:
+                throw new IllegalStateException("RS256 keys are issued by the keymanager");
+        }
+        return new KeyPair(keyFactory.generatePublic(new X509EncodedKeySpec(publicKey)),
+                keyFactory.generatePrivate(new PKCS8EncodedKeySpec(privateKey)));
+    }
+
+    /**
+     * JCA ECDSA signature is DER encoded, JWS expects the R and S values concatenated.
+     */
+    public byte[] toJwsSignature(byte[] signature) throws JOSEException {
+        return this == ES256 ? ECDSA.transcodeSignatureToConcat(signature,
+                ECDSA.getSignatureByteArrayLength(algorithm)) : signature;
+    }
+
+    public JWK toPublicJWK(PublicKey publicKey, String keyId) {
+        switch (this) {
+            case ES256:
+                return new ECKey.Builder(Curve.P_256, (ECPublicKey) publicKey)
+                        .keyID(keyId).keyUse(KeyUse.SIGNATURE).algorithm(algorithm).build();
+            case EdDSA:
+                //raw public key is the trailing bytes of the X.509 encoded key
+                byte[] encoded = publicKey.getEncoded();
+                return new OctetKeyPair.Builder(Curve.Ed25519, Base64URL.encode(Arrays.copyOfRange(encoded,
+                        encoded.length - ED25519_KEY_LENGTH, encoded.length)))
+                        .keyID(keyId).keyUse(KeyUse.SIGNATURE).algorithm(algorithm).build();
+            default:
+                return new RSAKey.Builder((RSAPublicKey) publicKey)
+                        .keyID(keyId).keyUse(KeyUse.SIGNATURE).algorithm(algorithm).build();
+        }
+    }
+
+    public JWSVerifier newVerifier(PublicKey publicKey) throws JOSEException {
+        switch (this) {
+            case ES256:
+                return new ECDSAVerifier((ECPublicKey) publicKey);
+            case EdDSA:
+                return new EdDSAVerifier(this, publicKey);
+            default:
+                return new RSASSAVerifier((RSAPublicKey) publicKey);
+        }
+    }
+
+    /**
+     * JCA based Ed25519 verifier, nimbus Ed25519Verifier depends on Tink which is not on the classpath.
+     */
+    private static class EdDSAVerifier implements JWSVerifier {
+        private final SigningProfile profile;
+        private final PublicKey publicKey;
+        private final JCAContext jcaContext = new JCAContext();
+
+        private EdDSAVerifier(SigningProfile profile, PublicKey publicKey) {
+            this.profile = profile;
+            this.publicKey = publicKey;
+        }
+
+        @Override
+        public boolean verify(JWSHeader header, byte[] signingInput, Base64URL signature) throws JOSEException {
+            if(!profile.algorithm.equals(header.getAlgorithm()))
+                return false;
+            try {
+                Signature verifier = profile.newSignature();
+                verifier.initVerify(publicKey);
+                verifier.update(signingInput);
+                return verifier.verify(signature.decode());
+            } catch (GeneralSecurityException e) {
+                throw new JOSEException("Failed to verify the EdDSA signature", e);
+            }
+        }
+
+        @Override
+        public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+            return Collections.singleton(profile.algorithm);
+        }
+
+        @Override
+        public JCAContext getJCAContext() {
+            return jcaContext;
+        }
+    }
+}
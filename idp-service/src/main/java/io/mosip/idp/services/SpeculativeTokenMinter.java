@@ -0,0 +1,96 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.exception.IdPException;
+import io.mosip.idp.core.spi.TokenService;
+import io.mosip.idp.core.util.IdentityProviderUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Signs the access token and the ID token in the background as soon as the auth code is issued, all the claims
+ * of both the tokens are known by then. Tokens are stored with the authenticated transaction and returned by the
+ * token endpoint as is, unless they are older than the max-age, in which case the tokens are signed again at
+ * redemption so the expiry is not cut short.
+ *
+ * Minting is best effort, it is skipped when the token executor is saturated and the stored tokens are dropped
+ * if the auth code is redeemed before they are signed.
+ */
+@Slf4j
+@Service
+public class SpeculativeTokenMinter {
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private CacheUtilService cacheUtilService;
+
+    @Autowired
+    private ExecutorService tokenExecutor;
+
+    @Value("${mosip.idp.token.speculative-minting.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mosip.idp.token.speculative-minting.max-age-seconds:10}")
+    private long maxAgeInSeconds;
+
+    /**
+     * @param authCode auth code issued on the transaction
+     */
+    public void mintAsync(String authCode) {
+        if(!enabled)
+            return;
+
+        //token executor runs rejected tasks on the caller, speculative work must not delay the auth code response
+        if(tokenExecutor instanceof ThreadPoolExecutor &&
+                ((ThreadPoolExecutor) tokenExecutor).getQueue().remainingCapacity() == 0) {
+            log.warn("Token executor is saturated, skipped speculative minting");
+            return;
+        }
+        tokenExecutor.execute(() -> mint(authCode));
+    }
+
+    /**
+     * @param transaction authenticated transaction
+     * @return true if the transaction carries the tokens minted within the max-age
+     */
+    public boolean hasFreshTokens(IdPTransaction transaction) {
+        return transaction.getMintedAccessToken() != null && transaction.getMintedIdToken() != null &&
+                IdentityProviderUtil.getEpochSeconds() - transaction.getMintedAtInSeconds() <= maxAgeInSeconds;
+    }
+
+    private void mint(String authCode) {
+        try {
+            IdPTransaction transaction = cacheUtilService.getAuthenticatedTransaction(authCode);
+            if(transaction == null)
+                return;
+
+            //issue time is taken before signing, so the age of the tokens is never under estimated
+            long mintedAt = IdentityProviderUtil.getEpochSeconds();
+            String accessToken = tokenService.getAccessToken(transaction);
+            //access token hash is set on the transaction only on redemption
+            String idToken = tokenService.getIDToken(transaction.toBuilder()
+                    .aHash(IdentityProviderUtil.generateOIDCAtHash(accessToken))
+                    .build());
+            if(cacheUtilService.updateAuthCodeTransaction(authCode, stored -> {
+                stored.setMintedAccessToken(accessToken);
+                stored.setMintedIdToken(idToken);
+                stored.setMintedAtInSeconds(mintedAt);
+            }) == null)
+                log.debug("Auth code redeemed or expired before the tokens are minted");
+        } catch (IdPException | RuntimeException e) {
+            log.error("Speculative token minting failed", e);
+        }
+    }
+}
@@ -6,19 +6,23 @@
 package io.mosip.idp.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.JWSVerifier;
 import com.nimbusds.jose.jwk.RSAKey;
-import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.proc.JWSKeySelector;
-import com.nimbusds.jose.proc.JWSVerificationKeySelector;
-import com.nimbusds.jwt.JWT;
+import com.nimbusds.jose.proc.SingleKeyJWSKeySelector;
 import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.BadJWTException;
 import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
 import com.nimbusds.jwt.proc.DefaultJWTClaimsVerifier;
 import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 import com.nimbusds.jwt.proc.JWTClaimsSetVerifier;
+import io.mosip.idp.cache.CacheInvalidationBus;
 import io.mosip.idp.core.dto.IdPTransaction;
 import io.mosip.idp.core.exception.IdPException;
 import io.mosip.idp.core.exception.NotAuthenticatedException;
@@ -26,8 +30,7 @@ import io.mosip.idp.core.spi.TokenService;
 import io.mosip.idp.core.util.Constants;
 import io.mosip.idp.core.util.ErrorConstants;
 import io.mosip.idp.core.util.IdentityProviderUtil;
-import io.mosip.kernel.signature.dto.JWTSignatureRequestDto;
-import io.mosip.kernel.signature.dto.JWTSignatureResponseDto;
+import io.mosip.idp.services.JwtPayloadWriter.Claim;
 import io.mosip.kernel.signature.dto.JWTSignatureVerifyRequestDto;
 import io.mosip.kernel.signature.dto.JWTSignatureVerifyResponseDto;
 import io.mosip.kernel.signature.service.SignatureService;
@@ -38,7 +41,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static io.mosip.idp.core.util.Constants.SPACE;
 
@@ -49,6 +56,15 @@ public class TokenServiceImpl implements TokenService {
     @Autowired
     private SignatureService signatureService;
 
+    @Autowired
+    private JwtSigningEngine jwtSigningEngine;
+
+    @Autowired
+    private PublicKeyRing publicKeyRing;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -64,6 +80,12 @@ public class TokenServiceImpl implements TokenService {
     @Value("${mosip.idp.client-assertion.expire.seconds:60}")
     private int clientAssertionExpireSeconds;
 
+    @Value("${mosip.idp.client-assertion.processor-cache-size:1000}")
+    private long clientAssertionProcessorCacheSize;
+
+    @Value("${mosip.idp.access-token.verified-cache-size:10000}")
+    private long verifiedAccessTokenCacheSize;
+
     @Value("${mosip.idp.discovery.issuer-id}")
     private String issuerId;
 
@@ -72,6 +94,12 @@ public class TokenServiceImpl implements TokenService {
 
     private static Set<String> REQUIRED_CLIENT_ASSERTION_CLAIMS;
 
+    private JWTClaimsSetVerifier accessTokenClaimsVerifier;
+
+    private Cache<String, ClientAssertionProcessor> clientAssertionProcessors;
+
+    private Cache<String, VerifiedAccessToken> verifiedAccessTokens;
+
     static {
         REQUIRED_CLIENT_ASSERTION_CLAIMS = new HashSet<>();
         REQUIRED_CLIENT_ASSERTION_CLAIMS.add("sub");
@@ -81,57 +109,100 @@ public class TokenServiceImpl implements TokenService {
         REQUIRED_CLIENT_ASSERTION_CLAIMS.add("iat");
     }
 
+    /**
+     * Issuer and the required claims are same for all the access tokens, audience and subject are checked per call.
+     */
+    @PostConstruct
+    public void init() {
+        accessTokenClaimsVerifier = new DefaultJWTClaimsVerifier(new JWTClaimsSet.Builder()
+                .issuer(issuerId)
+                .build(), REQUIRED_CLIENT_ASSERTION_CLAIMS);
+        clientAssertionProcessors = Caffeine.newBuilder()
+                .maximumSize(clientAssertionProcessorCacheSize)
+                .build();
+        verifiedAccessTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedAccessTokenCacheSize)
+                .expireAfter(new Expiry<String, VerifiedAccessToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedAccessToken value, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expireAt - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedAccessToken value, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedAccessToken value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        //client details evicted on update, on any node, drop the processor built with the old key
+        cacheInvalidationBus.subscribe(Constants.CLIENT_DETAIL_CACHE, clientId -> {
+            if(clientId == null)
+                clientAssertionProcessors.invalidateAll();
+            else
+                clientAssertionProcessors.invalidate(clientId);
+        });
+    }
+
 
     @Override
     public String getIDToken(@NonNull IdPTransaction transaction) {
-        JSONObject payload = new JSONObject();
-        payload.put(ISS, issuerId);
-        payload.put(SUB, transaction.getPartnerSpecificUserToken());
-        payload.put(AUD, transaction.getClientId());
         long issueTime = IdentityProviderUtil.getEpochSeconds();
-        payload.put(IAT, issueTime);
-        payload.put(EXP, issueTime + (idTokenExpireSeconds<=0 ? 3600 : idTokenExpireSeconds));
-        payload.put(AUTH_TIME, transaction.getAuthTimeInSeconds());
-        payload.put(NONCE, transaction.getNonce());
         String[] acrs = transaction.getRequestedClaims().getId_token().get(ACR).getValues();
-        payload.put(ACR, String.join(SPACE, acrs));
-        payload.put(ACCESS_TOKEN_HASH, transaction.getAHash());
-        return getSignedJWT(Constants.IDP_SERVICE_APP_ID, payload);
+        JwtPayloadWriter payload = JwtPayloadWriter.start()
+                .claim(Claim.ISS, issuerId)
+                .claim(Claim.SUB, transaction.getPartnerSpecificUserToken())
+                .claim(Claim.AUD, transaction.getClientId())
+                .claim(Claim.IAT, issueTime)
+                .claim(Claim.EXP, issueTime + (idTokenExpireSeconds<=0 ? 3600 : idTokenExpireSeconds))
+                .claim(Claim.AUTH_TIME, transaction.getAuthTimeInSeconds())
+                .claim(Claim.NONCE, transaction.getNonce())
+                .claim(Claim.ACR, String.join(SPACE, acrs))
+                .claim(Claim.AT_HASH, transaction.getAHash());
+        return jwtSigningEngine.sign(Constants.IDP_SERVICE_APP_ID, payload);
     }
 
     @Override
     public String getAccessToken(IdPTransaction transaction) {
-        JSONObject payload = new JSONObject();
-        payload.put(ISS, issuerId);
-        payload.put(SUB, transaction.getPartnerSpecificUserToken());
-        payload.put(AUD, transaction.getClientId());
         long issueTime = IdentityProviderUtil.getEpochSeconds();
-        payload.put(IAT, issueTime);
+        JwtPayloadWriter payload = JwtPayloadWriter.start()
+                .claim(Claim.ISS, issuerId)
+                .claim(Claim.SUB, transaction.getPartnerSpecificUserToken())
+                .claim(Claim.AUD, transaction.getClientId())
+                .claim(Claim.IAT, issueTime);
         //TODO Need to discuss -> jsonObject.put(JTI, transaction.getUserToken());
         if(transaction.getPermittedScopes() != null)
-            payload.put(SCOPE, String.join(SPACE, transaction.getPermittedScopes()));
-        payload.put(EXP, issueTime + (accessTokenExpireSeconds<=0 ? 3600 : accessTokenExpireSeconds));
-        return getSignedJWT(Constants.IDP_SERVICE_APP_ID, payload);
+            payload.claim(Claim.SCOPE, String.join(SPACE, transaction.getPermittedScopes()));
+        payload.claim(Claim.EXP, issueTime + (accessTokenExpireSeconds<=0 ? 3600 : accessTokenExpireSeconds));
+        return jwtSigningEngine.sign(Constants.IDP_SERVICE_APP_ID, payload);
     }
 
     @Override
     public void verifyClientAssertionToken(String clientId, String jwk, String clientAssertion) throws IdPException {
+        RSAPublicKey publicKey;
+        try {
+            publicKey = RSAKey.parse(jwk).toRSAPublicKey();
+        } catch (ParseException | JOSEException e) {
+            log.error("Failed to parse client public key", e);
+            throw new IdPException(ErrorConstants.INVALID_ASSERTION);
+        }
+        verifyClientAssertionToken(clientId, publicKey, clientAssertion);
+    }
+
+    @Override
+    public void verifyClientAssertionToken(String clientId, RSAPublicKey publicKey, String clientAssertion)
+            throws IdPException {
         if(clientAssertion == null)
             throw new IdPException(ErrorConstants.INVALID_ASSERTION);
 
         try {
-            JWSKeySelector keySelector = new JWSVerificationKeySelector(JWSAlgorithm.RS256,
-                    new ImmutableJWKSet(new JWKSet(RSAKey.parse(jwk))));
-            JWTClaimsSetVerifier claimsSetVerifier = new DefaultJWTClaimsVerifier(new JWTClaimsSet.Builder()
-                    .audience(issuerId)
-                    .issuer(clientId)
-                    .subject(clientId)
-                    .build(), REQUIRED_CLIENT_ASSERTION_CLAIMS);
-
-            ConfigurableJWTProcessor jwtProcessor = new DefaultJWTProcessor();
-            jwtProcessor.setJWSKeySelector(keySelector);
-            jwtProcessor.setJWTClaimsSetVerifier(claimsSetVerifier);
-            jwtProcessor.process(clientAssertion, null); //If invalid throws exception
+            getClientAssertionProcessor(clientId, publicKey).process(clientAssertion, null); //If invalid throws exception
         } catch (Exception e) {
             log.error("Failed to verify client assertion", e);
             throw new IdPException(ErrorConstants.INVALID_ASSERTION);
@@ -140,18 +211,51 @@ public class TokenServiceImpl implements TokenService {
 
     @Override
     public void verifyAccessToken(String clientId, String subject, String accessToken) throws NotAuthenticatedException {
-        if(!isSignatureValid(accessToken)) {
+        String accessTokenHash;
+        try {
+            accessTokenHash = IdentityProviderUtil.generateOIDCAtHash(accessToken);
+        } catch (IdPException e) {
+            log.error("Failed to hash access token", e);
+            throw new NotAuthenticatedException();
+        }
+        verifyAccessToken(clientId, subject, accessToken, accessTokenHash);
+    }
+
+    /**
+     * Access token is parsed once and verified locally with the key selected by its kid from the key ring.
+     * Tokens without kid are verified through the keymanager.
+     *
+     * Successful verification is cached against the access token hash until the token expires, repeated calls with
+     * the same token only match the audience and subject. Cached outcome is not used once the key ring generation
+     * changes. Token is revoked by removing its kyc transaction, which is looked up before the verification.
+     */
+    @Override
+    public void verifyAccessToken(String clientId, String subject, String accessToken, String accessTokenHash)
+            throws NotAuthenticatedException {
+        VerifiedAccessToken verified = verifiedAccessTokens.getIfPresent(accessTokenHash);
+        if(verified != null && verified.isValidFor(accessToken, clientId, subject, publicKeyRing.getGeneration()))
+            return;
+
+        long keyRingGeneration = publicKeyRing.getGeneration();
+        SignedJWT jwt;
+        try {
+            jwt = SignedJWT.parse(accessToken);
+        } catch (Exception e) {
+            log.error("Failed to parse access token", e);
+            throw new NotAuthenticatedException();
+        }
+
+        if(!isSignatureValid(jwt, accessToken)) {
             log.error("Access token signature verification failed");
             throw new NotAuthenticatedException();
         }
         try {
-            JWT jwt = JWTParser.parse(accessToken);
-            JWTClaimsSetVerifier claimsSetVerifier = new DefaultJWTClaimsVerifier(new JWTClaimsSet.Builder()
-                    .audience(clientId)
-                    .issuer(issuerId)
-                    .subject(subject)
-                    .build(), REQUIRED_CLIENT_ASSERTION_CLAIMS);
-            claimsSetVerifier.verify(jwt.getJWTClaimsSet(), null);
+            JWTClaimsSet claimsSet = jwt.getJWTClaimsSet();
+            accessTokenClaimsVerifier.verify(claimsSet, null);
+            if(!claimsSet.getAudience().contains(clientId) || !claimsSet.getSubject().equals(subject))
+                throw new BadJWTException("Access token audience or subject mismatch");
+            verifiedAccessTokens.put(accessTokenHash, new VerifiedAccessToken(accessToken, clientId, subject,
+                    claimsSet.getExpirationTime().getTime(), keyRingGeneration));
         } catch (Exception e) {
             log.error("Access token claims verification failed", e);
             throw new NotAuthenticatedException();
@@ -160,15 +264,44 @@ public class TokenServiceImpl implements TokenService {
 
     @Override
     public String getSignedJWT(String applicationId, JSONObject payload) {
-        JWTSignatureRequestDto jwtSignatureRequestDto = new JWTSignatureRequestDto();
-        jwtSignatureRequestDto.setApplicationId(applicationId);
-        jwtSignatureRequestDto.setReferenceId("");
-        jwtSignatureRequestDto.setIncludePayload(true);
-        jwtSignatureRequestDto.setIncludeCertificate(true);
-        jwtSignatureRequestDto.setDataToSign(IdentityProviderUtil.B64Encode(payload.toJSONString()));
-        jwtSignatureRequestDto.setIncludeCertHash(true);
-        JWTSignatureResponseDto responseDto = signatureService.jwtSign(jwtSignatureRequestDto);
-        return responseDto.getJwtSignedData();
+        return jwtSigningEngine.sign(applicationId, payload);
+    }
+
+    /**
+     * Processor is built once per client and reused until the client public key changes.
+     */
+    private ConfigurableJWTProcessor getClientAssertionProcessor(String clientId, RSAPublicKey publicKey) {
+        ClientAssertionProcessor cached = clientAssertionProcessors.getIfPresent(clientId);
+        if(cached != null && cached.publicKey.equals(publicKey))
+            return cached.jwtProcessor;
+
+        JWSKeySelector keySelector = new SingleKeyJWSKeySelector(JWSAlgorithm.RS256, publicKey);
+        JWTClaimsSetVerifier claimsSetVerifier = new DefaultJWTClaimsVerifier(new JWTClaimsSet.Builder()
+                .audience(issuerId)
+                .issuer(clientId)
+                .subject(clientId)
+                .build(), REQUIRED_CLIENT_ASSERTION_CLAIMS);
+
+        ConfigurableJWTProcessor jwtProcessor = new DefaultJWTProcessor();
+        jwtProcessor.setJWSKeySelector(keySelector);
+        jwtProcessor.setJWTClaimsSetVerifier(claimsSetVerifier);
+        clientAssertionProcessors.put(clientId, new ClientAssertionProcessor(publicKey, jwtProcessor));
+        return jwtProcessor;
+    }
+
+    private boolean isSignatureValid(SignedJWT jwt, String accessToken) {
+        String keyId = jwt.getHeader().getKeyID();
+        if(keyId == null)
+            return isSignatureValid(accessToken);
+
+        JWSVerifier verifier = publicKeyRing.getVerifier(Constants.IDP_SERVICE_APP_ID, keyId);
+        try {
+            return verifier != null && verifier.supportedJWSAlgorithms().contains(
+                    jwt.getHeader().getAlgorithm()) && jwt.verify(verifier);
+        } catch (JOSEException e) {
+            log.error("Failed to verify access token signature", e);
+            return false;
+        }
     }
 
     private boolean isSignatureValid(String jwt) {
@@ -179,4 +312,40 @@ public class TokenServiceImpl implements TokenService {
         JWTSignatureVerifyResponseDto responseDto = signatureService.jwtVerify(signatureVerifyRequestDto);
         return responseDto.isSignatureValid();
     }
+
+    private static class VerifiedAccessToken {
+        private final String accessToken;
+        private final String clientId;
+        private final String subject;
+        private final long expireAt;
+        private final long keyRingGeneration;
+
+        private VerifiedAccessToken(String accessToken, String clientId, String subject, long expireAt,
+                                    long keyRingGeneration) {
+            this.accessToken = accessToken;
+            this.clientId = clientId;
+            this.subject = subject;
+            this.expireAt = expireAt;
+            this.keyRingGeneration = keyRingGeneration;
+        }
+
+        /**
+         * Token is matched as well, the hash alone is only a truncated digest of the token.
+         */
+        private boolean isValidFor(String accessToken, String clientId, String subject, long keyRingGeneration) {
+            return this.keyRingGeneration == keyRingGeneration && System.currentTimeMillis() < expireAt &&
+                    this.clientId.equals(clientId) && this.subject.equals(subject) &&
+                    this.accessToken.equals(accessToken);
+        }
+    }
+
+    private static class ClientAssertionProcessor {
+        private final RSAPublicKey publicKey;
+        private final ConfigurableJWTProcessor jwtProcessor;
+
+        private ClientAssertionProcessor(RSAPublicKey publicKey, ConfigurableJWTProcessor jwtProcessor) {
+            this.publicKey = publicKey;
+            this.jwtProcessor = jwtProcessor;
+        }
+    }
 }
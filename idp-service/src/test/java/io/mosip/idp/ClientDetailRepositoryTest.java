@@ -6,6 +6,7 @@
 package io.mosip.idp;
 
 import io.mosip.idp.entity.ClientDetail;
+import io.mosip.idp.entity.ClientDetailProjection;
 import io.mosip.idp.repository.ClientDetailRepository;
 import io.mosip.kernel.keymanagerservice.service.KeymanagerService;
 import org.hibernate.HibernateException;
@@ -19,7 +20,14 @@ import org.springframework.test.context.junit4.SpringRunner;
 
 import javax.validation.ConstraintViolationException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RunWith(SpringRunner.class)
 @DataJpaTest
@@ -43,7 +51,7 @@ public class ClientDetailRepositoryTest {
         clientDetail.setAcrValues("[]");
         clientDetail.setGrantTypes("[\"authorization_code\"]");
         clientDetail.setClientAuthMethods("[\"private_key_jwt\"]");
-        clientDetail.setCreatedtimes(LocalDateTime.now());
+        clientDetail.setCreatedtimes(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
         clientDetail = clientDetailRepository.saveAndFlush(clientDetail);
         Assert.assertNotNull(clientDetail);
 
@@ -58,6 +66,24 @@ public class ClientDetailRepositoryTest {
 
         result = clientDetailRepository.findByIdAndStatus("C01", "INACTIVE");
         Assert.assertFalse(result.isPresent());
+
+        Optional<ClientDetailProjection> projection = clientDetailRepository.findProjectionByIdAndStatus("C01", "ACTIVE");
+        Assert.assertTrue(projection.isPresent());
+        Assert.assertEquals("RP01", projection.get().getRpId());
+        Assert.assertEquals("[\"private_key_jwt\"]", projection.get().getClientAuthMethods());
+        Assert.assertEquals(clientDetail.getCreatedtimes(), projection.get().getModifiedtimes());
+
+        projection = clientDetailRepository.findProjectionByIdAndStatus("C01", "INACTIVE");
+        Assert.assertFalse(projection.isPresent());
+
+        try(Stream<ClientDetailProjection> projections = clientDetailRepository.streamProjectionByStatus("ACTIVE")) {
+            Assert.assertEquals(1, projections.count());
+        }
+
+        Assert.assertEquals(1, clientDetailRepository.findProjectionModifiedSince(
+                clientDetail.getCreatedtimes()).size());
+        Assert.assertTrue(clientDetailRepository.findProjectionModifiedSince(
+                clientDetail.getCreatedtimes().plusSeconds(1)).isEmpty());
     }
 
     @Test
@@ -284,4 +310,61 @@ public class ClientDetailRepositoryTest {
         }
         Assert.fail();
     }
+
+    @Test
+    public void saveAllInBatch_withNewAndExistingClients_thenPass() {
+        ClientDetail existing = getClientDetail("C01");
+        clientDetailRepository.saveAndFlush(existing);
+
+        ClientDetail update = getClientDetail("C01");
+        update.setName("Client-01-updated");
+        update.setStatus("INACTIVE");
+        update.setUpdatedtimes(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("C01", "C02", "C03")), clientDetailRepository.saveAllInBatch(
+                Arrays.asList(getClientDetail("C02"), getClientDetail("C03")), Collections.singletonList(update)));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("C01", "C02", "C03")), new HashSet<>(
+                clientDetailRepository.findProjectionByIds(Arrays.asList("C01", "C02", "C03", "C04")).stream()
+                        .map(ClientDetailProjection::getId).collect(Collectors.toList())));
+        Optional<ClientDetailProjection> projection = clientDetailRepository.findProjectionByIdAndStatus("C01",
+                "INACTIVE");
+        Assert.assertTrue(projection.isPresent());
+        Assert.assertEquals("Client-01-updated", projection.get().getName());
+        Assert.assertEquals("RP01", projection.get().getRpId());
+        Assert.assertTrue(clientDetailRepository.findProjectionByIdAndStatus("C02", "ACTIVE").isPresent());
+    }
+
+    @Test
+    public void saveAllInBatch_withExistingInsertAndMissingUpdate_thenNotWritten() {
+        clientDetailRepository.saveAndFlush(getClientDetail("C01"));
+
+        ClientDetail insert = getClientDetail("C01");
+        insert.setName("Client-01-inserted");
+        Set<String> written = clientDetailRepository.saveAllInBatch(Arrays.asList(insert, getClientDetail("C02")),
+                Collections.singletonList(getClientDetail("C04")));
+
+        Assert.assertEquals(Collections.singleton("C02"), written);
+        Assert.assertEquals("Client-01", clientDetailRepository.findProjectionByIdAndStatus("C01",
+                "ACTIVE").get().getName());
+        Assert.assertEquals(Arrays.asList("C01", "C02"), clientDetailRepository.findProjectionByIds(
+                Arrays.asList("C01", "C02", "C04")).stream().map(ClientDetailProjection::getId).sorted()
+                .collect(Collectors.toList()));
+    }
+
+    private ClientDetail getClientDetail(String clientId) {
+        ClientDetail clientDetail = new ClientDetail();
+        clientDetail.setId(clientId);
+        clientDetail.setName("Client-01");
+        clientDetail.setLogoUri("https://clienapp.com/logo.png");
+        clientDetail.setStatus("ACTIVE");
+        clientDetail.setRedirectUris("[\"https://clientapp.com/home\"]");
+        clientDetail.setPublicKey("DUMMY PEM CERT");
+        clientDetail.setRpId("RP01");
+        clientDetail.setClaims("[]");
+        clientDetail.setAcrValues("[]");
+        clientDetail.setGrantTypes("[\"authorization_code\"]");
+        clientDetail.setClientAuthMethods("[\"private_key_jwt\"]");
+        clientDetail.setCreatedtimes(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        return clientDetail;
+    }
 }
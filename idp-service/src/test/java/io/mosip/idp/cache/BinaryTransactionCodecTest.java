@@ -0,0 +1,86 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.idp.core.dto.IdPTransaction;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+public class BinaryTransactionCodecTest {
+
+    private BinaryTransactionCodec codec;
+
+    @Before
+    public void setUp() {
+        Map<String, List<String>> scopeClaims = new HashMap<>();
+        scopeClaims.put("profile", Arrays.asList("name", "gender", "birthdate"));
+        scopeClaims.put("email", Arrays.asList("email", "email_verified"));
+        codec = new BinaryTransactionCodec(scopeClaims);
+    }
+
+    @Test
+    public void encode_withValidTransaction_thenPass() {
+        IdPTransaction transaction = TransactionCodecBenchmark.createTransaction();
+        transaction.getRequestedClaims().getUserinfo().put("unknown_claim", null);
+        IdPTransaction result = codec.decode(codec.encode(transaction));
+        Assert.assertEquals(transaction.getRequestedClaims().getUserinfo().keySet(),
+                result.getRequestedClaims().getUserinfo().keySet());
+        Assert.assertArrayEquals(transaction.getRequestedClaims().getId_token().get("acr").getValues(),
+                result.getRequestedClaims().getId_token().get("acr").getValues());
+        Assert.assertTrue(result.getRequestedClaims().getUserinfo().get("name").isEssential());
+        //ClaimDetail values are arrays, compare rest of the fields after clearing the claims
+        transaction.setRequestedClaims(null);
+        result.setRequestedClaims(null);
+        Assert.assertEquals(transaction, result);
+    }
+
+    @Test
+    public void encode_withEmptyTransaction_thenPass() {
+        IdPTransaction transaction = new IdPTransaction();
+        Assert.assertEquals(transaction, codec.decode(codec.encode(transaction)));
+        Assert.assertNull(codec.decode(null));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void decode_withDifferentDictionary_thenFail() {
+        byte[] value = codec.encode(TransactionCodecBenchmark.createTransaction());
+        new BinaryTransactionCodec(Collections.singletonMap("profile", Arrays.asList("name"))).decode(value);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void decode_withTruncatedValue_thenFail() {
+        byte[] value = codec.encode(TransactionCodecBenchmark.createTransaction());
+        codec.decode(Arrays.copyOf(value, value.length / 2));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void decode_withOversizedCount_thenFail() {
+        byte[] header = Arrays.copyOf(codec.encode(new IdPTransaction()), 5);
+        //null id, state, client, relying party and redirect uri, followed by userinfo claims with a huge count
+        byte[] value = Arrays.copyOf(header, 15);
+        value[10] = 1;
+        value[11] = (byte) 0xFF;
+        value[12] = (byte) 0xFF;
+        value[13] = (byte) 0xFF;
+        value[14] = (byte) 0x7F;
+        codec.decode(value);
+    }
+
+    @Test
+    public void decode_withDifferentDictionaryInStore_thenMiss() {
+        byte[] value = codec.encode(TransactionCodecBenchmark.createTransaction());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TolerantTransactionCodec storeCodec = new TolerantTransactionCodec(new BinaryTransactionCodec(
+                Collections.singletonMap("profile", Arrays.asList("name"))), meterRegistry);
+        Assert.assertNull(storeCodec.decode(value));
+        Assert.assertNull(storeCodec.decode(null));
+        Assert.assertEquals(1, meterRegistry.get("idp.transaction.codec.undecodable").counter().count(), 0);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.TransactionState;
+import io.mosip.idp.core.util.Constants;
+import io.mosip.idp.services.CacheUtilService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class InMemoryTransactionStoreTest {
+
+    private InMemoryTransactionStore transactionStore;
+    private Map<String, Integer> expireInSeconds = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        expireInSeconds.put(Constants.PRE_AUTH_SESSION_CACHE, 60);
+        expireInSeconds.put(Constants.AUTHENTICATED_CACHE, 60);
+        expireInSeconds.put(Constants.KYC_CACHE, 60);
+        transactionStore = new InMemoryTransactionStore(expireInSeconds, new BinaryTransactionCodec(
+                Collections.singletonMap("profile", Arrays.asList("name", "gender"))));
+    }
+
+    @Test
+    public void save_withValidTransaction_thenPass() {
+        IdPTransaction transaction = createTransaction("txn-id");
+        transactionStore.save(transaction);
+
+        IdPTransaction result = transactionStore.findByTransactionId("txn-id");
+        Assert.assertEquals(transaction, result);
+        Assert.assertNotSame(transaction, result);
+        Assert.assertNull(transactionStore.findByTransactionId("unknown-txn-id"));
+
+        //stored record is not affected by changes not stored back
+        transaction.setClientId("updated-client-id");
+        Assert.assertEquals("client-id", transactionStore.findByTransactionId("txn-id").getClientId());
+    }
+
+    @Test
+    public void transition_withRedeemedAuthCode_thenFail() {
+        issueAuthCode("txn-id", "auth-code");
+
+        IdPTransaction transaction = transactionStore.findByAuthCode("auth-code");
+        transaction.setAHash("at-hash");
+        transaction.setState(TransactionState.TOKEN_ISSUED);
+        Assert.assertTrue(transactionStore.transition(transaction, TransactionState.CODE_ISSUED));
+        Assert.assertNull(transactionStore.findByAuthCode("auth-code"));
+        Assert.assertEquals("txn-id", transactionStore.findByAccessTokenHash("at-hash").getTransactionId());
+        Assert.assertFalse(transactionStore.transition(transaction, TransactionState.CODE_ISSUED));
+
+        //auth code index is removed on redemption, only the record and the access token hash index are left
+        Assert.assertEquals(2, transactionStore.size());
+    }
+
+    @Test
+    public void findByAuthCode_withRecordInOtherState_thenFail() {
+        transactionStore.save(createTransaction("txn-id"));
+        IdPTransaction transaction = transactionStore.findByTransactionId("txn-id");
+        transaction.setCode("auth-code");
+        transaction.setState(TransactionState.CODE_ISSUED);
+        Assert.assertTrue(transactionStore.transition(transaction, TransactionState.INITIATED));
+
+        //record replaced by a new save of the same transaction is not found with the stale index
+        transactionStore.save(createTransaction("txn-id"));
+        Assert.assertNull(transactionStore.findByAuthCode("auth-code"));
+    }
+
+    @Test
+    public void transition_withExpiredTransaction_thenFail() {
+        expireInSeconds.put(Constants.PRE_AUTH_SESSION_CACHE, 0);
+        transactionStore.save(createTransaction("txn-id"));
+        IdPTransaction transaction = createTransaction("txn-id");
+        transaction.setState(TransactionState.AUTHENTICATED);
+        Assert.assertFalse(transactionStore.transition(transaction, TransactionState.INITIATED));
+        Assert.assertNull(transactionStore.findByTransactionId("txn-id"));
+
+        transactionStore.save(createTransaction("txn-id-2"));
+        transactionStore.purgeExpired();
+        Assert.assertEquals(0, transactionStore.size());
+    }
+
+    @Test
+    public void transition_withConcurrentCallers_thenOnlyOnePass() throws Exception {
+        issueAuthCode("txn-id", "auth-code");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger redeemed = new AtomicInteger();
+        try {
+            for(int i=0; i<8; i++) {
+                final String accessTokenHash = "at-hash-" + i;
+                executorService.submit(() -> {
+                    latch.await();
+                    IdPTransaction transaction = transactionStore.findByAuthCode("auth-code");
+                    if(transaction == null)
+                        return null;
+                    transaction.setAHash(accessTokenHash);
+                    transaction.setState(TransactionState.TOKEN_ISSUED);
+                    if(transactionStore.transition(transaction, TransactionState.CODE_ISSUED))
+                        redeemed.incrementAndGet();
+                    return null;
+                });
+            }
+            latch.countDown();
+        } finally {
+            executorService.shutdown();
+            executorService.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(1, redeemed.get());
+        Assert.assertNull(transactionStore.findByAuthCode("auth-code"));
+    }
+
+    @Test
+    public void updateAuthCodeTransaction_withMintedAndPrefetched_thenExpireAtIssueDeadline() throws Exception {
+        expireInSeconds.put(Constants.AUTHENTICATED_CACHE, 2);
+        transactionStore = new InMemoryTransactionStore(expireInSeconds, new BinaryTransactionCodec(
+                Collections.singletonMap("profile", Arrays.asList("name", "gender"))));
+        CacheUtilService cacheUtilService = new CacheUtilService();
+        ReflectionTestUtils.setField(cacheUtilService, "transactionStore", transactionStore);
+        transactionStore.save(createTransaction("txn-id"));
+        Assert.assertNotNull(cacheUtilService.setAuthCodeTransaction("auth-code",
+                transactionStore.findByTransactionId("txn-id")));
+
+        //tokens minted and KYC prefetched while the auth code is not yet redeemed
+        Thread.sleep(700);
+        Assert.assertNotNull(cacheUtilService.updateAuthCodeTransaction("auth-code",
+                stored -> stored.setMintedAccessToken("access-token")));
+        Thread.sleep(700);
+        Assert.assertNotNull(cacheUtilService.updateAuthCodeTransaction("auth-code",
+                stored -> stored.setEncryptedKyc("encrypted-kyc")));
+        Assert.assertEquals("access-token", transactionStore.findByAuthCode("auth-code").getMintedAccessToken());
+
+        //expired 2 seconds after the auth code is issued, not after the last update
+        Thread.sleep(800);
+        Assert.assertNull(transactionStore.findByAuthCode("auth-code"));
+        Assert.assertNull(transactionStore.findByTransactionId("txn-id"));
+    }
+
+    private void issueAuthCode(String transactionId, String authCode) {
+        transactionStore.save(createTransaction(transactionId));
+        IdPTransaction transaction = transactionStore.findByTransactionId(transactionId);
+        transaction.setCode(authCode);
+        transaction.setState(TransactionState.CODE_ISSUED);
+        Assert.assertTrue(transactionStore.transition(transaction, TransactionState.INITIATED));
+    }
+
+    private IdPTransaction createTransaction(String transactionId) {
+        IdPTransaction transaction = new IdPTransaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setState(TransactionState.INITIATED);
+        transaction.setClientId("client-id");
+        return transaction;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.TransactionState;
+import io.mosip.idp.core.util.Constants;
+import io.mosip.idp.services.CacheUtilService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LocalTransactionStoreTest {
+
+    private LocalTransactionStore transactionStore;
+    private Map<String, Integer> expireInSeconds = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        expireInSeconds.put(Constants.PRE_AUTH_SESSION_CACHE, 60);
+        expireInSeconds.put(Constants.AUTHENTICATED_CACHE, 60);
+        expireInSeconds.put(Constants.KYC_CACHE, 0);
+        transactionStore = new LocalTransactionStore(new HashMap<>(), expireInSeconds);
+    }
+
+    @Test
+    public void save_withValidTransaction_thenPass() {
+        IdPTransaction transaction = createTransaction("txn-id");
+        transactionStore.save(transaction);
+
+        IdPTransaction result = transactionStore.findByTransactionId("txn-id");
+        Assert.assertNotNull(result);
+        Assert.assertEquals("client-id", result.getClientId());
+        Assert.assertNull(transactionStore.findByTransactionId("unknown-txn-id"));
+
+        //stored record is not affected by changes not stored back
+        result.setClientId("updated-client-id");
+        transaction.setClientId("updated-client-id");
+        Assert.assertEquals("client-id", transactionStore.findByTransactionId("txn-id").getClientId());
+    }
+
+    @Test
+    public void transition_withValidState_thenPass() {
+        transactionStore.save(createTransaction("txn-id"));
+
+        IdPTransaction transaction = transactionStore.findByTransactionId("txn-id");
+        transaction.setCode("auth-code");
+        transaction.setState(TransactionState.CODE_ISSUED);
+        Assert.assertTrue(transactionStore.transition(transaction, TransactionState.INITIATED));
+        Assert.assertEquals(TransactionState.CODE_ISSUED, transactionStore.findByAuthCode("auth-code").getState());
+
+        //already moved past the initiated state
+        Assert.assertFalse(transactionStore.transition(transaction, TransactionState.INITIATED));
+    }
+
+    @Test
+    public void transition_withRedeemedAuthCode_thenFail() {
+        transactionStore.save(createTransaction("txn-id"));
+        IdPTransaction transaction = transactionStore.findByTransactionId("txn-id");
+        transaction.setCode("auth-code");
+        transaction.setState(TransactionState.CODE_ISSUED);
+        Assert.assertTrue(transactionStore.transition(transaction, TransactionState.INITIATED));
+
+        transaction = transactionStore.findByAuthCode("auth-code");
+        transaction.setAHash("at-hash");
+        transaction.setState(TransactionState.TOKEN_ISSUED);
+        Assert.assertTrue(transactionStore.transition(transaction, TransactionState.CODE_ISSUED));
+        Assert.assertNull(transactionStore.findByAuthCode("auth-code"));
+        Assert.assertFalse(transactionStore.transition(transaction, TransactionState.CODE_ISSUED));
+    }
+
+    @Test
+    public void findByAccessTokenHash_withExpiredTransaction_thenFail() {
+        transactionStore.save(createTransaction("txn-id"));
+        IdPTransaction transaction = transactionStore.findByTransactionId("txn-id");
+        transaction.setAHash("at-hash");
+        transaction.setState(TransactionState.TOKEN_ISSUED);
+        Assert.assertTrue(transactionStore.transition(transaction, TransactionState.INITIATED));
+        Assert.assertNull(transactionStore.findByAccessTokenHash("at-hash"));
+        Assert.assertNull(transactionStore.findByTransactionId("txn-id"));
+    }
+
+    @Test
+    public void transition_withConcurrentCallers_thenOnlyOnePass() throws Exception {
+        transactionStore.save(createTransaction("txn-id"));
+        transactionStore.transition(transactionStore.findByTransactionId("txn-id").toBuilder()
+                .code("auth-code").state(TransactionState.CODE_ISSUED).build(), TransactionState.INITIATED);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger redeemed = new AtomicInteger();
+        try {
+            for(int i=0; i<8; i++) {
+                final String accessTokenHash = "at-hash-" + i;
+                executorService.submit(() -> {
+                    latch.await();
+                    IdPTransaction transaction = transactionStore.findByAuthCode("auth-code");
+                    if(transaction == null)
+                        return null;
+                    transaction.setAHash(accessTokenHash);
+                    transaction.setState(TransactionState.TOKEN_ISSUED);
+                    if(transactionStore.transition(transaction, TransactionState.CODE_ISSUED))
+                        redeemed.incrementAndGet();
+                    return null;
+                });
+            }
+            latch.countDown();
+        } finally {
+            executorService.shutdown();
+            executorService.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(1, redeemed.get());
+    }
+
+    @Test
+    public void save_withClientOverQuota_thenEvictOwnOldest() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ClientQuota clientQuota = new ClientQuota(2, Collections.singletonMap("client-id", 5), meterRegistry);
+        transactionStore = new LocalTransactionStore(new HashMap<>(), expireInSeconds, clientQuota, null, 0);
+
+        transactionStore.save(createTransaction("txn-id"));
+        for(int i=0; i<10; i++) {
+            IdPTransaction transaction = createTransaction("noisy-txn-id-" + i);
+            transaction.setClientId("noisy-client-id");
+            transactionStore.save(transaction);
+        }
+
+        //noisy client keeps only its latest transactions, other clients are not affected
+        Assert.assertNotNull(transactionStore.findByTransactionId("txn-id"));
+        Assert.assertNull(transactionStore.findByTransactionId("noisy-txn-id-7"));
+        Assert.assertNotNull(transactionStore.findByTransactionId("noisy-txn-id-8"));
+        Assert.assertNotNull(transactionStore.findByTransactionId("noisy-txn-id-9"));
+        Assert.assertEquals(1.0, clientQuota.getOccupancy("noisy-client-id"), 0);
+        Assert.assertEquals(0.2, meterRegistry.get("idp.transaction.store.client.occupancy")
+                .tag("client", "client-id").gauge().value(), 0.001);
+        Assert.assertEquals(8, meterRegistry.get("idp.transaction.store.client.evictions")
+                .tag("client", "noisy-client-id").counter().count(), 0);
+
+        //transition keeps the transaction in its partition
+        IdPTransaction transaction = transactionStore.findByTransactionId("txn-id");
+        transaction.setCode("auth-code");
+        transaction.setState(TransactionState.CODE_ISSUED);
+        Assert.assertTrue(transactionStore.transition(transaction, TransactionState.INITIATED));
+        Assert.assertEquals(0.2, clientQuota.getOccupancy("client-id"), 0.001);
+    }
+
+    @Test
+    public void expire_withExpiredTransaction_thenPublishEvent() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BlockingQueue<TransactionExpiryEvent> events = new LinkedBlockingQueue<>();
+        TransactionExpiryPublisher expiryPublisher = new TransactionExpiryPublisher(
+                Collections.singletonList(events::add), meterRegistry, 10);
+        transactionStore = new LocalTransactionStore(new HashMap<>(), expireInSeconds, null, expiryPublisher, 60000);
+        try {
+            transactionStore.save(createTransaction("txn-id"));
+            IdPTransaction transaction = transactionStore.findByTransactionId("txn-id");
+            transaction.setAHash("at-hash");
+            transaction.setState(TransactionState.TOKEN_ISSUED);
+            Assert.assertTrue(transactionStore.transition(transaction, TransactionState.INITIATED));
+
+            //smallest timer wheel bucket spans about a second
+            TransactionExpiryEvent event = null;
+            for(int i=0; i<50 && event == null; i++) {
+                transactionStore.expire();
+                event = events.poll(100, TimeUnit.MILLISECONDS);
+            }
+            Assert.assertNotNull(event);
+            Assert.assertEquals("txn-id", event.getTransactionId());
+            Assert.assertEquals("client-id", event.getClientId());
+            Assert.assertEquals(TransactionExpiryEvent.Stage.TOKEN_ISSUED, event.getStage());
+            Assert.assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+        } finally {
+            transactionStore.close();
+            expiryPublisher.close();
+        }
+    }
+
+    @Test
+    public void updateAuthCodeTransaction_withMintedAndPrefetched_thenExpireAtIssueDeadline() throws Exception {
+        expireInSeconds.put(Constants.AUTHENTICATED_CACHE, 2);
+        transactionStore = new LocalTransactionStore(new HashMap<>(), expireInSeconds);
+        CacheUtilService cacheUtilService = new CacheUtilService();
+        ReflectionTestUtils.setField(cacheUtilService, "transactionStore", transactionStore);
+        transactionStore.save(createTransaction("txn-id"));
+        Assert.assertNotNull(cacheUtilService.setAuthCodeTransaction("auth-code",
+                transactionStore.findByTransactionId("txn-id")));
+
+        //tokens minted and KYC prefetched while the auth code is not yet redeemed
+        Thread.sleep(700);
+        Assert.assertNotNull(cacheUtilService.updateAuthCodeTransaction("auth-code",
+                stored -> stored.setMintedAccessToken("access-token")));
+        Thread.sleep(700);
+        Assert.assertNotNull(cacheUtilService.updateAuthCodeTransaction("auth-code",
+                stored -> stored.setEncryptedKyc("encrypted-kyc")));
+        Assert.assertEquals("access-token", transactionStore.findByAuthCode("auth-code").getMintedAccessToken());
+
+        //expired 2 seconds after the auth code is issued, not after the last update
+        Thread.sleep(800);
+        Assert.assertNull(transactionStore.findByAuthCode("auth-code"));
+        Assert.assertNull(transactionStore.findByTransactionId("txn-id"));
+    }
+
+    private IdPTransaction createTransaction(String transactionId) {
+        IdPTransaction transaction = new IdPTransaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setState(TransactionState.INITIATED);
+        transaction.setClientId("client-id");
+        return transaction;
+    }
+}
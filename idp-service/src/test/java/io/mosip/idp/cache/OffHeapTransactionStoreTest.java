@@ -0,0 +1,144 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.TransactionState;
+import io.mosip.idp.core.util.Constants;
+import io.mosip.idp.services.CacheUtilService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class OffHeapTransactionStoreTest {
+
+    private OffHeapTransactionStore transactionStore;
+
+    @Before
+    public void setUp() {
+        Map<String, Integer> expireInSeconds = new HashMap<>();
+        expireInSeconds.put(Constants.PRE_AUTH_SESSION_CACHE, 60);
+        expireInSeconds.put(Constants.AUTHENTICATED_CACHE, 60);
+        expireInSeconds.put(Constants.KYC_CACHE, 0);
+        BinaryTransactionCodec codec = new BinaryTransactionCodec(Collections.singletonMap("profile",
+                Arrays.asList("name", "gender")));
+        transactionStore = new OffHeapTransactionStore(codec, expireInSeconds, 4096, 8, null);
+    }
+
+    @After
+    public void tearDown() {
+        transactionStore.close();
+    }
+
+    @Test
+    public void save_withValidTransaction_thenPass() {
+        transactionStore.save(createTransaction("txn-id"));
+        Assert.assertEquals("client-id", transactionStore.findByTransactionId("txn-id").getClientId());
+        Assert.assertNull(transactionStore.findByTransactionId("unknown-txn-id"));
+    }
+
+    @Test
+    public void transition_withRedeemedAuthCode_thenFail() {
+        transactionStore.save(createTransaction("txn-id"));
+        IdPTransaction transaction = transactionStore.findByTransactionId("txn-id");
+        transaction.setCode("auth-code");
+        transaction.setState(TransactionState.CODE_ISSUED);
+        Assert.assertTrue(transactionStore.transition(transaction, TransactionState.INITIATED));
+        Assert.assertFalse(transactionStore.transition(transaction, TransactionState.INITIATED));
+
+        transaction = transactionStore.findByAuthCode("auth-code");
+        Assert.assertNotNull(transaction);
+        transaction.setAHash("at-hash");
+        transaction.setState(TransactionState.TOKEN_ISSUED);
+        Assert.assertTrue(transactionStore.transition(transaction, TransactionState.CODE_ISSUED));
+        Assert.assertNull(transactionStore.findByAuthCode("auth-code"));
+        Assert.assertFalse(transactionStore.transition(transaction, TransactionState.CODE_ISSUED));
+    }
+
+    @Test
+    public void save_withAllSlabsInUse_thenEvictOldestSlab() {
+        //each slab holds only a few entries, writes spill over all the slabs
+        for(int i=0; i<1000; i++) {
+            transactionStore.save(createTransaction("txn-id-" + i));
+        }
+        Assert.assertNotNull(transactionStore.findByTransactionId("txn-id-999"));
+        Assert.assertNull(transactionStore.findByTransactionId("txn-id-0"));
+    }
+
+    @Test
+    public void reclaimExpiredSlabs_withExpiredEntries_thenPass() {
+        transactionStore.save(createTransaction("txn-id"));
+        IdPTransaction transaction = transactionStore.findByTransactionId("txn-id");
+        transaction.setAHash("at-hash");
+        transaction.setState(TransactionState.TOKEN_ISSUED);
+        Assert.assertTrue(transactionStore.transition(transaction, TransactionState.INITIATED));
+        Assert.assertNull(transactionStore.findByAccessTokenHash("at-hash"));
+
+        transactionStore.reclaimExpiredSlabs();
+        for(int i=0; i<1000; i++) {
+            transactionStore.save(createTransaction("txn-id-" + i));
+        }
+        Assert.assertNotNull(transactionStore.findByTransactionId("txn-id-999"));
+    }
+
+    @Test
+    public void getOccupancy_withSupersededEntries_thenPass() {
+        transactionStore.save(createTransaction("txn-id"));
+        double occupancy = transactionStore.getOccupancy();
+        Assert.assertTrue(occupancy > 0);
+
+        //superseded entries stay in the slab until it is reclaimed, but are not counted as live
+        for(int i=0; i<20; i++) {
+            transactionStore.save(createTransaction("txn-id"));
+        }
+        Assert.assertEquals(occupancy, transactionStore.getOccupancy(), 0.0001);
+    }
+
+    @Test
+    public void updateAuthCodeTransaction_withMintedAndPrefetched_thenExpireAtIssueDeadline() throws Exception {
+        Map<String, Integer> expireInSeconds = new HashMap<>();
+        expireInSeconds.put(Constants.PRE_AUTH_SESSION_CACHE, 60);
+        expireInSeconds.put(Constants.AUTHENTICATED_CACHE, 2);
+        transactionStore.close();
+        transactionStore = new OffHeapTransactionStore(new BinaryTransactionCodec(Collections.singletonMap(
+                "profile", Arrays.asList("name", "gender"))), expireInSeconds, 4096, 8, null);
+        CacheUtilService cacheUtilService = new CacheUtilService();
+        ReflectionTestUtils.setField(cacheUtilService, "transactionStore", transactionStore);
+        transactionStore.save(createTransaction("txn-id"));
+        Assert.assertNotNull(cacheUtilService.setAuthCodeTransaction("auth-code",
+                transactionStore.findByTransactionId("txn-id")));
+
+        //tokens minted and KYC prefetched while the auth code is not yet redeemed
+        Thread.sleep(700);
+        Assert.assertNotNull(cacheUtilService.updateAuthCodeTransaction("auth-code",
+                stored -> stored.setMintedAccessToken("access-token")));
+        Thread.sleep(700);
+        Assert.assertNotNull(cacheUtilService.updateAuthCodeTransaction("auth-code",
+                stored -> stored.setEncryptedKyc("encrypted-kyc")));
+        Assert.assertEquals("access-token", transactionStore.findByAuthCode("auth-code").getMintedAccessToken());
+
+        //expired 2 seconds after the auth code is issued, not after the last update
+        Thread.sleep(800);
+        Assert.assertNull(transactionStore.findByAuthCode("auth-code"));
+        Assert.assertNull(transactionStore.findByTransactionId("txn-id"));
+    }
+
+    private IdPTransaction createTransaction(String transactionId) {
+        IdPTransaction transaction = new IdPTransaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setState(TransactionState.INITIATED);
+        transaction.setClientId("client-id");
+        transaction.setRedirectUri("https://client.example.com/callback");
+        return transaction;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.spi.TransactionCodec;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Properties;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RedisTransactionStoreTest {
+
+    @Mock
+    RedisTemplate<String, byte[]> redisTemplate;
+
+    @Mock
+    TransactionCodec codec;
+
+    @Mock
+    RedisConnection connection;
+
+    private RedisTransactionStore transactionStore;
+
+    @Before
+    public void setUp() {
+        transactionStore = new RedisTransactionStore(redisTemplate, new HashMap<>(), codec, "idp:");
+    }
+
+    @Test
+    public void findByAuthCode_withRecordInIndexState_thenPass() {
+        IdPTransaction transaction = new IdPTransaction();
+        mockConnection();
+        Mockito.when(connection.get(toBytes("idp:code::auth-code"))).thenReturn(toBytes("txn-id"));
+        Mockito.when(connection.hMGet(Mockito.eq(toBytes("idp:txn::txn-id")), Mockito.any()))
+                .thenReturn(Arrays.asList(toBytes("CODE_ISSUED"), toBytes("data")));
+        Mockito.when(codec.decode(toBytes("data"))).thenReturn(transaction);
+
+        Assert.assertSame(transaction, transactionStore.findByAuthCode("auth-code"));
+    }
+
+    @Test
+    public void findByAuthCode_withRecordInOtherState_thenFail() {
+        mockConnection();
+        Mockito.when(connection.get(toBytes("idp:code::auth-code"))).thenReturn(toBytes("txn-id"));
+        Mockito.when(connection.hMGet(Mockito.eq(toBytes("idp:txn::txn-id")), Mockito.any()))
+                .thenReturn(Arrays.asList(toBytes("TOKEN_ISSUED"), toBytes("data")));
+
+        Assert.assertNull(transactionStore.findByAuthCode("auth-code"));
+        Mockito.verify(codec).decode(null);
+    }
+
+    @Test
+    public void findByAuthCode_withoutIndexKey_thenFail() {
+        mockConnection();
+
+        Assert.assertNull(transactionStore.findByAuthCode("auth-code"));
+        Mockito.verify(connection, Mockito.never()).hMGet(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void refreshOccupancy_withMaxMemory_thenPass() {
+        Properties info = new Properties();
+        info.setProperty("used_memory", "750");
+        info.setProperty("maxmemory", "1000");
+        Mockito.when(redisTemplate.execute(Mockito.any(RedisCallback.class))).thenReturn(info);
+
+        Assert.assertEquals(0, transactionStore.getOccupancy(), 0);
+        transactionStore.refreshOccupancy();
+        Assert.assertEquals(0.75, transactionStore.getOccupancy(), 0.0001);
+    }
+
+    @Test
+    public void refreshOccupancy_withoutMaxMemory_thenPass() {
+        Properties info = new Properties();
+        info.setProperty("used_memory", "750");
+        info.setProperty("maxmemory", "0");
+        Mockito.when(redisTemplate.execute(Mockito.any(RedisCallback.class))).thenReturn(info);
+
+        transactionStore.refreshOccupancy();
+        Assert.assertEquals(0, transactionStore.getOccupancy(), 0);
+    }
+
+    @Test
+    public void refreshOccupancy_withServerFailure_thenKeepLastOccupancy() {
+        Properties info = new Properties();
+        info.setProperty("used_memory", "500");
+        info.setProperty("maxmemory", "1000");
+        Mockito.when(redisTemplate.execute(Mockito.any(RedisCallback.class))).thenReturn(info)
+                .thenThrow(new IllegalStateException("connection refused"));
+
+        transactionStore.refreshOccupancy();
+        transactionStore.refreshOccupancy();
+        Assert.assertEquals(0.5, transactionStore.getOccupancy(), 0.0001);
+    }
+
+    private void mockConnection() {
+        Mockito.when(redisTemplate.execute(Mockito.any(RedisCallback.class))).thenAnswer(invocation ->
+                ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+    }
+
+    private static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import io.mosip.idp.core.dto.ClaimDetail;
+import io.mosip.idp.core.dto.Claims;
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.TransactionState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary codec with jackson and JDK serialization, encoded sizes are printed on setup.
+ * Run with the main method from the IDE or with the test classpath, not run as part of the build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionCodecBenchmark {
+
+    private IdPTransaction transaction;
+    private BinaryTransactionCodec binaryCodec;
+    private JsonTransactionCodec jsonCodec;
+    private byte[] binaryValue;
+    private byte[] jsonValue;
+    private byte[] jdkValue;
+
+    @Setup
+    public void setup() throws IOException {
+        Map<String, List<String>> scopeClaims = new HashMap<>();
+        scopeClaims.put("profile", Arrays.asList("name", "given_name", "middle_name", "preferred_username",
+                "picture", "gender", "birthdate", "locale"));
+        scopeClaims.put("email", Arrays.asList("email", "email_verified"));
+        scopeClaims.put("phone", Arrays.asList("phone_number", "phone_number_verified"));
+        binaryCodec = new BinaryTransactionCodec(scopeClaims);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new AfterburnerModule());
+        jsonCodec = new JsonTransactionCodec(objectMapper);
+
+        transaction = createTransaction();
+        binaryValue = binaryCodec.encode(transaction);
+        jsonValue = jsonCodec.encode(transaction);
+        jdkValue = jdkEncode(transaction);
+        System.out.printf("%nEncoded size in bytes, binary : %d, json : %d, jdk : %d%n", binaryValue.length,
+                jsonValue.length, jdkValue.length);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return binaryCodec.encode(transaction);
+    }
+
+    @Benchmark
+    public IdPTransaction binaryDecode() {
+        return binaryCodec.decode(binaryValue);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return jsonCodec.encode(transaction);
+    }
+
+    @Benchmark
+    public IdPTransaction jsonDecode() {
+        return jsonCodec.decode(jsonValue);
+    }
+
+    @Benchmark
+    public byte[] jdkEncode() throws IOException {
+        return jdkEncode(transaction);
+    }
+
+    @Benchmark
+    public Object jdkDecode() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(jdkValue))) {
+            return in.readObject();
+        }
+    }
+
+    private static byte[] jdkEncode(IdPTransaction transaction) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(transaction);
+        }
+        return bytes.toByteArray();
+    }
+
+    static IdPTransaction createTransaction() {
+        Map<String, ClaimDetail> userinfo = new HashMap<>();
+        userinfo.put("name", new ClaimDetail(null, null, true));
+        userinfo.put("gender", new ClaimDetail(null, null, false));
+        userinfo.put("birthdate", new ClaimDetail(null, null, true));
+        userinfo.put("email", new ClaimDetail(null, null, false));
+        userinfo.put("phone_number", new ClaimDetail(null, null, false));
+        Map<String, ClaimDetail> idToken = new HashMap<>();
+        idToken.put("acr", new ClaimDetail(null, new String[]{"mosip:idp:acr:static-code",
+                "mosip:idp:acr:generated-code"}, true));
+        Claims claims = new Claims();
+        claims.setUserinfo(userinfo);
+        claims.setId_token(idToken);
+
+        IdPTransaction transaction = new IdPTransaction();
+        transaction.setTransactionId(UUID.randomUUID().toString());
+        transaction.setState(TransactionState.CODE_ISSUED);
+        transaction.setClientId("mosip-health-services-portal");
+        transaction.setRelyingPartyId("mosip-health-services");
+        transaction.setRedirectUri("https://health-services.example.com/userprofile");
+        transaction.setRequestedClaims(claims);
+        transaction.setClaimsLocales("en fr");
+        transaction.setKycToken(UUID.randomUUID().toString());
+        transaction.setPartnerSpecificUserToken(UUID.randomUUID().toString());
+        transaction.setAuthTimeInSeconds(System.currentTimeMillis() / 1000);
+        transaction.setCode("b2a4d5c1e3f6a7b8c9d0e1f2a3b4c5d6");
+        transaction.setAcceptedClaims(Arrays.asList("name", "gender", "birthdate", "email"));
+        transaction.setPermittedScopes(Arrays.asList("openid", "profile"));
+        transaction.setNonce("973eieljzng");
+        return transaction;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TransactionCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
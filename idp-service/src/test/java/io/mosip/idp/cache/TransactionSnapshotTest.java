@@ -0,0 +1,82 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.TransactionState;
+import io.mosip.idp.core.util.Constants;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TransactionSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Map<String, Integer> expireInSeconds = new HashMap<>();
+    private BinaryTransactionCodec codec = new BinaryTransactionCodec(Collections.singletonMap("profile",
+            Arrays.asList("name", "gender")));
+    private Path file;
+
+    @Before
+    public void setUp() {
+        expireInSeconds.put(Constants.PRE_AUTH_SESSION_CACHE, 60);
+        expireInSeconds.put(Constants.AUTHENTICATED_CACHE, 60);
+        expireInSeconds.put(Constants.KYC_CACHE, 60);
+        file = folder.getRoot().toPath().resolve("transactions.snapshot");
+    }
+
+    @Test
+    public void snapshot_withLiveTransactions_thenRestore() {
+        LocalTransactionStore store = new LocalTransactionStore(new HashMap<>(), expireInSeconds);
+        store.save(createTransaction("txn-id-1"));
+        store.save(createTransaction("txn-id-2"));
+        IdPTransaction transaction = store.findByTransactionId("txn-id-2");
+        transaction.setCode("auth-code");
+        transaction.setState(TransactionState.CODE_ISSUED);
+        store.transition(transaction, TransactionState.INITIATED);
+        new TransactionSnapshot(store, codec, file, 5000).snapshot();
+        Assert.assertTrue(Files.exists(file));
+
+        //restored in a different store type, snapshot file is removed once restored
+        OffHeapTransactionStore restoredStore = new OffHeapTransactionStore(codec, expireInSeconds, 4096, 8, null);
+        try {
+            new TransactionSnapshot(restoredStore, codec, file, 5000).restore();
+            Assert.assertFalse(Files.exists(file));
+            Assert.assertEquals("client-id", restoredStore.findByTransactionId("txn-id-1").getClientId());
+            Assert.assertEquals("txn-id-2", restoredStore.findByAuthCode("auth-code").getTransactionId());
+        } finally {
+            restoredStore.close();
+        }
+    }
+
+    @Test
+    public void restore_withInvalidFile_thenIgnore() throws Exception {
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6});
+        LocalTransactionStore store = new LocalTransactionStore(new HashMap<>(), expireInSeconds);
+        new TransactionSnapshot(store, codec, file, 5000).restore();
+        Assert.assertFalse(Files.exists(file));
+        Assert.assertEquals(0, store.getOccupancy(), 0);
+    }
+
+    private IdPTransaction createTransaction(String transactionId) {
+        IdPTransaction transaction = new IdPTransaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setState(TransactionState.INITIATED);
+        transaction.setClientId("client-id");
+        return transaction;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.cache.CacheMetricsRegistrar;
+import org.springframework.boot.actuate.metrics.cache.CaffeineCacheMeterBinderProvider;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TwoLevelCacheTest {
+
+    private ConcurrentMapCache sharedCache;
+    private TwoLevelCache node1Cache;
+    private TwoLevelCache node2Cache;
+
+    @Before
+    public void setUp() {
+        //two nodes with their own L1, sharing the L2 and the invalidation bus
+        InMemoryCacheInvalidationBus invalidationBus = new InMemoryCacheInvalidationBus();
+        sharedCache = new ConcurrentMapCache("clientdetails");
+        node1Cache = new TwoLevelCache(new ConcurrentMapCache("clientdetails"), sharedCache, invalidationBus);
+        node2Cache = new TwoLevelCache(new ConcurrentMapCache("clientdetails"), sharedCache, invalidationBus);
+    }
+
+    @Test
+    public void get_withValueInSharedCache_thenPass() {
+        node1Cache.put("client-id", "client-v1");
+        Assert.assertEquals("client-v1", sharedCache.get("client-id").get());
+        Assert.assertEquals("client-v1", node2Cache.get("client-id", () -> "loaded"));
+        Assert.assertEquals("client-v1", node2Cache.get("client-id", String.class));
+    }
+
+    @Test
+    public void evict_withValueInAllNodes_thenPass() {
+        node1Cache.put("client-id", "client-v1");
+        Assert.assertEquals("client-v1", node2Cache.get("client-id", String.class));
+
+        node1Cache.evict("client-id");
+        Assert.assertNull(sharedCache.get("client-id"));
+        Assert.assertNull(node2Cache.get("client-id"));
+        Assert.assertEquals("client-v2", node2Cache.get("client-id", () -> "client-v2"));
+        Assert.assertEquals("client-v2", node1Cache.get("client-id", String.class));
+    }
+
+    @Test
+    public void clear_withValueInAllNodes_thenPass() {
+        node1Cache.put("client-id", "client-v1");
+        node2Cache.get("client-id");
+        node2Cache.clear();
+        Assert.assertNull(node1Cache.get("client-id"));
+        Assert.assertNull(node2Cache.get("client-id"));
+    }
+
+    @Test
+    public void get_withoutSharedCache_thenLoad() {
+        TwoLevelCache cache = new TwoLevelCache(new ConcurrentMapCache("clientdetails"), null,
+                new InMemoryCacheInvalidationBus());
+        Assert.assertEquals("client-v1", cache.get("client-id", () -> "client-v1"));
+        Assert.assertEquals("client-v1", cache.get("client-id", () -> "client-v2"));
+    }
+
+    @Test
+    public void get_withConcurrentMisses_thenLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for(int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> node1Cache.get("client-id", () -> {
+                    loads.incrementAndGet();
+                    loading.await(100, TimeUnit.MILLISECONDS);
+                    return "client-v1";
+                })));
+            }
+            loading.countDown();
+            for(Future<String> result : results)
+                Assert.assertEquals("client-v1", result.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals("client-v1", sharedCache.get("client-id").get());
+    }
+
+    @Test
+    public void get_withValueInSharedCacheAndRefreshAheadLocalCache_thenNotLoaded() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CaffeineCache localCache = buildRefreshAheadCache(loads, "client-v2");
+        TwoLevelCache cache = new TwoLevelCache(localCache, sharedCache, new InMemoryCacheInvalidationBus());
+        sharedCache.put("client-id", "client-v1");
+
+        Assert.assertEquals("client-v1", cache.get("client-id").get());
+        Assert.assertEquals("client-v1", cache.get("client-id", () -> "loaded"));
+        Assert.assertNull(cache.get("unknown-client-id"));
+        Assert.assertEquals(0, loads.get());
+
+        //refresh reloads from the source and writes the refreshed value to L2
+        ((LoadingCache<Object, Object>) localCache.getNativeCache()).refresh("client-id");
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals("client-v2", sharedCache.get("client-id").get());
+        Assert.assertEquals("client-v2", cache.get("client-id").get());
+    }
+
+    @Test
+    public void load_withoutValueInSharedCache_thenWriteSharedCache() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CaffeineCache localCache = buildRefreshAheadCache(loads, "client-v1");
+
+        Assert.assertEquals("client-v1", ((LoadingCache<Object, Object>) localCache.getNativeCache())
+                .get("client-id"));
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals("client-v1", sharedCache.get("client-id").get());
+    }
+
+    @Test
+    public void get_withEvictDuringLoad_thenNotWriteSharedCache() throws Exception {
+        EvictionGenerations evictionGenerations = new EvictionGenerations();
+        TwoLevelCache cache = new TwoLevelCache(new ConcurrentMapCache("clientdetails"), sharedCache,
+                new InMemoryCacheInvalidationBus(), evictionGenerations);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> loaded = executorService.submit(() -> cache.get("client-id", () -> {
+                loading.countDown();
+                updated.await();
+                return "client-v1";
+            }));
+            Assert.assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            //client updated while its stale value is being loaded, evict of L1 waits for the load to complete
+            long generation = evictionGenerations.get("client-id");
+            Future<?> evicted = executorService.submit(() -> cache.evict("client-id"));
+            while (evictionGenerations.get("client-id") == generation) {
+                Thread.sleep(10);
+            }
+            updated.countDown();
+            Assert.assertEquals("client-v1", loaded.get(5, TimeUnit.SECONDS));
+            evicted.get(5, TimeUnit.SECONDS);
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertNull(sharedCache.get("client-id"));
+        Assert.assertNull(cache.get("client-id"));
+    }
+
+    @Test
+    public void load_withEvictOnOtherNodeDuringLoad_thenNotWriteSharedCache() throws Exception {
+        //loader of the node 1 refresh-ahead L1, client evicted on node 2 while node 1 loads it
+        InMemoryCacheInvalidationBus invalidationBus = new InMemoryCacheInvalidationBus();
+        EvictionGenerations evictionGenerations = new EvictionGenerations();
+        new TwoLevelCache(new ConcurrentMapCache("clientdetails"), sharedCache, invalidationBus, evictionGenerations);
+        TwoLevelCache otherNodeCache = new TwoLevelCache(new ConcurrentMapCache("clientdetails"), sharedCache,
+                invalidationBus);
+        CacheReloader cacheReloader = new CacheReloader() {
+            @Override
+            public String getCacheName() {
+                return "clientdetails";
+            }
+
+            @Override
+            public Object load(Object key) {
+                otherNodeCache.evict(key);
+                return "client-v1";
+            }
+        };
+        TwoLevelCacheLoader cacheLoader = new TwoLevelCacheLoader(sharedCache, evictionGenerations,
+                () -> cacheReloader);
+
+        Assert.assertEquals("client-v1", cacheLoader.load("client-id"));
+        Assert.assertNull(sharedCache.get("client-id"));
+        Assert.assertEquals("client-v1", cacheLoader.reload("client-id", "client-v0"));
+        Assert.assertNull(sharedCache.get("client-id"));
+    }
+
+    private CaffeineCache buildRefreshAheadCache(AtomicInteger loads, String value) {
+        CacheReloader cacheReloader = new CacheReloader() {
+            @Override
+            public String getCacheName() {
+                return "clientdetails";
+            }
+
+            @Override
+            public Object load(Object key) {
+                loads.incrementAndGet();
+                return value;
+            }
+        };
+        return new CaffeineCache("clientdetails", Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .refreshAfterWrite(1, TimeUnit.HOURS)
+                .build(new TwoLevelCacheLoader(sharedCache, new EvictionGenerations(), () -> cacheReloader)), true);
+    }
+
+    @Test
+    public void bindCacheToRegistry_withCaffeineLocalCache_thenPass() {
+        TwoLevelCache cache = new TwoLevelCache(new CaffeineCache("clientdetails",
+                Caffeine.newBuilder().recordStats().build()), sharedCache, new InMemoryCacheInvalidationBus());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CacheMetricsRegistrar registrar = new CacheMetricsRegistrar(meterRegistry,
+                Arrays.asList(new CaffeineCacheMeterBinderProvider(), new TwoLevelCacheMeterBinderProvider()));
+        Assert.assertTrue(registrar.bindCacheToRegistry(cache));
+
+        cache.put("client-id", "client-v1");
+        cache.get("client-id");
+        Assert.assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "clientdetails")
+                .tag("result", "hit").functionCounter().count(), 0);
+        Assert.assertNotNull(meterRegistry.get("cache.puts").tag("cache", "clientdetails").functionCounter());
+        Assert.assertNotNull(meterRegistry.get("cache.size").tag("cache", "clientdetails").gauge());
+
+        //no binder for a L1 other than caffeine
+        Assert.assertFalse(registrar.bindCacheToRegistry(node1Cache));
+    }
+}
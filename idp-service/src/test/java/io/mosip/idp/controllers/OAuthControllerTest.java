@@ -0,0 +1,59 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.controllers;
+
+import io.mosip.idp.core.dto.JwksDocument;
+import io.mosip.idp.core.spi.OAuthService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(value = OAuthController.class, secure = false)
+public class OAuthControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    OAuthService oAuthService;
+
+    @Test
+    public void getAllJwks_withoutETag_thenPass() throws Exception {
+        when(oAuthService.getJwks()).thenReturn(new JwksDocument("{\"keys\":[{\"kid\":\"key-id\"}]}"
+                .getBytes(StandardCharsets.UTF_8), "\"etag\""));
+
+        mockMvc.perform(get("/oauth/.well-known/jwks.json")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"etag\""))
+                .andExpect(header().string("Cache-Control", "max-age=300, public"))
+                .andExpect(jsonPath("$.keys[0].kid").value("key-id"));
+    }
+
+    @Test
+    public void getAllJwks_withMatchingETag_thenNotModified() throws Exception {
+        when(oAuthService.getJwks()).thenReturn(new JwksDocument("{\"keys\":[]}"
+                .getBytes(StandardCharsets.UTF_8), "\"etag\""));
+
+        mockMvc.perform(get("/oauth/.well-known/jwks.json")
+                        .header("If-None-Match", "\"etag\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.idp.core.exception.TemporarilyUnavailableException;
+import io.mosip.idp.core.spi.TransactionStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AdmissionControlServiceTest {
+
+    @Mock
+    TransactionStore transactionStore;
+
+    @InjectMocks
+    AdmissionControlService admissionControlService;
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(admissionControlService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(admissionControlService, "highWatermark", 0.9);
+        ReflectionTestUtils.setField(admissionControlService, "lowWatermark", 0.8);
+        admissionControlService.init();
+    }
+
+    @Test
+    public void admit_withOccupancyBelowHighWatermark_thenPass() throws Exception {
+        Mockito.when(transactionStore.getOccupancy()).thenReturn(0.85);
+        admissionControlService.admit();
+        Assert.assertEquals(0.85, meterRegistry.get("idp.transaction.store.occupancy").gauge().value(), 0.001);
+    }
+
+    @Test
+    public void admit_withOccupancyAboveHighWatermark_thenFail() {
+        Mockito.when(transactionStore.getOccupancy()).thenReturn(0.95, 0.85, 0.75);
+        try {
+            admissionControlService.admit();
+            Assert.fail();
+        } catch (TemporarilyUnavailableException e) {
+            Assert.assertEquals("temporarily_unavailable", e.getErrorCode());
+        }
+
+        //stays overloaded until occupancy drops below the low watermark
+        try {
+            admissionControlService.admit();
+            Assert.fail();
+        } catch (TemporarilyUnavailableException e) {
+            Assert.assertEquals(1, meterRegistry.get("idp.admission.overloaded").gauge().value(), 0);
+        }
+        Assert.assertEquals(2, meterRegistry.get("idp.admission.rejected").counter().count(), 0);
+    }
+
+    @Test
+    public void admit_withOccupancyBelowLowWatermark_thenPass() throws Exception {
+        Mockito.when(transactionStore.getOccupancy()).thenReturn(0.95, 0.75);
+        try {
+            admissionControlService.admit();
+            Assert.fail();
+        } catch (TemporarilyUnavailableException e) {}
+        admissionControlService.admit();
+        Assert.assertEquals(0, meterRegistry.get("idp.admission.overloaded").gauge().value(), 0);
+    }
+}
@@ -42,6 +42,15 @@ public class AuthorizationServiceTest {
     @Mock
     CacheUtilService cacheUtilService;
 
+    @Mock
+    SpeculativeTokenMinter speculativeTokenMinter;
+
+    @Mock
+    KycExchangeService kycExchangeService;
+
+    @Mock
+    AdmissionControlService admissionControlService;
+
     @InjectMocks
     AuthorizationServiceImpl authorizationServiceImpl;
 
@@ -120,7 +129,7 @@ public class AuthorizationServiceTest {
     public void getOauthDetails_withInvalidRedirectUri_throwsException() throws IdPException {
         ClientDetail clientDetail = new ClientDetail();
         clientDetail.setId("34567");
-        clientDetail.setRedirectUris(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp"));
+        clientDetail.setRedirectUris(new LinkedHashSet<>(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp")));
 
         OAuthDetailRequest oauthDetailRequest = new OAuthDetailRequest();
         oauthDetailRequest.setClientId("34567");
@@ -140,9 +149,9 @@ public class AuthorizationServiceTest {
     public void getOauthDetails_withNullClaimsInDbAndNullClaimsInReq() throws IdPException {
         ClientDetail clientDetail = new ClientDetail();
         clientDetail.setId("34567");
-        clientDetail.setRedirectUris(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp"));
+        clientDetail.setRedirectUris(new LinkedHashSet<>(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp")));
         clientDetail.setClaims(null);
-        clientDetail.setAcrValues(Arrays.asList("mosip:idp:acr:static-code"));
+        clientDetail.setAcrValues(new LinkedHashSet<>(Arrays.asList("mosip:idp:acr:static-code")));
 
         OAuthDetailRequest oauthDetailRequest = new OAuthDetailRequest();
         oauthDetailRequest.setClientId("34567");
@@ -164,9 +173,9 @@ public class AuthorizationServiceTest {
     public void getOauthDetails_withNullClaimsInDbAndValidClaimsInReq() throws IdPException {
         ClientDetail clientDetail = new ClientDetail();
         clientDetail.setId("34567");
-        clientDetail.setRedirectUris(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp"));
+        clientDetail.setRedirectUris(new LinkedHashSet<>(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp")));
         clientDetail.setClaims(null);
-        clientDetail.setAcrValues(Arrays.asList("mosip:idp:acr:static-code"));
+        clientDetail.setAcrValues(new LinkedHashSet<>(Arrays.asList("mosip:idp:acr:static-code")));
 
         OAuthDetailRequest oauthDetailRequest = new OAuthDetailRequest();
         oauthDetailRequest.setClientId("34567");
@@ -193,9 +202,9 @@ public class AuthorizationServiceTest {
     public void getOauthDetails_withValidClaimsInDbAndValidClaimsInReq() throws Exception {
         ClientDetail clientDetail = new ClientDetail();
         clientDetail.setId("34567");
-        clientDetail.setRedirectUris(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp"));
-        clientDetail.setClaims(Arrays.asList("email","given_name"));
-        clientDetail.setAcrValues(Arrays.asList("mosip:idp:acr:static-code"));
+        clientDetail.setRedirectUris(new LinkedHashSet<>(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp")));
+        clientDetail.setClaims(new LinkedHashSet<>(Arrays.asList("email","given_name")));
+        clientDetail.setAcrValues(new LinkedHashSet<>(Arrays.asList("mosip:idp:acr:static-code")));
 
         OAuthDetailRequest oauthDetailRequest = new OAuthDetailRequest();
         oauthDetailRequest.setClientId("34567");
@@ -222,9 +231,9 @@ public class AuthorizationServiceTest {
     public void getOauthDetails_withValidClaimsInDbAndInValidClaimsInReq() throws Exception {
         ClientDetail clientDetail = new ClientDetail();
         clientDetail.setId("34567");
-        clientDetail.setRedirectUris(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp"));
-        clientDetail.setClaims(Arrays.asList("email","given_name"));
-        clientDetail.setAcrValues(Arrays.asList("mosip:idp:acr:generated-code"));
+        clientDetail.setRedirectUris(new LinkedHashSet<>(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp")));
+        clientDetail.setClaims(new LinkedHashSet<>(Arrays.asList("email","given_name")));
+        clientDetail.setAcrValues(new LinkedHashSet<>(Arrays.asList("mosip:idp:acr:generated-code")));
 
         OAuthDetailRequest oauthDetailRequest = new OAuthDetailRequest();
         oauthDetailRequest.setClientId("34567");
@@ -251,8 +260,8 @@ public class AuthorizationServiceTest {
     public void getOauthDetails_withNullAcrInDB() throws Exception {
         ClientDetail clientDetail = new ClientDetail();
         clientDetail.setId("34567");
-        clientDetail.setRedirectUris(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp"));
-        clientDetail.setClaims(Arrays.asList("email","given_name"));
+        clientDetail.setRedirectUris(new LinkedHashSet<>(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp")));
+        clientDetail.setClaims(new LinkedHashSet<>(Arrays.asList("email","given_name")));
         clientDetail.setAcrValues(null);
 
         OAuthDetailRequest oauthDetailRequest = new OAuthDetailRequest();
@@ -276,9 +285,9 @@ public class AuthorizationServiceTest {
     public void getOauthDetails_withValidAcrInDBAndNullAcrInReq() throws Exception {
         ClientDetail clientDetail = new ClientDetail();
         clientDetail.setId("34567");
-        clientDetail.setRedirectUris(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp"));
-        clientDetail.setClaims(Arrays.asList("email","given_name"));
-        clientDetail.setAcrValues(Arrays.asList("mosip:idp:acr:generated-code","mosip:idp:acr:linked-wallet"));
+        clientDetail.setRedirectUris(new LinkedHashSet<>(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp")));
+        clientDetail.setClaims(new LinkedHashSet<>(Arrays.asList("email","given_name")));
+        clientDetail.setAcrValues(new LinkedHashSet<>(Arrays.asList("mosip:idp:acr:generated-code","mosip:idp:acr:linked-wallet")));
 
         OAuthDetailRequest oauthDetailRequest = new OAuthDetailRequest();
         oauthDetailRequest.setClientId("34567");
@@ -303,9 +312,9 @@ public class AuthorizationServiceTest {
     public void getOauthDetails_withValidAcrInDBAndValidAcrInReq() throws Exception {
         ClientDetail clientDetail = new ClientDetail();
         clientDetail.setId("34567");
-        clientDetail.setRedirectUris(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp"));
-        clientDetail.setClaims(Arrays.asList("email","given_name"));
-        clientDetail.setAcrValues(Arrays.asList("mosip:idp:acr:generated-code","mosip:idp:acr:linked-wallet"));
+        clientDetail.setRedirectUris(new LinkedHashSet<>(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp")));
+        clientDetail.setClaims(new LinkedHashSet<>(Arrays.asList("email","given_name")));
+        clientDetail.setAcrValues(new LinkedHashSet<>(Arrays.asList("mosip:idp:acr:generated-code","mosip:idp:acr:linked-wallet")));
 
         OAuthDetailRequest oauthDetailRequest = new OAuthDetailRequest();
         oauthDetailRequest.setClientId("34567");
@@ -328,9 +337,9 @@ public class AuthorizationServiceTest {
     public void getOauthDetails_withValidAcrInDBAndValidAcrInReq_orderOfPrecedencePreserved() throws Exception {
         ClientDetail clientDetail = new ClientDetail();
         clientDetail.setId("34567");
-        clientDetail.setRedirectUris(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp"));
-        clientDetail.setClaims(Arrays.asList("email","given_name"));
-        clientDetail.setAcrValues(Arrays.asList("mosip:idp:acr:generated-code","mosip:idp:acr:linked-wallet"));
+        clientDetail.setRedirectUris(new LinkedHashSet<>(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp")));
+        clientDetail.setClaims(new LinkedHashSet<>(Arrays.asList("email","given_name")));
+        clientDetail.setAcrValues(new LinkedHashSet<>(Arrays.asList("mosip:idp:acr:generated-code","mosip:idp:acr:linked-wallet")));
 
         OAuthDetailRequest oauthDetailRequest = new OAuthDetailRequest();
         oauthDetailRequest.setClientId("34567");
@@ -353,9 +362,9 @@ public class AuthorizationServiceTest {
     public void getOauthDetails_withValidAcrInDBAndValidAcrClaimInReq() throws Exception {
         ClientDetail clientDetail = new ClientDetail();
         clientDetail.setId("34567");
-        clientDetail.setRedirectUris(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp"));
-        clientDetail.setClaims(Arrays.asList("email","given_name"));
-        clientDetail.setAcrValues(Arrays.asList("mosip:idp:acr:generated-code", "mosip:idp:acr:wallet"));
+        clientDetail.setRedirectUris(new LinkedHashSet<>(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp")));
+        clientDetail.setClaims(new LinkedHashSet<>(Arrays.asList("email","given_name")));
+        clientDetail.setAcrValues(new LinkedHashSet<>(Arrays.asList("mosip:idp:acr:generated-code", "mosip:idp:acr:wallet")));
 
         OAuthDetailRequest oauthDetailRequest = new OAuthDetailRequest();
         oauthDetailRequest.setClientId("34567");
@@ -384,9 +393,9 @@ public class AuthorizationServiceTest {
     public void getOauthDetails_withValidClaimsInDbAndValidClaimsInReqAndNoOPENIDScope() throws Exception {
         ClientDetail clientDetail = new ClientDetail();
         clientDetail.setId("34567");
-        clientDetail.setRedirectUris(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp"));
-        clientDetail.setClaims(Arrays.asList("email","given_name"));
-        clientDetail.setAcrValues(Arrays.asList("mosip:idp:acr:wallet"));
+        clientDetail.setRedirectUris(new LinkedHashSet<>(Arrays.asList("https://localshot:3044/logo.png","http://localhost:8088/v1/idp","/v1/idp")));
+        clientDetail.setClaims(new LinkedHashSet<>(Arrays.asList("email","given_name")));
+        clientDetail.setAcrValues(new LinkedHashSet<>(Arrays.asList("mosip:idp:acr:wallet")));
 
         OAuthDetailRequest oauthDetailRequest = new OAuthDetailRequest();
         oauthDetailRequest.setClientId("34567");
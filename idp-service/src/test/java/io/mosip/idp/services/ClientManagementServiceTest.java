@@ -8,13 +8,17 @@ package io.mosip.idp.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.mosip.idp.TestUtil;
+import io.mosip.idp.core.dto.ClientDetailBulkRequest;
+import io.mosip.idp.core.dto.ClientDetailBulkResponse;
 import io.mosip.idp.core.dto.ClientDetailCreateRequest;
 import io.mosip.idp.core.dto.ClientDetailResponse;
 import io.mosip.idp.core.dto.ClientDetailUpdateRequest;
 import io.mosip.idp.core.exception.IdPException;
 import io.mosip.idp.core.spi.ClientManagementService;
+import io.mosip.idp.core.util.Constants;
 import io.mosip.idp.core.util.ErrorConstants;
 import io.mosip.idp.entity.ClientDetail;
+import io.mosip.idp.entity.ClientDetailProjection;
 import io.mosip.idp.repository.ClientDetailRepository;
 import org.junit.Assert;
 import org.junit.Before;
@@ -23,9 +27,22 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -40,14 +57,27 @@ public class ClientManagementServiceTest {
     @Mock
     ClientDetailRepository clientDetailRepository;
 
-    @Mock
+    @Spy
     ObjectMapper objectMapper = new ObjectMapper();
 
+    @Mock
+    ClientRegistry clientRegistry;
+
+    @Mock
+    CacheManager cacheManager;
+
+    @Mock
+    Cache cache;
+
+    @Mock
+    Validator validator;
+
     Map<String, Object> PUBLIC_KEY;
 
     @Before
     public void Before() {
         PUBLIC_KEY = TestUtil.generateJWK_RSA().toJSONObject();
+        ReflectionTestUtils.setField(clientManagementService, "bulkMaxItems", 10);
     }
 
     @Test
@@ -130,26 +160,42 @@ public class ClientManagementServiceTest {
 
     @Test
     public void getClient_withValidClientId_thenPass() throws IdPException {
-        ClientDetail clientDetail = new ClientDetail();
-        clientDetail.setName("client_id_v1");
-        clientDetail.setId("client_id_v1");
-        clientDetail.setLogoUri("http://service.com/logo.png");
-        clientDetail.setClaims("[\"given_name\", \"birthdate\"]");
-        clientDetail.setAcrValues("[\"mosip:idp:acr:static-code\"]");
-        clientDetail.setClientAuthMethods("[\"private_key_jwt\"]");
-        clientDetail.setGrantTypes("[\"authorization_code\"]");
-        clientDetail.setRedirectUris("[\"https://service.com/home\",\"https://service.com/dashboard\", \"v1/idp\"]");
+        ClientDetailProjection clientDetail = new ClientDetailProjection("client_id_v1", "client_id_v1", "rp_id_v1",
+                "http://service.com/logo.png",
+                "[\"https://service.com/home\",\"https://service.com/dashboard\", \"v1/idp\"]",
+                TestUtil.generateJWK_RSA().toPublicJWK().toJSONString(), "[\"given_name\", \"birthdate\"]",
+                "[\"mosip:idp:acr:static-code\"]", CLIENT_ACTIVE_STATUS, "[\"authorization_code\"]",
+                "[\"private_key_jwt\"]", LocalDateTime.now());
 
-        Mockito.when(clientDetailRepository.findByIdAndStatus("client_id_v1", CLIENT_ACTIVE_STATUS))
+        Mockito.when(clientDetailRepository.findProjectionByIdAndStatus("client_id_v1", CLIENT_ACTIVE_STATUS))
                 .thenReturn(Optional.of(clientDetail));
 
         io.mosip.idp.core.dto.ClientDetail dto = clientManagementService.getClientDetails("client_id_v1");
         Assert.assertNotNull(dto);
+        Assert.assertTrue(dto.getRedirectUris().contains("https://service.com/dashboard"));
+        Assert.assertEquals(Arrays.asList("given_name", "birthdate"), new ArrayList<>(dto.getClaims()));
+        Assert.assertNotNull(dto.getParsedPublicKey());
+    }
+
+    @Test
+    public void getClient_withInvalidPublicKey_thenFail() {
+        ClientDetailProjection clientDetail = new ClientDetailProjection("client_id_v1", "client_id_v1", "rp_id_v1",
+                "http://service.com/logo.png", "[]", "{}", "[]", "[]", CLIENT_ACTIVE_STATUS, "[]", "[]", LocalDateTime.now());
+
+        Mockito.when(clientDetailRepository.findProjectionByIdAndStatus("client_id_v1", CLIENT_ACTIVE_STATUS))
+                .thenReturn(Optional.of(clientDetail));
+
+        try {
+            clientManagementService.getClientDetails("client_id_v1");
+            Assert.fail();
+        } catch (IdPException ex) {
+            Assert.assertEquals(ErrorConstants.INVALID_CLIENT_ID, ex.getErrorCode());
+        }
     }
 
     @Test
     public void getClient_withInvalidClientId_thenFail() throws IdPException {
-        Mockito.when(clientDetailRepository.findByIdAndStatus("client_id_v1", CLIENT_ACTIVE_STATUS))
+        Mockito.when(clientDetailRepository.findProjectionByIdAndStatus("client_id_v1", CLIENT_ACTIVE_STATUS))
                 .thenReturn(Optional.empty());
 
         try {
@@ -159,4 +205,127 @@ public class ClientManagementServiceTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void load_withInactiveClient_thenRemove() {
+        Mockito.when(clientDetailRepository.findProjectionByIdAndStatus("client_id_v1", CLIENT_ACTIVE_STATUS))
+                .thenReturn(Optional.empty());
+        Assert.assertNull(clientManagementService.load("client_id_v1"));
+    }
+
+    @Test
+    public void createOrUpdateClients_withValidItems_thenPass() throws IdPException {
+        ClientDetailBulkRequest bulkRequest = new ClientDetailBulkRequest();
+        bulkRequest.setCreateRequests(Arrays.asList(getCreateRequest("client_id_v1"), getCreateRequest("client_id_v2")));
+        bulkRequest.setUpdateRequests(Collections.singletonMap("client_id_v3", getUpdateRequest()));
+        //client_id_v2 already exists, not written
+        Mockito.when(clientDetailRepository.saveAllInBatch(Mockito.anyList(), Mockito.anyList()))
+                .thenReturn(new HashSet<>(Arrays.asList("client_id_v1", "client_id_v3")));
+        Mockito.when(cacheManager.getCache(Constants.CLIENT_DETAIL_CACHE)).thenReturn(cache);
+
+        ClientDetailBulkResponse bulkResponse = clientManagementService.createOrUpdateOIDCClients(bulkRequest);
+        Assert.assertEquals(3, bulkResponse.getResults().size());
+        Assert.assertEquals(CLIENT_ACTIVE_STATUS, bulkResponse.getResults().get(0).getStatus());
+        Assert.assertNull(bulkResponse.getResults().get(0).getErrorCode());
+        Assert.assertEquals(ErrorConstants.DUPLICATE_CLIENT_ID, bulkResponse.getResults().get(1).getErrorCode());
+        Assert.assertEquals("client_id_v3", bulkResponse.getResults().get(2).getClientId());
+        Assert.assertEquals("INACTIVE", bulkResponse.getResults().get(2).getStatus());
+
+        Mockito.verify(clientDetailRepository).saveAllInBatch(
+                Mockito.argThat(inserts -> inserts.size() == 2 && inserts.get(0).getId().equals("client_id_v1")),
+                Mockito.argThat(updates -> updates.size() == 1 && updates.get(0).getId().equals("client_id_v3")));
+        Mockito.verify(cache).evict("client_id_v1");
+        Mockito.verify(cache).evict("client_id_v3");
+        Mockito.verifyNoMoreInteractions(cache);
+    }
+
+    @Test
+    public void createOrUpdateClients_withMissingClientToUpdate_thenFail() throws IdPException {
+        ClientDetailBulkRequest bulkRequest = new ClientDetailBulkRequest();
+        bulkRequest.setCreateRequests(Collections.singletonList(getCreateRequest("client_id_v1")));
+        bulkRequest.setUpdateRequests(Collections.singletonMap("client_id_v3", getUpdateRequest()));
+        Mockito.when(clientDetailRepository.saveAllInBatch(Mockito.anyList(), Mockito.anyList()))
+                .thenReturn(Collections.singleton("client_id_v1"));
+
+        ClientDetailBulkResponse bulkResponse = clientManagementService.createOrUpdateOIDCClients(bulkRequest);
+        Assert.assertNull(bulkResponse.getResults().get(0).getErrorCode());
+        Assert.assertEquals(ErrorConstants.INVALID_CLIENT_ID, bulkResponse.getResults().get(1).getErrorCode());
+        Mockito.verify(clientRegistry).onClientsWritten(Collections.singleton("client_id_v1"));
+    }
+
+    @Test
+    public void createOrUpdateClients_withConcurrentDuplicateOnEveryAttempt_thenFail() {
+        ClientDetailBulkRequest bulkRequest = new ClientDetailBulkRequest();
+        bulkRequest.setCreateRequests(Collections.singletonList(getCreateRequest("client_id_v1")));
+        Mockito.when(clientDetailRepository.saveAllInBatch(Mockito.anyList(), Mockito.anyList()))
+                .thenThrow(new DuplicateKeyException("client_id_v1"));
+        try {
+            clientManagementService.createOrUpdateOIDCClients(bulkRequest);
+            Assert.fail();
+        } catch (IdPException ex) {
+            Assert.assertEquals(ErrorConstants.DUPLICATE_CLIENT_ID, ex.getErrorCode());
+        }
+    }
+
+    @Test
+    public void createOrUpdateClients_withInvalidItems_thenPass() throws IdPException {
+        ClientDetailCreateRequest invalidRequest = getCreateRequest("client_id_v2");
+        ConstraintViolation<ClientDetailCreateRequest> violation = Mockito.mock(ConstraintViolation.class);
+        Mockito.when(violation.getMessage()).thenReturn(ErrorConstants.INVALID_CLIENT_NAME);
+        Mockito.when(validator.validate(invalidRequest)).thenReturn(Collections.singleton(violation));
+
+        ClientDetailBulkRequest bulkRequest = new ClientDetailBulkRequest();
+        bulkRequest.setCreateRequests(Arrays.asList(getCreateRequest("client_id_v1"), invalidRequest,
+                getCreateRequest("client_id_v1")));
+        Mockito.when(clientDetailRepository.saveAllInBatch(Mockito.anyList(), Mockito.anyList()))
+                .thenReturn(Collections.singleton("client_id_v1"));
+
+        ClientDetailBulkResponse bulkResponse = clientManagementService.createOrUpdateOIDCClients(bulkRequest);
+        Assert.assertNull(bulkResponse.getResults().get(0).getErrorCode());
+        Assert.assertEquals(ErrorConstants.INVALID_CLIENT_NAME, bulkResponse.getResults().get(1).getErrorCode());
+        Assert.assertNull(bulkResponse.getResults().get(1).getStatus());
+        Assert.assertEquals(ErrorConstants.DUPLICATE_CLIENT_ID, bulkResponse.getResults().get(2).getErrorCode());
+        Mockito.verify(clientDetailRepository).saveAllInBatch(Mockito.argThat(inserts -> inserts.size() == 1),
+                Mockito.argThat(List::isEmpty));
+    }
+
+    @Test
+    public void createOrUpdateClients_withTooManyItems_thenFail() {
+        ClientDetailBulkRequest bulkRequest = new ClientDetailBulkRequest();
+        bulkRequest.setCreateRequests(Collections.nCopies(11, getCreateRequest("client_id_v1")));
+        try {
+            clientManagementService.createOrUpdateOIDCClients(bulkRequest);
+            Assert.fail();
+        } catch (IdPException ex) {
+            Assert.assertEquals(ErrorConstants.INVALID_REQUEST, ex.getErrorCode());
+        }
+        Mockito.verifyNoMoreInteractions(clientDetailRepository);
+    }
+
+    private ClientDetailCreateRequest getCreateRequest(String clientId) {
+        ClientDetailCreateRequest createRequest = new ClientDetailCreateRequest();
+        createRequest.setClientId(clientId);
+        createRequest.setClientName("client_name_v1");
+        createRequest.setLogoUri("http://service.com/logo.png");
+        createRequest.setPublicKey(PUBLIC_KEY);
+        createRequest.setRedirectUris(Arrays.asList("http://service.com/home"));
+        createRequest.setUserClaims(Arrays.asList("given_name"));
+        createRequest.setAuthContextRefs(Arrays.asList("mosip:idp:acr:static-code"));
+        createRequest.setRelyingPartyId("RELYING_PARTY_ID");
+        createRequest.setGrantTypes(Arrays.asList("authorization_code"));
+        createRequest.setClientAuthMethods(Arrays.asList("private_key_jwt"));
+        return createRequest;
+    }
+
+    private ClientDetailUpdateRequest getUpdateRequest() {
+        ClientDetailUpdateRequest updateRequest = new ClientDetailUpdateRequest();
+        updateRequest.setClientName("client_name_v1");
+        updateRequest.setLogoUri("http://service.com/logo.png");
+        updateRequest.setRedirectUris(Arrays.asList("http://service.com/home"));
+        updateRequest.setUserClaims(Arrays.asList("given_name"));
+        updateRequest.setAuthContextRefs(Arrays.asList("mosip:idp:acr:static-code"));
+        updateRequest.setGrantTypes(Arrays.asList("authorization_code"));
+        updateRequest.setClientAuthMethods(Arrays.asList("private_key_jwt"));
+        updateRequest.setStatus("INACTIVE");
+        return updateRequest;
+    }
+}
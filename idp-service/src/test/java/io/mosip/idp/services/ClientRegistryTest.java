@@ -0,0 +1,179 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.mosip.idp.TestUtil;
+import io.mosip.idp.cache.InMemoryCacheInvalidationBus;
+import io.mosip.idp.core.dto.ClientDetail;
+import io.mosip.idp.core.exception.InvalidClientException;
+import io.mosip.idp.entity.ClientDetailProjection;
+import io.mosip.idp.repository.ClientDetailRepository;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static io.mosip.idp.core.util.Constants.CLIENT_ACTIVE_STATUS;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ClientRegistryTest {
+
+    @Mock
+    ClientDetailRepository clientDetailRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    InMemoryCacheInvalidationBus cacheInvalidationBus = new InMemoryCacheInvalidationBus();
+
+    @InjectMocks
+    ClientRegistry clientRegistry;
+
+    private final String publicKey = TestUtil.generateJWK_RSA().toPublicJWK().toJSONString();
+    private final LocalDateTime loadedAt = LocalDateTime.of(2022, 10, 1, 10, 0);
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(clientRegistry, "enabled", true);
+        ReflectionTestUtils.setField(clientRegistry, "refreshIntervalInSeconds", 3600L);
+        Mockito.when(clientDetailRepository.streamProjectionByStatus(CLIENT_ACTIVE_STATUS)).thenAnswer(invocation ->
+                Stream.of(client("client-1", "[\"https://client1.com/home\"]", CLIENT_ACTIVE_STATUS, loadedAt),
+                        client("client-2", "[\"https://client2.com/home\"]", CLIENT_ACTIVE_STATUS,
+                                loadedAt.minusDays(1))));
+        clientRegistry.init();
+    }
+
+    @After
+    public void tearDown() {
+        clientRegistry.destroy();
+    }
+
+    @Test
+    public void getClientDetails_withLoadedClient_thenPass() throws Exception {
+        ClientDetail clientDetail = clientRegistry.getClientDetails("client-1");
+        Assert.assertTrue(clientDetail.getRedirectUris().contains("https://client1.com/home"));
+        Assert.assertNotNull(clientDetail.getParsedPublicKey());
+        Mockito.verify(clientDetailRepository, Mockito.never()).findProjectionByIdAndStatus(Mockito.anyString(),
+                Mockito.anyString());
+    }
+
+    @Test(expected = InvalidClientException.class)
+    public void getClientDetails_withUnknownClient_thenFail() throws Exception {
+        clientRegistry.getClientDetails("client-3");
+    }
+
+    @Test
+    public void refresh_withModifiedClients_thenPass() throws Exception {
+        ClientDetail unchanged = clientRegistry.getClientDetails("client-2");
+        LocalDateTime modifiedAt = loadedAt.plusMinutes(5);
+        Mockito.when(clientDetailRepository.findProjectionModifiedSince(loadedAt.minusHours(1))).thenReturn(Arrays.asList(
+                client("client-1", "[\"https://client1.com/home\"]", "INACTIVE", modifiedAt),
+                client("client-2", "[\"https://client2.com/home\"]", CLIENT_ACTIVE_STATUS, loadedAt.minusDays(1)),
+                client("client-3", "[\"https://client3.com/home\"]", CLIENT_ACTIVE_STATUS, modifiedAt)));
+
+        clientRegistry.refresh();
+        try {
+            clientRegistry.getClientDetails("client-1");
+            Assert.fail();
+        } catch (InvalidClientException e) {}
+        Assert.assertSame(unchanged, clientRegistry.getClientDetails("client-2"));
+        Assert.assertTrue(clientRegistry.getClientDetails("client-3").getRedirectUris()
+                .contains("https://client3.com/home"));
+
+        //next poll starts from the new watermark
+        Mockito.when(clientDetailRepository.findProjectionModifiedSince(modifiedAt.minusHours(1)))
+                .thenReturn(Collections.emptyList());
+        clientRegistry.refresh();
+        Mockito.verify(clientDetailRepository).findProjectionModifiedSince(modifiedAt.minusHours(1));
+    }
+
+    @Test
+    public void refresh_withDatabaseFailure_thenPass() throws Exception {
+        Mockito.when(clientDetailRepository.findProjectionModifiedSince(Mockito.any()))
+                .thenThrow(new IllegalStateException("connection refused"));
+
+        clientRegistry.refresh();
+        Assert.assertNotNull(clientRegistry.getClientDetails("client-1"));
+    }
+
+    @Test
+    public void onClientsWritten_withDeactivatedClient_thenRemoved() throws Exception {
+        Mockito.when(clientDetailRepository.findProjectionByIds(Collections.singleton("client-1"))).thenReturn(
+                Collections.singletonList(client("client-1", "[\"https://client1.com/home\"]", "INACTIVE",
+                        loadedAt.plusMinutes(5))));
+
+        clientRegistry.onClientsWritten(Collections.singleton("client-1"));
+        try {
+            clientRegistry.getClientDetails("client-1");
+            Assert.fail();
+        } catch (InvalidClientException e) {}
+        Assert.assertNotNull(clientRegistry.getClientDetails("client-2"));
+        Mockito.verify(cacheInvalidationBus).publish(ClientRegistry.INVALIDATION_NAME, "client-1");
+    }
+
+    @Test
+    public void onClientsWritten_withClientWrittenOnOtherNode_thenApplied() throws Exception {
+        ClientRegistry otherNode = new ClientRegistry();
+        ReflectionTestUtils.setField(otherNode, "clientDetailRepository", clientDetailRepository);
+        ReflectionTestUtils.setField(otherNode, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(otherNode, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(otherNode, "cacheInvalidationBus", cacheInvalidationBus);
+        ReflectionTestUtils.setField(otherNode, "enabled", true);
+        ReflectionTestUtils.setField(otherNode, "refreshIntervalInSeconds", 3600L);
+        otherNode.init();
+        try {
+            Mockito.when(clientDetailRepository.findProjectionByIds(Collections.singleton("client-3"))).thenReturn(
+                    Collections.singletonList(client("client-3", "[\"https://client3.com/home\"]",
+                            CLIENT_ACTIVE_STATUS, loadedAt.plusMinutes(5))));
+
+            //applied on the writing node before returning
+            clientRegistry.onClientsWritten(Collections.singleton("client-3"));
+            Assert.assertNotNull(clientRegistry.getClientDetails("client-3"));
+
+            //other node applies it on the bus message, well before its next poll
+            long waitUntil = System.currentTimeMillis() + 5000;
+            while (!isRegistered(otherNode, "client-3") && System.currentTimeMillis() < waitUntil)
+                Thread.sleep(20);
+            Assert.assertTrue(isRegistered(otherNode, "client-3"));
+            Mockito.verify(clientDetailRepository, Mockito.never()).findProjectionModifiedSince(Mockito.any());
+        } finally {
+            otherNode.destroy();
+        }
+    }
+
+    private static boolean isRegistered(ClientRegistry clientRegistry, String clientId) {
+        try {
+            return clientRegistry.getClientDetails(clientId) != null;
+        } catch (InvalidClientException e) {
+            return false;
+        }
+    }
+
+    private ClientDetailProjection client(String clientId, String redirectUris, String status,
+                                          LocalDateTime modifiedtimes) {
+        return new ClientDetailProjection(clientId, clientId, "rp-id", "https://client.com/logo.png", redirectUris,
+                publicKey, "[\"email\"]", "[\"mosip:idp:acr:static-code\"]", status, "[\"authorization_code\"]",
+                "[\"private_key_jwt\"]", modifiedtimes);
+    }
+}
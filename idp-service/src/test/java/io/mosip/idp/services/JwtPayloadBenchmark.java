@@ -0,0 +1,99 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import io.mosip.idp.core.util.IdentityProviderUtil;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ID token payload encoding with json-simple against the streaming payload writer, signing is left out
+ * so only the payload and signing input garbage is measured. Allocation per token is reported by the GC profiler
+ * as gc.alloc.rate.norm. Run with the main method from the IDE or with the test classpath, not run as part of
+ * the build.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtPayloadBenchmark {
+
+    private static final String ISSUER = "https://idp.example.com/v1/idp";
+    private static final String SUBJECT = "fUlYzVaPkV6Tg3nrZ6KIhGdRZoW9y6bqXbd3Jby3Qbw";
+    private static final String CLIENT_ID = "healthservicev1";
+    private static final String NONCE = "973eieljzng";
+    private static final String ACR = "mosip:idp:acr:static-code mosip:idp:acr:generated-code";
+    private static final String AT_HASH = "x9Gq4GA0oNnS6UDKqWGHaw";
+    private static final byte[] SIGNATURE = new byte[256];
+
+    private String encodedHeader;
+    private byte[] encodedHeaderBytes;
+    private long issueTime;
+
+    @Setup
+    public void setup() {
+        encodedHeader = IdentityProviderUtil.B64Encode("{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"key-id\"}");
+        encodedHeaderBytes = encodedHeader.getBytes(StandardCharsets.US_ASCII);
+        issueTime = IdentityProviderUtil.getEpochSeconds();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public String jsonSimple() {
+        JSONObject payload = new JSONObject();
+        payload.put("iss", ISSUER);
+        payload.put("sub", SUBJECT);
+        payload.put("aud", CLIENT_ID);
+        payload.put("iat", issueTime);
+        payload.put("exp", issueTime + 3600);
+        payload.put("auth_time", issueTime);
+        payload.put("nonce", NONCE);
+        payload.put("acr", ACR);
+        payload.put("at_hash", AT_HASH);
+        String signingInput = encodedHeader + "." + IdentityProviderUtil.B64Encode(payload.toJSONString());
+        byte[] signingInputBytes = signingInput.getBytes(StandardCharsets.US_ASCII);
+        return signingInput + "." + IdentityProviderUtil.B64Encode(sign(signingInputBytes, 0,
+                signingInputBytes.length));
+    }
+
+    @Benchmark
+    public String payloadWriter() {
+        return JwtPayloadWriter.start()
+                .claim(JwtPayloadWriter.Claim.ISS, ISSUER)
+                .claim(JwtPayloadWriter.Claim.SUB, SUBJECT)
+                .claim(JwtPayloadWriter.Claim.AUD, CLIENT_ID)
+                .claim(JwtPayloadWriter.Claim.IAT, issueTime)
+                .claim(JwtPayloadWriter.Claim.EXP, issueTime + 3600)
+                .claim(JwtPayloadWriter.Claim.AUTH_TIME, issueTime)
+                .claim(JwtPayloadWriter.Claim.NONCE, NONCE)
+                .claim(JwtPayloadWriter.Claim.ACR, ACR)
+                .claim(JwtPayloadWriter.Claim.AT_HASH, AT_HASH)
+                .sign(encodedHeaderBytes, JwtPayloadBenchmark::sign);
+    }
+
+    //fixed RSA 2048 sized signature, the signature itself is allocated alike in both
+    private static byte[] sign(byte[] signingInput, int offset, int length) {
+        return SIGNATURE;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtPayloadBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
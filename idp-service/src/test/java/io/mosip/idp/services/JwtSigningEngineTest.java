@@ -0,0 +1,293 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.SignedJWT;
+import io.mosip.kernel.core.keymanager.model.CertificateEntry;
+import io.mosip.kernel.keymanagerservice.dto.AllCertificatesDataResponseDto;
+import io.mosip.kernel.keymanagerservice.dto.CertificateDataResponseDto;
+import io.mosip.kernel.keymanagerservice.dto.SignatureCertificate;
+import io.mosip.kernel.keymanagerservice.service.KeymanagerService;
+import io.mosip.kernel.signature.util.SignatureUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemWriter;
+import org.json.simple.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JwtSigningEngineTest {
+
+    @Mock
+    KeymanagerService keymanagerService;
+
+    @Spy
+    LocalSigningKeyStore localSigningKeyStore = new LocalSigningKeyStore();
+
+    @InjectMocks
+    JwtSigningEngine jwtSigningEngine;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private KeyPair keyPair;
+    private SignatureCertificate signatureCertificate;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+
+        X509Certificate certificate = Mockito.mock(X509Certificate.class);
+        Mockito.when(certificate.getEncoded()).thenReturn(new byte[]{1, 2, 3});
+        CertificateEntry<X509Certificate, PrivateKey> certificateEntry = new CertificateEntry<>();
+        certificateEntry.setChain(new X509Certificate[]{certificate});
+        certificateEntry.setPrivateKey(keyPair.getPrivate());
+        signatureCertificate = new SignatureCertificate();
+        signatureCertificate.setCertificateEntry(certificateEntry);
+        signatureCertificate.setUniqueIdentifier("0A0B0C");
+        signatureCertificate.setExpiryAt(LocalDateTime.now().plusYears(1));
+        Mockito.lenient().when(keymanagerService.getSignatureCertificate(Mockito.eq("IDP_SERVICE"),
+                Mockito.any(Optional.class), Mockito.anyString())).thenReturn(signatureCertificate);
+    }
+
+    @Test
+    public void sign_withValidPayload_thenPass() throws Exception {
+        ReflectionTestUtils.setField(jwtSigningEngine, "keyRefreshSeconds", 300L);
+        JSONObject payload = new JSONObject();
+        payload.put("sub", "subject");
+
+        SignedJWT jwt = SignedJWT.parse(jwtSigningEngine.sign("IDP_SERVICE", payload));
+        Assert.assertTrue(jwt.verify(new RSASSAVerifier((RSAPublicKey) keyPair.getPublic())));
+        Assert.assertEquals(SignatureUtil.convertHexToBase64("0A0B0C"), jwt.getHeader().getKeyID());
+        Assert.assertEquals("subject", jwt.getJWTClaimsSet().getSubject());
+
+        //signing key is resolved only once
+        jwtSigningEngine.sign("IDP_SERVICE", payload);
+        Mockito.verify(keymanagerService, Mockito.times(1)).getSignatureCertificate(Mockito.eq("IDP_SERVICE"),
+                Mockito.any(Optional.class), Mockito.anyString());
+    }
+
+    @Test
+    public void sign_withPayloadWriter_thenPass() throws Exception {
+        ReflectionTestUtils.setField(jwtSigningEngine, "keyRefreshSeconds", 300L);
+        //payload lengths cover all the base64 padding cases
+        for(String nonce : new String[]{"n", "no", "non", "\"quoted\" \u00e9\u4e2d"}) {
+            JwtPayloadWriter payload = JwtPayloadWriter.start()
+                    .claim(JwtPayloadWriter.Claim.SUB, "subject")
+                    .claim(JwtPayloadWriter.Claim.IAT, 1650000000L)
+                    .claim(JwtPayloadWriter.Claim.NONCE, nonce)
+                    .claim(JwtPayloadWriter.Claim.AT_HASH, null);
+
+            SignedJWT jwt = SignedJWT.parse(jwtSigningEngine.sign("IDP_SERVICE", payload));
+            Assert.assertTrue(jwt.verify(new RSASSAVerifier((RSAPublicKey) keyPair.getPublic())));
+            Assert.assertEquals("subject", jwt.getJWTClaimsSet().getSubject());
+            Assert.assertEquals(1650000000L, jwt.getJWTClaimsSet().getIssueTime().getTime() / 1000);
+            Assert.assertEquals(nonce, jwt.getJWTClaimsSet().getStringClaim("nonce"));
+            Assert.assertFalse(jwt.getJWTClaimsSet().getClaims().containsKey("at_hash"));
+        }
+    }
+
+    @Test
+    public void sign_withStaleSigningKey_thenReload() throws Exception {
+        ReflectionTestUtils.setField(jwtSigningEngine, "keyRefreshSeconds", 0L);
+        JSONObject payload = new JSONObject();
+        payload.put("sub", "subject");
+
+        jwtSigningEngine.sign("IDP_SERVICE", payload);
+        SignedJWT jwt = SignedJWT.parse(jwtSigningEngine.sign("IDP_SERVICE", payload));
+        Assert.assertTrue(jwt.verify(new RSASSAVerifier((RSAPublicKey) keyPair.getPublic())));
+        Mockito.verify(keymanagerService, Mockito.times(2)).getSignatureCertificate(Mockito.eq("IDP_SERVICE"),
+                Mockito.any(Optional.class), Mockito.anyString());
+    }
+
+    @Test
+    public void sign_withConcurrentCallers_thenLoadOnce() throws Exception {
+        ReflectionTestUtils.setField(jwtSigningEngine, "keyRefreshSeconds", 300L);
+        Mockito.reset(keymanagerService);
+        Mockito.when(keymanagerService.getSignatureCertificate(Mockito.eq("IDP_SERVICE"),
+                Mockito.any(Optional.class), Mockito.anyString())).thenAnswer(invocation -> {
+                    Thread.sleep(200);
+                    return signatureCertificate;
+                });
+        JSONObject payload = new JSONObject();
+        payload.put("sub", "subject");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Future<String>> jwts = new ArrayList<>();
+        try {
+            for(int i=0; i<8; i++) {
+                jwts.add(executorService.submit(() -> {
+                    latch.await();
+                    return jwtSigningEngine.sign("IDP_SERVICE", payload);
+                }));
+            }
+            latch.countDown();
+            for(Future<String> jwt : jwts)
+                Assert.assertTrue(SignedJWT.parse(jwt.get(5, TimeUnit.SECONDS))
+                        .verify(new RSASSAVerifier((RSAPublicKey) keyPair.getPublic())));
+        } finally {
+            executorService.shutdownNow();
+        }
+        Mockito.verify(keymanagerService, Mockito.times(1)).getSignatureCertificate(Mockito.eq("IDP_SERVICE"),
+                Mockito.any(Optional.class), Mockito.anyString());
+    }
+
+    @Test
+    public void sign_withES256Profile_thenPass() throws Exception {
+        configureKeyFile(localSigningKeyStore, SigningProfile.ES256, writeKeyFile(SigningProfile.ES256));
+        localSigningKeyStore.loadKey("IDP_SERVICE");
+        JSONObject payload = new JSONObject();
+        payload.put("sub", "subject");
+
+        SignedJWT jwt = SignedJWT.parse(jwtSigningEngine.sign("IDP_SERVICE", payload));
+        Assert.assertEquals(JWSAlgorithm.ES256, jwt.getHeader().getAlgorithm());
+        Assert.assertEquals(localSigningKeyStore.getKey("IDP_SERVICE").getKeyId(), jwt.getHeader().getKeyID());
+        Assert.assertTrue(jwt.verify(new ECDSAVerifier((ECPublicKey) localSigningKeyStore.getKey("IDP_SERVICE")
+                .getKeyPair().getPublic())));
+        Mockito.verifyZeroInteractions(keymanagerService);
+    }
+
+    @Test
+    public void sign_withEdDSAProfile_thenPass() throws Exception {
+        configureKeyFile(localSigningKeyStore, SigningProfile.EdDSA, writeKeyFile(SigningProfile.EdDSA));
+        localSigningKeyStore.loadKey("IDP_SERVICE");
+        JSONObject payload = new JSONObject();
+        payload.put("sub", "subject");
+
+        SignedJWT jwt = SignedJWT.parse(jwtSigningEngine.sign("IDP_SERVICE", payload));
+        Assert.assertEquals(JWSAlgorithm.EdDSA, jwt.getHeader().getAlgorithm());
+        Assert.assertEquals("Ed25519", localSigningKeyStore.getKey("IDP_SERVICE").getPublicJWK()
+                .toJSONObject().get("crv"));
+        Assert.assertTrue(jwt.verify(SigningProfile.EdDSA.newVerifier(localSigningKeyStore.getKey("IDP_SERVICE")
+                .getKeyPair().getPublic())));
+        Mockito.verifyZeroInteractions(keymanagerService);
+    }
+
+    @Test
+    public void sign_withSharedKeyFile_thenVerifiedByOtherNode() throws Exception {
+        for(SigningProfile signingProfile : new SigningProfile[]{SigningProfile.ES256, SigningProfile.EdDSA}) {
+            String keyFile = writeKeyFile(signingProfile);
+            configureKeyFile(localSigningKeyStore, signingProfile, keyFile);
+            localSigningKeyStore.loadKey("IDP_SERVICE");
+            JSONObject payload = new JSONObject();
+            payload.put("sub", "subject");
+            SignedJWT jwt = SignedJWT.parse(jwtSigningEngine.sign("IDP_SERVICE", payload));
+
+            //other node loads the same key file, with its own key store and key ring
+            LocalSigningKeyStore otherKeyStore = new LocalSigningKeyStore();
+            configureKeyFile(otherKeyStore, signingProfile, keyFile);
+            otherKeyStore.loadKey("IDP_SERVICE");
+            KeymanagerService otherKeymanagerService = Mockito.mock(KeymanagerService.class);
+            AllCertificatesDataResponseDto certificates = new AllCertificatesDataResponseDto();
+            certificates.setAllCertificates(new CertificateDataResponseDto[0]);
+            Mockito.when(otherKeymanagerService.getAllCertificates(Mockito.eq("IDP_SERVICE"),
+                    Mockito.any(Optional.class))).thenReturn(certificates);
+            PublicKeyRing otherKeyRing = new PublicKeyRing();
+            ReflectionTestUtils.setField(otherKeyRing, "keymanagerService", otherKeymanagerService);
+            ReflectionTestUtils.setField(otherKeyRing, "localSigningKeyStore", otherKeyStore);
+            ReflectionTestUtils.setField(otherKeyRing, "keyRefreshSeconds", 300L);
+
+            JWSVerifier verifier = otherKeyRing.getVerifier("IDP_SERVICE", jwt.getHeader().getKeyID());
+            Assert.assertNotNull(verifier);
+            Assert.assertTrue(jwt.verify(verifier));
+            ReflectionTestUtils.setField(jwtSigningEngine, "signingKeys", new ConcurrentHashMap<>());
+        }
+    }
+
+    @Test
+    public void loadKey_withoutKeyFile_thenFail() {
+        ReflectionTestUtils.setField(localSigningKeyStore, "signingProfile", SigningProfile.ES256);
+        try {
+            localSigningKeyStore.loadKey("IDP_SERVICE");
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertNull(localSigningKeyStore.getKey("IDP_SERVICE"));
+        }
+    }
+
+    @Test
+    public void loadKey_withMismatchedKeyFile_thenFail() throws Exception {
+        KeyPair signingKeyPair = generateKeyPair(SigningProfile.ES256);
+        KeyPair otherKeyPair = generateKeyPair(SigningProfile.ES256);
+        configureKeyFile(localSigningKeyStore, SigningProfile.ES256, writeKeyFile(signingKeyPair.getPrivate(),
+                otherKeyPair.getPublic()));
+        try {
+            localSigningKeyStore.loadKey("IDP_SERVICE");
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertNull(localSigningKeyStore.getKey("IDP_SERVICE"));
+        }
+    }
+
+    private String writeKeyFile(SigningProfile signingProfile) throws Exception {
+        KeyPair keyPair = generateKeyPair(signingProfile);
+        return writeKeyFile(keyPair.getPrivate(), keyPair.getPublic());
+    }
+
+    private String writeKeyFile(PrivateKey privateKey, PublicKey publicKey) throws IOException {
+        File keyFile = temporaryFolder.newFile();
+        try (PemWriter pemWriter = new PemWriter(new FileWriter(keyFile))) {
+            pemWriter.writeObject(new PemObject("PRIVATE KEY", privateKey.getEncoded()));
+            pemWriter.writeObject(new PemObject("PUBLIC KEY", publicKey.getEncoded()));
+        }
+        return "file:" + keyFile.getAbsolutePath();
+    }
+
+    private static KeyPair generateKeyPair(SigningProfile signingProfile) throws GeneralSecurityException {
+        if(signingProfile == SigningProfile.EdDSA)
+            return KeyPairGenerator.getInstance("Ed25519", new BouncyCastleProvider()).generateKeyPair();
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    private static void configureKeyFile(LocalSigningKeyStore keyStore, SigningProfile signingProfile, String keyFile) {
+        ReflectionTestUtils.setField(keyStore, "signingProfile", signingProfile);
+        ReflectionTestUtils.setField(keyStore, "keyFile", keyFile);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.dto.KycExchangeResult;
+import io.mosip.idp.core.dto.ResponseWrapper;
+import io.mosip.idp.core.spi.AuthenticationWrapper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KycExchangeServiceTest {
+
+    @Mock
+    AuthenticationWrapper authenticationWrapper;
+
+    @Mock
+    CacheUtilService cacheUtilService;
+
+    @InjectMocks
+    KycExchangeService kycExchangeService;
+
+    private ExecutorService tokenExecutor = Executors.newFixedThreadPool(2);
+
+    private IdPTransaction transaction;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(kycExchangeService, "tokenExecutor", tokenExecutor);
+        ReflectionTestUtils.setField(kycExchangeService, "prefetchEnabled", true);
+        ReflectionTestUtils.setField(kycExchangeService, "cacheExpireInSeconds",
+                Collections.singletonMap("authenticated", 60));
+        kycExchangeService.init();
+
+        transaction = new IdPTransaction();
+        transaction.setTransactionId("transaction-id");
+        transaction.setClientId("client-id");
+        transaction.setKycToken("kyc-token");
+        transaction.setCode("auth-code");
+
+        KycExchangeResult kycExchangeResult = new KycExchangeResult();
+        kycExchangeResult.setEncryptedKyc("encrypted-kyc");
+        ResponseWrapper<KycExchangeResult> exchangeResult = new ResponseWrapper<>();
+        exchangeResult.setResponse(kycExchangeResult);
+        Mockito.lenient().when(authenticationWrapper.doKycExchange(Mockito.any())).thenReturn(exchangeResult);
+    }
+
+    @After
+    public void tearDown() {
+        tokenExecutor.shutdownNow();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void exchange_withPrefetchedExchange_thenPass() throws Exception {
+        IdPTransaction stored = transaction.toBuilder().build();
+        Mockito.when(cacheUtilService.updateAuthCodeTransaction(Mockito.eq("auth-code"), Mockito.any()))
+                .thenAnswer(invocation -> {
+                    ((Consumer<IdPTransaction>) invocation.getArgument(1)).accept(stored);
+                    return stored;
+                });
+
+        kycExchangeService.prefetch(transaction);
+        Assert.assertEquals("encrypted-kyc", kycExchangeService.exchange(transaction).get(5, TimeUnit.SECONDS)
+                .getResponse().getEncryptedKyc());
+        //result is stored with the transaction for the other nodes
+        Assert.assertEquals("encrypted-kyc", stored.getEncryptedKyc());
+        Mockito.verify(authenticationWrapper, Mockito.times(1)).doKycExchange(Mockito.any());
+    }
+
+    @Test
+    public void exchange_withResultStoredByOtherNode_thenPass() throws Exception {
+        transaction.setEncryptedKyc("encrypted-kyc");
+        Assert.assertEquals("encrypted-kyc", kycExchangeService.exchange(transaction).get(5, TimeUnit.SECONDS)
+                .getResponse().getEncryptedKyc());
+        Mockito.verifyZeroInteractions(authenticationWrapper);
+    }
+
+    @Test
+    public void exchange_withoutPrefetch_thenPass() throws Exception {
+        ReflectionTestUtils.setField(kycExchangeService, "prefetchEnabled", false);
+        kycExchangeService.prefetch(transaction);
+        Mockito.verifyZeroInteractions(authenticationWrapper);
+
+        Assert.assertEquals("encrypted-kyc", kycExchangeService.exchange(transaction).get(5, TimeUnit.SECONDS)
+                .getResponse().getEncryptedKyc());
+        Mockito.verify(authenticationWrapper, Mockito.times(1)).doKycExchange(Mockito.any());
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import io.mosip.idp.core.dto.*;
+import io.mosip.idp.core.exception.IdPException;
+import io.mosip.idp.core.spi.ClientManagementService;
+import io.mosip.idp.core.spi.OAuthService;
+import io.mosip.idp.core.spi.TokenService;
+import io.mosip.idp.core.util.ErrorConstants;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OAuthServiceTest {
+
+    @Mock
+    ClientManagementService clientManagementService;
+
+    @Mock
+    KycExchangeService kycExchangeService;
+
+    @Mock
+    TokenService tokenService;
+
+    @Mock
+    CacheUtilService cacheUtilService;
+
+    @Mock
+    SpeculativeTokenMinter speculativeTokenMinter;
+
+    @InjectMocks
+    OAuthServiceImpl oAuthService;
+
+    private ExecutorService tokenExecutor = Executors.newFixedThreadPool(2);
+
+    private TokenRequest tokenRequest;
+
+    @Before
+    public void setUp() throws Exception {
+        ReflectionTestUtils.setField(oAuthService, "accessTokenExpireSeconds", 60);
+        ReflectionTestUtils.setField(oAuthService, "kycExchangeTimeoutInMillis", 200L);
+
+        tokenRequest = new TokenRequest();
+        tokenRequest.setCode("auth-code");
+        tokenRequest.setClient_id("client-id");
+        tokenRequest.setRedirect_uri("https://client.example.com/callback");
+        tokenRequest.setClient_assertion_type(OAuthService.JWT_BEARER_TYPE);
+        tokenRequest.setClient_assertion("client-assertion");
+
+        IdPTransaction transaction = new IdPTransaction();
+        transaction.setClientId("client-id");
+        transaction.setRedirectUri("https://client.example.com/callback");
+        transaction.setKycToken("kyc-token");
+        Mockito.when(cacheUtilService.getAuthenticatedTransaction("auth-code")).thenReturn(transaction);
+
+        ClientDetail clientDetail = new ClientDetail();
+        clientDetail.setId("client-id");
+        clientDetail.setPublicKey("jwk");
+        clientDetail.setRedirectUris(new LinkedHashSet<>(Arrays.asList("https://client.example.com/callback")));
+        Mockito.when(clientManagementService.getClientDetails("client-id")).thenReturn(clientDetail);
+    }
+
+    @After
+    public void tearDown() {
+        tokenExecutor.shutdownNow();
+    }
+
+    @Test
+    public void getTokens_withValidRequest_thenPass() throws Exception {
+        KycExchangeResult kycExchangeResult = new KycExchangeResult();
+        kycExchangeResult.setEncryptedKyc("encrypted-kyc");
+        ResponseWrapper<KycExchangeResult> exchangeResult = new ResponseWrapper<>();
+        exchangeResult.setResponse(kycExchangeResult);
+        Mockito.when(kycExchangeService.exchange(Mockito.any()))
+                .thenReturn(CompletableFuture.completedFuture(exchangeResult));
+        Mockito.when(tokenService.getAccessToken(Mockito.any())).thenReturn("access-token");
+        Mockito.when(tokenService.getIDToken(Mockito.any())).thenReturn("id-token");
+        Mockito.when(cacheUtilService.setKycTransaction(Mockito.anyString(), Mockito.any()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+
+        TokenResponse tokenResponse = oAuthService.getTokens(tokenRequest);
+        Assert.assertEquals("access-token", tokenResponse.getAccess_token());
+        Assert.assertEquals("id-token", tokenResponse.getId_token());
+        Mockito.verify(cacheUtilService).setKycTransaction(Mockito.anyString(),
+                Mockito.argThat(transaction -> "encrypted-kyc".equals(transaction.getEncryptedKyc())));
+    }
+
+    @Test
+    public void getTokens_withMintedTokens_thenPass() throws Exception {
+        IdPTransaction transaction = cacheUtilService.getAuthenticatedTransaction("auth-code");
+        transaction.setMintedAccessToken("minted-access-token");
+        transaction.setMintedIdToken("minted-id-token");
+        Mockito.when(speculativeTokenMinter.hasFreshTokens(transaction)).thenReturn(true);
+        ResponseWrapper<KycExchangeResult> exchangeResult = new ResponseWrapper<>();
+        exchangeResult.setResponse(new KycExchangeResult());
+        Mockito.when(kycExchangeService.exchange(Mockito.any()))
+                .thenReturn(CompletableFuture.completedFuture(exchangeResult));
+        Mockito.when(cacheUtilService.setKycTransaction(Mockito.anyString(), Mockito.any()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+
+        TokenResponse tokenResponse = oAuthService.getTokens(tokenRequest);
+        Assert.assertEquals("minted-access-token", tokenResponse.getAccess_token());
+        Assert.assertEquals("minted-id-token", tokenResponse.getId_token());
+        Mockito.verify(tokenService, Mockito.never()).getAccessToken(Mockito.any());
+        Mockito.verify(tokenService, Mockito.never()).getIDToken(Mockito.any());
+        //minted tokens are not kept with the kyc transaction
+        Assert.assertNull(transaction.getMintedAccessToken());
+    }
+
+    @Test
+    public void getTokens_withKycExchangeError_thenFail() throws Exception {
+        CompletableFuture<ResponseWrapper<KycExchangeResult>> kycExchange = new CompletableFuture<>();
+        kycExchange.completeExceptionally(new IdPException(ErrorConstants.INVALID_TRANSACTION));
+        Mockito.when(kycExchangeService.exchange(Mockito.any())).thenReturn(kycExchange);
+        Mockito.when(tokenService.getAccessToken(Mockito.any())).thenReturn("access-token");
+        Mockito.when(tokenService.getIDToken(Mockito.any())).thenReturn("id-token");
+
+        try {
+            oAuthService.getTokens(tokenRequest);
+            Assert.fail();
+        } catch (IdPException e) {
+            Assert.assertEquals(ErrorConstants.INVALID_TRANSACTION, e.getErrorCode());
+        }
+        Mockito.verify(cacheUtilService, Mockito.never()).setKycTransaction(Mockito.anyString(), Mockito.any());
+    }
+
+    @Test
+    public void getTokens_withSlowKycExchange_thenFail() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Mockito.when(kycExchangeService.exchange(Mockito.any())).thenReturn(tokenExecutor.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        }));
+        Mockito.when(tokenService.getAccessToken(Mockito.any())).thenReturn("access-token");
+        Mockito.when(tokenService.getIDToken(Mockito.any())).thenReturn("id-token");
+
+        try {
+            oAuthService.getTokens(tokenRequest);
+            Assert.fail();
+        } catch (IdPException e) {
+            Assert.assertEquals(ErrorConstants.KYC_EXCHANGE_TIMEOUT, e.getErrorCode());
+        }
+        //timed out KYC exchange is cancelled
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        Mockito.verify(cacheUtilService, Mockito.never()).setKycTransaction(Mockito.anyString(), Mockito.any());
+    }
+}
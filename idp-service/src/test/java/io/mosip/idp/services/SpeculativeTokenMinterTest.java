@@ -0,0 +1,88 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import io.mosip.idp.core.dto.IdPTransaction;
+import io.mosip.idp.core.spi.TokenService;
+import io.mosip.idp.core.util.IdentityProviderUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SpeculativeTokenMinterTest {
+
+    @Mock
+    TokenService tokenService;
+
+    @Mock
+    CacheUtilService cacheUtilService;
+
+    @Mock
+    ExecutorService tokenExecutor;
+
+    @InjectMocks
+    SpeculativeTokenMinter speculativeTokenMinter;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(speculativeTokenMinter, "enabled", true);
+        ReflectionTestUtils.setField(speculativeTokenMinter, "maxAgeInSeconds", 10L);
+        //run the minting on the caller
+        Mockito.doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(tokenExecutor).execute(Mockito.any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void mintAsync_withAuthenticatedTransaction_thenPass() throws Exception {
+        IdPTransaction transaction = new IdPTransaction();
+        transaction.setClientId("client-id");
+        Mockito.when(cacheUtilService.getAuthenticatedTransaction("auth-code")).thenReturn(transaction);
+        Mockito.when(tokenService.getAccessToken(transaction)).thenReturn("access-token");
+        String accessTokenHash = IdentityProviderUtil.generateOIDCAtHash("access-token");
+        Mockito.when(tokenService.getIDToken(Mockito.argThat(idTokenTransaction ->
+                accessTokenHash.equals(idTokenTransaction.getAHash())))).thenReturn("id-token");
+        Mockito.when(cacheUtilService.updateAuthCodeTransaction(Mockito.eq("auth-code"), Mockito.any()))
+                .thenAnswer(invocation -> {
+                    ((Consumer<IdPTransaction>) invocation.getArgument(1)).accept(transaction);
+                    return transaction;
+                });
+
+        speculativeTokenMinter.mintAsync("auth-code");
+        Assert.assertEquals("access-token", transaction.getMintedAccessToken());
+        Assert.assertEquals("id-token", transaction.getMintedIdToken());
+        //access token hash is stored only on redemption
+        Assert.assertNull(transaction.getAHash());
+        Assert.assertTrue(speculativeTokenMinter.hasFreshTokens(transaction));
+    }
+
+    @Test
+    public void hasFreshTokens_withOldTokens_thenFail() {
+        IdPTransaction transaction = new IdPTransaction();
+        transaction.setMintedAccessToken("access-token");
+        transaction.setMintedIdToken("id-token");
+        transaction.setMintedAtInSeconds(IdentityProviderUtil.getEpochSeconds() - 11);
+        Assert.assertFalse(speculativeTokenMinter.hasFreshTokens(transaction));
+    }
+
+    @Test
+    public void mintAsync_withRedeemedAuthCode_thenSkip() {
+        speculativeTokenMinter.mintAsync("auth-code");
+        Mockito.verifyZeroInteractions(tokenService);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.idp.services;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.mosip.idp.cache.InMemoryCacheInvalidationBus;
+import io.mosip.idp.core.exception.IdPException;
+import io.mosip.idp.core.exception.NotAuthenticatedException;
+import io.mosip.idp.core.util.Constants;
+import io.mosip.idp.core.util.IdentityProviderUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TokenServiceTest {
+
+    @Mock
+    PublicKeyRing publicKeyRing;
+
+    @InjectMocks
+    TokenServiceImpl tokenService;
+
+    private InMemoryCacheInvalidationBus cacheInvalidationBus = new InMemoryCacheInvalidationBus();
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(tokenService, "issuerId", "https://idp.example.com");
+        ReflectionTestUtils.setField(tokenService, "clientAssertionProcessorCacheSize", 10L);
+        ReflectionTestUtils.setField(tokenService, "verifiedAccessTokenCacheSize", 10L);
+        ReflectionTestUtils.setField(tokenService, "cacheInvalidationBus", cacheInvalidationBus);
+        tokenService.init();
+    }
+
+    @Test
+    public void verifyClientAssertionToken_withValidAssertion_thenPass() throws Exception {
+        RSAKey clientKey = new RSAKeyGenerator(2048).generate();
+        String jwk = clientKey.toPublicJWK().toJSONString();
+        tokenService.verifyClientAssertionToken("client-id", jwk, createClientAssertion(clientKey));
+        //served by the cached processor
+        tokenService.verifyClientAssertionToken("client-id", jwk, createClientAssertion(clientKey));
+    }
+
+    @Test
+    public void verifyClientAssertionToken_withChangedClientKey_thenFail() throws Exception {
+        RSAKey clientKey = new RSAKeyGenerator(2048).generate();
+        RSAKey newClientKey = new RSAKeyGenerator(2048).generate();
+        tokenService.verifyClientAssertionToken("client-id", clientKey.toPublicJWK().toJSONString(),
+                createClientAssertion(clientKey));
+        cacheInvalidationBus.publish(Constants.CLIENT_DETAIL_CACHE, "client-id");
+
+        //assertion signed with the old key is not accepted once the key is changed
+        try {
+            tokenService.verifyClientAssertionToken("client-id", newClientKey.toPublicJWK().toJSONString(),
+                    createClientAssertion(clientKey));
+            Assert.fail();
+        } catch (IdPException e) {
+            Assert.assertEquals("invalid_assertion", e.getErrorCode());
+        }
+        tokenService.verifyClientAssertionToken("client-id", newClientKey.toPublicJWK().toJSONString(),
+                createClientAssertion(newClientKey));
+    }
+
+    @Test
+    public void verifyAccessToken_withRepeatedCalls_thenVerifiedOnce() throws Exception {
+        RSAKey signingKey = new RSAKeyGenerator(2048).keyID("key-id").generate();
+        Mockito.when(publicKeyRing.getVerifier(Constants.IDP_SERVICE_APP_ID, "key-id"))
+                .thenReturn(new RSASSAVerifier(signingKey.toRSAPublicKey()));
+        String accessToken = createAccessToken(signingKey);
+        String accessTokenHash = IdentityProviderUtil.generateOIDCAtHash(accessToken);
+
+        tokenService.verifyAccessToken("client-id", "subject", accessToken, accessTokenHash);
+        tokenService.verifyAccessToken("client-id", "subject", accessToken, accessTokenHash);
+        Mockito.verify(publicKeyRing, Mockito.times(1)).getVerifier(Constants.IDP_SERVICE_APP_ID, "key-id");
+
+        //cached outcome is still matched with the audience and subject
+        try {
+            tokenService.verifyAccessToken("other-client-id", "subject", accessToken, accessTokenHash);
+            Assert.fail();
+        } catch (NotAuthenticatedException e) {}
+
+        //rotated key ring verifies again
+        Mockito.when(publicKeyRing.getGeneration()).thenReturn(1L);
+        tokenService.verifyAccessToken("client-id", "subject", accessToken, accessTokenHash);
+        Mockito.verify(publicKeyRing, Mockito.times(3)).getVerifier(Constants.IDP_SERVICE_APP_ID, "key-id");
+    }
+
+    private String createAccessToken(RSAKey signingKey) throws Exception {
+        JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+                .subject("subject")
+                .issuer("https://idp.example.com")
+                .audience("client-id")
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + 60000))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("key-id")
+                .type(JOSEObjectType.JWT).build(), claimsSet);
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+
+    private String createClientAssertion(RSAKey clientKey) throws Exception {
+        JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+                .subject("client-id")
+                .issuer("client-id")
+                .audience("https://idp.example.com")
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + 60000))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).type(JOSEObjectType.JWT).build(),
+                claimsSet);
+        jwt.sign(new RSASSASigner(clientKey));
+        return jwt.serialize();
+    }
+}
@@ -1,20 +1,26 @@
+-- postgres jsonb columns are plain strings in H2, so the ::jsonb casts of the client_detail writes run in the tests too
+CREATE DOMAIN IF NOT EXISTS jsonb AS VARCHAR;
+
 CREATE TABLE IF NOT EXISTS client_detail(
 	id character varying(50) NOT NULL,
     	name character varying(256) NOT NULL,
     	rp_id character varying(50) NOT NULL,
     	logo_uri character varying(1024) NOT NULL,
-    	redirect_uris character varying NOT NULL,
-    	claims character varying NOT NULL,
-    	acr_values character varying NOT NULL,
+    	redirect_uris jsonb NOT NULL,
+    	claims jsonb NOT NULL,
+    	acr_values jsonb NOT NULL,
     	public_key character varying NOT NULL,
-    	grant_types character varying NOT NULL,
-    	auth_methods character varying NOT NULL,
+    	grant_types jsonb NOT NULL,
+    	auth_methods jsonb NOT NULL,
     	status character varying(20) NOT NULL,
     	cr_dtimes timestamp NOT NULL,
     	upd_dtimes timestamp,
 	CONSTRAINT pk_client_detail PRIMARY KEY (id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_client_detail_status ON client_detail(status);
+CREATE INDEX IF NOT EXISTS idx_client_detail_rp_id ON client_detail(rp_id);
+
 CREATE TABLE IF NOT EXISTS key_alias(
     id character varying(36) NOT NULL,
     app_id character varying(36) NOT NULL,